@@ -7,12 +7,16 @@ import java.nio.LongBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.ShortBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.DoubleUnaryOperator;
+import java.util.zip.CRC32C;
 
 import ch.epfl.javelo.Functions;
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.data.GraphSectors.Sector;
 import ch.epfl.javelo.projection.PointCh;
 
@@ -27,9 +31,11 @@ public final class Graph {
     private final GraphSectors sectors;
     private final GraphEdges edges;
     private final List<AttributeSet> attributeSets;
+    private volatile GraphInEdges inEdges;
 
     /**
-     * Construit un graphe JaVelo
+     * Construit un graphe JaVelo, dont l'index des arêtes entrantes n'est calculé en mémoire que
+     * lors de sa première utilisation
      * 
      * @param nodes         noeuds du graphe
      * @param sectors       secteurs du graphe
@@ -44,9 +50,33 @@ public final class Graph {
         this.attributeSets = List.copyOf(attributeSets);
     }
 
+    /**
+     * Construit un graphe JaVelo
+     * 
+     * @param nodes         noeuds du graphe
+     * @param sectors       secteurs du graphe
+     * @param edges         arêtes du graphe
+     * @param inEdges       index des arêtes entrantes du graphe
+     * @param attributeSets ensemble d'attributs du graphe
+     * 
+     * @throws IllegalArgumentException si l'index des arêtes entrantes ne correspond pas au
+     *                                  nombre de noeuds et d'arêtes du graphe
+     */
+    public Graph(GraphNodes nodes, GraphSectors sectors, GraphEdges edges, GraphInEdges inEdges,
+            List<AttributeSet> attributeSets) {
+        this(nodes, sectors, edges, attributeSets);
+        Preconditions.checkArgument(inEdges.firstsBuffer().capacity() == nodes.count() + 1
+                && inEdges.firstsBuffer().get(nodes.count()) == edges.count());
+        this.inEdges = inEdges;
+    }
+
     /**
      * Méthode permettant de charger le graphe depuis un répertoire
      * 
+     * L'index des arêtes entrantes est projeté en mémoire depuis les fichiers in_nodes.bin et
+     * in_edges.bin s'ils sont présents, et calculé en mémoire lors de sa première utilisation
+     * sinon.
+     * 
      * @param basePath chemin d'accès du répertoire
      * 
      * @throws IOException en cas d'erreur d'entrée/sortie
@@ -66,8 +96,16 @@ public final class Graph {
         while (attributes.hasRemaining())
             attributeSet.add(new AttributeSet(attributes.get()));
 
-        return new Graph(new GraphNodes(nodesBuffer), new GraphSectors(sectorsBuffer),
-                new GraphEdges(edgesBuffer, profilesIds, elevations), attributeSet);
+        GraphNodes nodes = new GraphNodes(nodesBuffer);
+        GraphEdges edges = new GraphEdges(edgesBuffer, profilesIds, elevations);
+        GraphSectors sectors = new GraphSectors(sectorsBuffer);
+        if (!Files.exists(basePath.resolve(GraphInEdges.FIRSTS_FILE)))
+            return new Graph(nodes, sectors, edges, attributeSet);
+
+        GraphInEdges inEdges = new GraphInEdges(
+                getBufferFromPath(basePath, GraphInEdges.FIRSTS_FILE).asIntBuffer(),
+                getBufferFromPath(basePath, GraphInEdges.EDGES_FILE).asIntBuffer());
+        return new Graph(nodes, sectors, edges, inEdges, attributeSet);
     }
 
     /**
@@ -90,6 +128,30 @@ public final class Graph {
         return new PointCh(nodes.nodeE(nodeId), nodes.nodeN(nodeId));
     }
 
+    /**
+     * Méthode permettant d'obtenir la coordonnée E d'un noeud, sans créer de point ni vérifier
+     * qu'il se trouve en Suisse
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return la coordonnée E du noeud, en mètres
+     */
+    public double nodeE(int nodeId) {
+        return nodes.nodeE(nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir la coordonnée N d'un noeud, sans créer de point ni vérifier
+     * qu'il se trouve en Suisse
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return la coordonnée N du noeud, en mètres
+     */
+    public double nodeN(int nodeId) {
+        return nodes.nodeN(nodeId);
+    }
+
     /**
      * Méthode permettant d'obtenir le nombre d'arêtes sortantes d'un noeud
      * 
@@ -113,6 +175,42 @@ public final class Graph {
         return nodes.edgeId(nodeId, edgeIndex);
     }
 
+    /**
+     * Méthode permettant d'obtenir le nombre d'arêtes entrantes d'un noeud
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return le nombre d'arêtes entrantes du noeud
+     */
+    public int nodeInDegree(int nodeId) {
+        return inEdges().inDegree(nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité de l'edgeIndex-ième arête entrante d'un noeud
+     * 
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête entrante
+     * 
+     * @return l'identité de l'edgeIndex-ième arête entrante
+     */
+    public int nodeInEdgeId(int nodeId, int edgeIndex) {
+        return inEdges().edgeId(nodeId, edgeIndex);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité du noeud de départ de l'edgeIndex-ième arête
+     * entrante d'un noeud, que les arêtes ne stockent pas
+     * 
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête entrante
+     * 
+     * @return l'identité du noeud de départ de l'edgeIndex-ième arête entrante
+     */
+    public int nodeInEdgeSourceId(int nodeId, int edgeIndex) {
+        return inEdges().sourceNodeId(nodeId, edgeIndex);
+    }
+
     /**
      * Méthode permettant d'obtenir l'identité du noeud le plus proche d'un point
      * 
@@ -129,15 +227,58 @@ public final class Graph {
         for (Sector s : sectors.sectorsInArea(point, searchDistance)) {
             // parcours de tous les noeuds dans les secteurs
             for (int i = s.startNodeId(); i < s.endNodeId(); i++) {
-                if (point.squaredDistanceTo(nodePoint(i)) <= findDistance) {
+                double squaredDistance = Math2.squaredNorm(nodes.nodeE(i) - point.e(),
+                        nodes.nodeN(i) - point.n());
+                if (squaredDistance <= findDistance) {
                     nodeId = i;
-                    findDistance = point.squaredDistanceTo(nodePoint(i));
+                    findDistance = squaredDistance;
                 }
             }
         }
         return nodeId;
     }
 
+    /**
+     * Méthode permettant d'obtenir le secteur se trouvant à une position donnée de la grille des
+     * secteurs, qui en compte GraphSectors.SECTORS_PER_SIDE de chaque côté
+     * 
+     * @param x index de la colonne du secteur, d'ouest en est
+     * @param y index de la ligne du secteur, du sud au nord
+     * 
+     * @return le secteur, dont les noeuds ont une identité contiguë
+     */
+    public Sector sector(int x, int y) {
+        return sectors.sector(x, y);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre total d'arêtes du graphe
+     * 
+     * @return le nombre total d'arêtes
+     */
+    public int edgeCount() {
+        return edges.count();
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'empreinte du graphe, qui permet de savoir si des données
+     * calculées à partir d'un graphe et enregistrées dans un fichier correspondent à celui-ci
+     * 
+     * L'empreinte est calculée, en temps linéaire, à partir du nombre de noeuds et d'arêtes ainsi
+     * que d'une somme de contrôle du contenu des fichiers edges.bin et attributes.bin.
+     * 
+     * @return l'empreinte du graphe
+     */
+    public long fingerprint() {
+        CRC32C checksum = new CRC32C();
+        checksum.update(edges.edgesBuffer().duplicate().clear());
+        ByteBuffer attributes = ByteBuffer.allocate(attributeSets.size() * Long.BYTES);
+        for (AttributeSet attributeSet : attributeSets)
+            attributes.putLong(attributeSet.bits());
+        checksum.update(attributes.flip());
+        return (long) (31 * nodeCount() + edgeCount()) << Integer.SIZE | checksum.getValue();
+    }
+
     /**
      * Méthode permettant d'obtenir l'identité du noeud de destination d'une arête
      * 
@@ -207,6 +348,24 @@ public final class Graph {
                 : Functions.constant(Double.NaN);
     }
 
+    /**
+     * Méthode permettant d'obtenir l'index des arêtes entrantes, calculé lors du premier appel
+     * s'il n'a pas été donné à la construction du graphe
+     * 
+     * @return l'index des arêtes entrantes
+     */
+    private GraphInEdges inEdges() {
+        GraphInEdges index = inEdges;
+        if (index == null) {
+            synchronized (this) {
+                index = inEdges;
+                if (index == null)
+                    inEdges = index = GraphInEdges.build(nodes, edges);
+            }
+        }
+        return index;
+    }
+
     /**
      * Méthode permettant d'obtenir le buffer d'un fichier d'un répertoire
      * 
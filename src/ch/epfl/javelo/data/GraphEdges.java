@@ -32,6 +32,15 @@ public record GraphEdges(ByteBuffer edgesBuffer, IntBuffer profileIds, ShortBuff
     private static final int PROFIL_3 = 3;
 
 
+    /**
+     * Méthode permettant d'obtenir le nombre total d'arêtes
+     * 
+     * @return le nombre total d'arêtes
+     */
+    public int count() {
+        return edgesBuffer.capacity() / EDGES_INT;
+    }
+
     /**
      * Méthode permettant de savoir si l'arête va dans le sens inverse de la voie OSM
      * 
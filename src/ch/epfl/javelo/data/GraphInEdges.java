@@ -0,0 +1,175 @@
+package ch.epfl.javelo.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Enregistrement représentant l'index des arêtes entrantes de chaque noeud, au format CSR : les
+ * arêtes entrantes d'un noeud occupent un intervalle contigu de la mémoire tampon des arêtes,
+ * dont les bornes sont données par la mémoire tampon des noeuds
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ * 
+ * @param firstsBuffer mémoire tampon contenant l'index de la première arête entrante de chaque
+ *                     noeud, suivi du nombre total d'arêtes
+ * @param edgesBuffer  mémoire tampon contenant l'identité de chaque arête entrante et celle de
+ *                     son noeud de départ
+ */
+public record GraphInEdges(IntBuffer firstsBuffer, IntBuffer edgesBuffer) {
+    static final String FIRSTS_FILE = "in_nodes.bin";
+    static final String EDGES_FILE = "in_edges.bin";
+
+    private static final int OFFSET_EDGE_ID = 0;
+    private static final int OFFSET_SOURCE_ID = OFFSET_EDGE_ID + 1;
+    private static final int IN_EDGE_INTS = OFFSET_SOURCE_ID + 1;
+
+    /**
+     * Méthode permettant de construire l'index des arêtes entrantes à partir des noeuds et des
+     * arêtes du graphe, en parallèle
+     * 
+     * Les arêtes sont triées selon leur noeud d'arrivée puis leur identité, de sorte que l'index
+     * obtenu ne dépende pas du parallélisme.
+     * 
+     * @param nodes noeuds du graphe
+     * @param edges arêtes du graphe
+     * 
+     * @return l'index des arêtes entrantes
+     */
+    public static GraphInEdges build(GraphNodes nodes, GraphEdges edges) {
+        int nodeCount = nodes.count();
+        int[] sourceIds = new int[edges.count()];
+        IntStream.range(0, nodeCount).parallel().forEach(nodeId -> {
+            for (int i = 0; i < nodes.outDegree(nodeId); i++)
+                sourceIds[nodes.edgeId(nodeId, i)] = nodeId;
+        });
+
+        // clef de tri : noeud d'arrivée dans les bits de poids fort, identité de l'arête ensuite
+        long[] keys = new long[edges.count()];
+        Arrays.parallelSetAll(keys,
+                edgeId -> (long) edges.targetNodeId(edgeId) << Integer.SIZE | edgeId);
+        Arrays.parallelSort(keys);
+
+        int[] firsts = new int[nodeCount + 1];
+        Arrays.parallelSetAll(firsts, nodeId -> firstIndex(keys, nodeId));
+
+        int[] inEdges = new int[IN_EDGE_INTS * keys.length];
+        IntStream.range(0, keys.length).parallel().forEach(i -> {
+            int edgeId = (int) keys[i];
+            inEdges[IN_EDGE_INTS * i + OFFSET_EDGE_ID] = edgeId;
+            inEdges[IN_EDGE_INTS * i + OFFSET_SOURCE_ID] = sourceIds[edgeId];
+        });
+        return new GraphInEdges(IntBuffer.wrap(firsts), IntBuffer.wrap(inEdges));
+    }
+
+    /**
+     * Méthode permettant d'enregistrer l'index dans les fichiers in_nodes.bin et in_edges.bin
+     * d'un répertoire, projetés en mémoire par Graph.loadFrom lorsqu'ils sont présents à côté
+     * des fichiers du graphe
+     * 
+     * @param basePath chemin d'accès du répertoire
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path basePath) throws IOException {
+        write(basePath.resolve(FIRSTS_FILE), firstsBuffer);
+        write(basePath.resolve(EDGES_FILE), edgesBuffer);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'arêtes entrantes d'un noeud
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return le nombre d'arêtes entrantes du noeud
+     */
+    public int inDegree(int nodeId) {
+        return firstsBuffer.get(nodeId + 1) - firstsBuffer.get(nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité de la edgeIndex-ième arête entrante d'un noeud
+     * 
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête entrante
+     * 
+     * @return l'identité de l'arête
+     */
+    public int edgeId(int nodeId, int edgeIndex) {
+        return getInBuffer(nodeId, edgeIndex, OFFSET_EDGE_ID);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité du noeud de départ de la edgeIndex-ième arête
+     * entrante d'un noeud
+     * 
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête entrante
+     * 
+     * @return l'identité du noeud de départ de l'arête
+     */
+    public int sourceNodeId(int nodeId, int edgeIndex) {
+        return getInBuffer(nodeId, edgeIndex, OFFSET_SOURCE_ID);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'entier de la edgeIndex-ième arête entrante d'un noeud à un
+     * certain offset
+     * 
+     * @param nodeId    identité du noeud
+     * @param edgeIndex index de l'arête entrante
+     * @param offset    offset de l'entier cherché
+     * 
+     * @return l'entier recherché
+     */
+    private int getInBuffer(int nodeId, int edgeIndex, int offset) {
+        return edgesBuffer.get(IN_EDGE_INTS * (firstsBuffer.get(nodeId) + edgeIndex) + offset);
+    }
+
+    /**
+     * Méthode permettant de trouver, par dichotomie, l'index de la première clef triée dont le
+     * noeud d'arrivée est supérieur ou égal à un noeud donné
+     * 
+     * @param keys   clefs triées
+     * @param nodeId identité du noeud
+     * 
+     * @return l'index de la première clef correspondante, ou le nombre de clefs s'il n'y en a pas
+     */
+    private static int firstIndex(long[] keys, int nodeId) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if ((int) (keys[middle] >>> Integer.SIZE) < nodeId)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Méthode permettant d'enregistrer une mémoire tampon d'entiers dans un fichier
+     * 
+     * @param path   chemin d'accès du fichier
+     * @param buffer mémoire tampon à enregistrer
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    private static void write(Path path, IntBuffer buffer) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(buffer.capacity() * Integer.BYTES);
+        bytes.asIntBuffer().put(buffer.duplicate().clear());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+        }
+    }
+}
@@ -20,9 +20,9 @@ public record GraphSectors(ByteBuffer buffer) {
     private static final int OFFSET_FIRST_NODE_ID = 0;
     private static final int OFFSET_NODES_NUMBER = OFFSET_FIRST_NODE_ID + Integer.BYTES;
     private static final int SECTOR_INTS = OFFSET_NODES_NUMBER + Short.BYTES;
-    private static final int MAX_SECTORS = 128;
-    private static final double X_SECTOR_SIZE = SwissBounds.WIDTH / MAX_SECTORS;
-    private static final double Y_SECTOR_SIZE = SwissBounds.HEIGHT / MAX_SECTORS;
+    public static final int SECTORS_PER_SIDE = 128;
+    private static final double X_SECTOR_SIZE = SwissBounds.WIDTH / SECTORS_PER_SIDE;
+    private static final double Y_SECTOR_SIZE = SwissBounds.HEIGHT / SECTORS_PER_SIDE;
 
     /**
      * Enregistrement représentant un secteur
@@ -54,25 +54,37 @@ public record GraphSectors(ByteBuffer buffer) {
 
         // valeurs comprises dans les limites suisses
         int xMin = Math2.clamp(0, (int) ((xLeftCorner - SwissBounds.MIN_E) / X_SECTOR_SIZE),
-                MAX_SECTORS - 1);
+                SECTORS_PER_SIDE - 1);
         int yMin = Math2.clamp(0, (int) ((yLeftCorner - SwissBounds.MIN_N) / Y_SECTOR_SIZE),
-                MAX_SECTORS - 1);
+                SECTORS_PER_SIDE - 1);
 
         int xMax = Math2.clamp(0, (int) ((xRightCorner - SwissBounds.MIN_E) / X_SECTOR_SIZE),
-                MAX_SECTORS - 1);
+                SECTORS_PER_SIDE - 1);
         int yMax = Math2.clamp(0, (int) ((yRightCorner - SwissBounds.MIN_N) / Y_SECTOR_SIZE),
-                MAX_SECTORS - 1);
+                SECTORS_PER_SIDE - 1);
 
         for (int y = yMin; y <= yMax; y++) {
-            for (int x = xMin; x <= xMax; x++) {
-                int sectorId = x + MAX_SECTORS * y;
-                int nodeId = getNodeIdInBuffer(sectorId);
-                sectors.add(new Sector(nodeId, nodeId + getNumberNodes(sectorId)));
-            }
+            for (int x = xMin; x <= xMax; x++)
+                sectors.add(sector(x, y));
         }
         return sectors;
     }
 
+    /**
+     * Méthode permettant d'obtenir le secteur se trouvant à une position donnée de la grille des
+     * secteurs
+     * 
+     * @param x index de la colonne du secteur, d'ouest en est
+     * @param y index de la ligne du secteur, du sud au nord
+     * 
+     * @return le secteur
+     */
+    public Sector sector(int x, int y) {
+        int sectorId = x + SECTORS_PER_SIDE * y;
+        int nodeId = getNodeIdInBuffer(sectorId);
+        return new Sector(nodeId, nodeId + getNumberNodes(sectorId));
+    }
+
     /**
      * Méthode permettant d'obtenir l'identité du noeud d'un secteur
      * 
@@ -4,6 +4,7 @@ import java.util.function.Consumer;
 
 import ch.epfl.javelo.data.Graph;
 import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.routing.GraphComponents;
 import ch.epfl.javelo.routing.RoutePoint;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.DoubleProperty;
@@ -43,16 +44,17 @@ public final class AnnotatedMapManager {
      * Construit le gestionnaire de l'affichage de la carte annotée
      * 
      * @param graph       graphe de l'itinéraire
+     * @param components  composantes connexes du graphe
      * @param tileManager gestionnaire de tuiles
      * @param bean        bean de la route
      * @param error       consommateur d'erreurs
      */
-    public AnnotatedMapManager(Graph graph, TileManager tileManager, RouteBean bean,
-            Consumer<String> error) {
+    public AnnotatedMapManager(Graph graph, GraphComponents components, TileManager tileManager,
+            RouteBean bean, Consumer<String> error) {
         this.mapViewParameters = new SimpleObjectProperty<MapViewParameters>(
                 new MapViewParameters(INITIAL_ZOOM, INITIAL_X, INITIAL_Y));
-        this.waypointsManager = new WaypointsManager(graph, mapViewParameters, bean.waypoints(),
-                error);
+        this.waypointsManager = new WaypointsManager(graph, components, mapViewParameters,
+                bean.waypoints(), error);
         this.baseMapManager = new BaseMapManager(tileManager, waypointsManager, mapViewParameters);
         this.routeManager = new RouteManager(bean, mapViewParameters);
         this.pane = new StackPane(baseMapManager.pane(), waypointsManager.pane(),
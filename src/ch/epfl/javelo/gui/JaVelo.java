@@ -2,11 +2,19 @@ package ch.epfl.javelo.gui;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.routing.ArcFlags;
 import ch.epfl.javelo.routing.CityBikeCF;
+import ch.epfl.javelo.routing.CostFunction;
+import ch.epfl.javelo.routing.EdgeCostTable;
+import ch.epfl.javelo.routing.EuclideanHeuristic;
 import ch.epfl.javelo.routing.GpxGenerator;
+import ch.epfl.javelo.routing.GraphComponents;
+import ch.epfl.javelo.routing.Heuristic;
+import ch.epfl.javelo.routing.LandmarkHeuristic;
 import ch.epfl.javelo.routing.RouteComputer;
 import javafx.application.Application;
 import javafx.beans.binding.Bindings;
@@ -32,6 +40,10 @@ public final class JaVelo extends Application {
     private static final String OSM_HOST = "tile.openstreetmap.org";
     private static final String CACHE_DIRECTORY = "osm-cache";
     private static final String GRAPH_DIRECTORY = "javelo-data";
+    private static final String LANDMARKS_FILE = "landmarks.bin";
+    private static final String EDGE_COSTS_FILE = "edge_costs.bin";
+    private static final String COMPONENTS_FILE = "components.bin";
+    private static final String ARC_FLAGS_FILE = "arc_flags.bin";
     private static final String GPX_EXPORT_NAME = "javelo.gpx";
     private static final String APP_NAME = "JaVelo";
     private static final int MIN_WIDTH = 800;
@@ -47,20 +59,153 @@ public final class JaVelo extends Application {
         launch(args);
     }
 
+    /**
+     * Méthode permettant d'obtenir l'empreinte des données pré-calculées pour CityBikeCF, qui
+     * change dès que le graphe ou la version de CityBikeCF change
+     * 
+     * @param graph graphe JaVelo
+     * 
+     * @return l'empreinte des données pré-calculées
+     */
+    private static long fingerprint(Graph graph) {
+        return 31 * graph.fingerprint() + CityBikeCF.VERSION;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la table des coûts des arêtes pour CityBikeCF, chargée depuis
+     * son fichier s'il se trouve à côté des fichiers du graphe et que son empreinte est celle
+     * donnée, sinon calculée puis enregistrée afin de ne pas être recalculée au prochain démarrage
+     * 
+     * @param graph       graphe JaVelo
+     * @param fingerprint empreinte des données pré-calculées
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie lors du chargement
+     * 
+     * @return la table des coûts des arêtes
+     */
+    private static EdgeCostTable edgeCostTable(Graph graph, long fingerprint)
+            throws IOException {
+        Path costsPath = Path.of(GRAPH_DIRECTORY, EDGE_COSTS_FILE);
+        if (Files.exists(costsPath)) {
+            try {
+                return EdgeCostTable.loadFrom(costsPath, graph, fingerprint);
+            } catch (IllegalArgumentException exception) {
+                // fichier calculé à partir d'autres données, la table est recalculée
+            }
+        }
+
+        EdgeCostTable costTable = EdgeCostTable.build(graph, new CityBikeCF(graph));
+        try {
+            costTable.writeTo(costsPath, fingerprint);
+        } catch (IOException exception) {
+            // la table reste utilisable, elle sera simplement recalculée au prochain démarrage
+        }
+        return costTable;
+    }
+
+    /**
+     * Méthode permettant d'obtenir les composantes connexes du graphe pour une fonction de coût,
+     * chargées depuis leur fichier s'il se trouve à côté des fichiers du graphe et que son
+     * empreinte est celle donnée, sinon calculées puis enregistrées
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût du planificateur d'itinéraire
+     * @param fingerprint  empreinte des données pré-calculées
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie lors du chargement
+     * 
+     * @return les composantes connexes du graphe
+     */
+    private static GraphComponents graphComponents(Graph graph, CostFunction costFunction,
+            long fingerprint) throws IOException {
+        Path componentsPath = Path.of(GRAPH_DIRECTORY, COMPONENTS_FILE);
+        if (Files.exists(componentsPath)) {
+            try {
+                return GraphComponents.loadFrom(componentsPath, graph, fingerprint);
+            } catch (IllegalArgumentException exception) {
+                // fichier calculé à partir d'autres données, les composantes sont recalculées
+            }
+        }
+
+        GraphComponents components = GraphComponents.build(graph, costFunction);
+        try {
+            components.writeTo(componentsPath, fingerprint);
+        } catch (IOException exception) {
+            // les composantes restent utilisables, elles seront recalculées au prochain démarrage
+        }
+        return components;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'heuristique du planificateur d'itinéraire, c.-à-d.
+     * l'heuristique des points de repère si son fichier, calculé hors ligne pour CityBikeCF, se
+     * trouve à côté des fichiers du graphe et que son empreinte est celle donnée, sinon la
+     * distance à vol d'oiseau
+     * 
+     * @param graph       graphe JaVelo
+     * @param fingerprint empreinte des données pré-calculées
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     * 
+     * @return l'heuristique du planificateur d'itinéraire
+     */
+    private static Heuristic heuristic(Graph graph, long fingerprint) throws IOException {
+        Path landmarksPath = Path.of(GRAPH_DIRECTORY, LANDMARKS_FILE);
+        if (Files.exists(landmarksPath)) {
+            try {
+                return LandmarkHeuristic.loadFrom(landmarksPath, graph, fingerprint);
+            } catch (IllegalArgumentException exception) {
+                // fichier calculé pour un autre graphe ou une autre fonction de coût, la distance
+                // à vol d'oiseau est utilisée
+            }
+        }
+        return new EuclideanHeuristic(graph);
+    }
+
+    /**
+     * Méthode permettant d'obtenir les drapeaux d'arcs du planificateur d'itinéraire si leur
+     * fichier, calculé hors ligne pour CityBikeCF, se trouve à côté des fichiers du graphe et que
+     * son empreinte est celle donnée
+     * 
+     * @param graph       graphe JaVelo
+     * @param fingerprint empreinte des données pré-calculées
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     * 
+     * @return les drapeaux d'arcs, ou null s'ils ne sont pas disponibles
+     */
+    private static ArcFlags arcFlags(Graph graph, long fingerprint) throws IOException {
+        Path flagsPath = Path.of(GRAPH_DIRECTORY, ARC_FLAGS_FILE);
+        if (Files.exists(flagsPath)) {
+            try {
+                return ArcFlags.loadFrom(flagsPath, graph, fingerprint);
+            } catch (IllegalArgumentException exception) {
+                // fichier calculé pour un autre graphe ou une autre fonction de coût, les
+                // drapeaux ne sont pas utilisés
+            }
+        }
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void start(Stage primaryStage) throws Exception {
         Graph graph = Graph.loadFrom(Path.of(GRAPH_DIRECTORY));
-        RouteBean bean = new RouteBean(new RouteComputer(graph, new CityBikeCF(graph)));
+        long fingerprint = fingerprint(graph);
+        EdgeCostTable costTable = edgeCostTable(graph, fingerprint);
+        GraphComponents components = graphComponents(graph, costTable, fingerprint);
+        RouteBean bean = new RouteBean(new RouteComputer(graph, costTable,
+                RouteComputer.Options.DEFAULT.withHeuristic(heuristic(graph, fingerprint))
+                        .withComponents(components).withArcFlags(arcFlags(graph, fingerprint))));
 
         TileManager tileManager = new TileManager(Path.of(CACHE_DIRECTORY), OSM_HOST);
         ElevationProfileManager profileManager = new ElevationProfileManager(
                 bean.elevationProfileProperty(), bean.highlightedPositionProperty());
         ErrorManager errorManager = new ErrorManager();
-        AnnotatedMapManager mapManager = new AnnotatedMapManager(graph, tileManager, bean,
-                errorManager::displayError);
+        AnnotatedMapManager mapManager = new AnnotatedMapManager(graph, components,
+                tileManager, bean, errorManager::displayError);
 
         SplitPane splitPane = new SplitPane(mapManager.pane());
         StackPane stackPane = new StackPane(splitPane, errorManager.pane());
@@ -1,17 +1,26 @@
 package ch.epfl.javelo.gui;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.epfl.javelo.routing.ElevationProfile;
 import ch.epfl.javelo.routing.ElevationProfileComputer;
 import ch.epfl.javelo.routing.MultiRoute;
+import ch.epfl.javelo.routing.QueryLimits;
+import ch.epfl.javelo.routing.RetainedSearch;
 import ch.epfl.javelo.routing.Route;
 import ch.epfl.javelo.routing.RouteComputer;
+import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
@@ -26,6 +35,16 @@ import javafx.util.Pair;
  * Classe représentant un bean JavaFX regroupant les propriétés relatives aux points de passage et à
  * l'itinéraire correspondant
  * 
+ * L'itinéraire est calculé sur un fil d'exécution distinct de celui de JavaFX, de sorte que
+ * l'interface reste réactive. Toute modification des points de passage annule le calcul en cours,
+ * dont le résultat serait de toute façon obsolète, et les propriétés ne sont mises à jour, sur le
+ * fil d'exécution de JavaFX, qu'avec le résultat du dernier calcul demandé.
+ * 
+ * Lorsqu'une seule extrémité d'une étape change par rapport au calcul précédent, comme lors du
+ * déplacement d'un point de passage, l'étape est calculée au moyen d'une recherche conservée
+ * enracinée à l'extrémité inchangée, que les déplacements suivants poursuivent au lieu de
+ * recommencer une recherche complète.
+ * 
  * @author Marc FARHAT (325811)
  * @author Florian COMTE (346006)
  */
@@ -36,6 +55,7 @@ public final class RouteBean {
     private static final int MAX_STEP_LENGTH = 5;
     private static final float FACTOR_LIST = 0.75f;
     private static final boolean ACCESS_ORDER_LIST = true;
+    private static final int MAX_RETAINED_SEARCHES = 2;
 
     private final RouteComputer routeComputer;
     private final ObservableList<Waypoint> waypoints;
@@ -44,6 +64,11 @@ public final class RouteBean {
     private final ObjectProperty<ElevationProfile> elevationProfile;
 
     private final Map<Pair<Integer, Integer>, Route> routeCache;
+    private final ExecutorService routeExecutor;
+    private final AtomicInteger routeGeneration;
+    private final Deque<RetainedSearch> retainedSearches;
+    private List<Pair<Integer, Integer>> previousLegs;
+    private List<Waypoint> routeWaypoints;
 
     /**
      * Construit le bean JavaFX
@@ -57,6 +82,15 @@ public final class RouteBean {
         this.elevationProfile = new SimpleObjectProperty<>();
         this.routeCache = new LinkedHashMap<>(INIT_CAPACITY_LIST, FACTOR_LIST, ACCESS_ORDER_LIST);
         this.waypoints = FXCollections.observableArrayList();
+        this.routeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.routeGeneration = new AtomicInteger();
+        this.retainedSearches = new ArrayDeque<>();
+        this.previousLegs = List.of();
+        this.routeWaypoints = List.of();
 
         setupListeners();
     }
@@ -133,9 +167,10 @@ public final class RouteBean {
      */
     public int indexOfNonEmptySegmentAt(double position) {
         int index = route().indexOfSegmentAt(position);
+        // points de passage à partir desquels l'itinéraire affiché a été calculé
         for (int i = 0; i <= index; i += 1) {
-            int n1 = waypoints.get(i).id();
-            int n2 = waypoints.get(i + 1).id();
+            int n1 = routeWaypoints.get(i).id();
+            int n2 = routeWaypoints.get(i + 1).id();
             if (n1 == n2)
                 index += 1;
         }
@@ -143,17 +178,53 @@ public final class RouteBean {
     }
 
     /**
-     * Méthode permettant de calculer l'itinéraire
+     * Méthode permettant de demander le calcul de l'itinéraire correspondant aux points de passage
+     * actuels, sur le fil d'exécution dédié, en annulant le calcul éventuellement en cours
      */
     private void calculateRoute() {
-        if (waypoints.size() < MIN_WAYPOINTS_SIZE) {
-            route.set(null);
-            elevationProfile.set(null);
+        int generation = routeGeneration.incrementAndGet();
+        List<Waypoint> currentWaypoints = List.copyOf(waypoints);
+        if (currentWaypoints.size() < MIN_WAYPOINTS_SIZE) {
+            setRoute(currentWaypoints, null, null);
             return;
         }
 
+        routeExecutor.execute(() -> {
+            // le calcul est annulé dès qu'un calcul plus récent a été demandé
+            QueryLimits limits = QueryLimits
+                    .cancellable(() -> routeGeneration.get() != generation);
+            Route finalRoute;
+            try {
+                if (limits.cancelled().getAsBoolean())
+                    return;
+                finalRoute = computeRoute(currentWaypoints, limits);
+            } catch (CancellationException exception) {
+                return;
+            }
+            ElevationProfile routeProfile = finalRoute == null ? null
+                    : ElevationProfileComputer.elevationProfile(finalRoute, MAX_STEP_LENGTH);
+
+            Platform.runLater(() -> {
+                if (routeGeneration.get() == generation)
+                    setRoute(currentWaypoints, finalRoute, routeProfile);
+            });
+        });
+    }
+
+    /**
+     * Méthode permettant de calculer l'itinéraire passant par des points de passage
+     * 
+     * @param currentWaypoints points de passage, au moins deux
+     * @param limits           limites des recherches
+     * 
+     * @throws CancellationException si le calcul a été annulé
+     * 
+     * @return l'itinéraire, ou null s'il n'en existe pas
+     */
+    private Route computeRoute(List<Waypoint> currentWaypoints, QueryLimits limits) {
+        List<Pair<Integer, Integer>> legs = new ArrayList<>();
         List<Route> singlesRoutes = new ArrayList<>();
-        Iterator<Waypoint> it = waypoints.iterator();
+        Iterator<Waypoint> it = currentWaypoints.iterator();
         /*
          * on peut récuperer le premier élement car l'on a vérifié qu'il y a au moins deux points de
          * passages
@@ -167,48 +238,58 @@ public final class RouteBean {
             if (firstId == secondId)
                 continue;
 
-            Route singleRoute = getRoute(firstId, secondId);
+            Route singleRoute = getRoute(firstId, secondId, limits);
+            legs.add(new Pair<>(firstId, secondId));
 
-            if (singleRoute == null) {
-                route.set(null);
-                elevationProfile.set(null);
-                return;
-            }
+            if (singleRoute == null)
+                break;
 
             singlesRoutes.add(singleRoute);
             previousWaypoint = nextWaypoint;
         }
+        previousLegs = legs;
 
-        if (singlesRoutes.isEmpty()) {
-            route.set(null);
-            elevationProfile.set(null);
-            return;
-        }
-
-        Route finalRoute = new MultiRoute(singlesRoutes);
-        ElevationProfile routeProfile = ElevationProfileComputer.elevationProfile(finalRoute,
-                MAX_STEP_LENGTH);
+        return singlesRoutes.isEmpty() || singlesRoutes.size() < legs.size() ? null
+                : new MultiRoute(singlesRoutes);
+    }
 
+    /**
+     * Méthode permettant de mettre à jour l'itinéraire et son profil, sur le fil d'exécution de
+     * JavaFX
+     * 
+     * @param currentWaypoints points de passage à partir desquels l'itinéraire a été calculé
+     * @param finalRoute       itinéraire, ou null
+     * @param routeProfile     profil de l'itinéraire, ou null
+     */
+    private void setRoute(List<Waypoint> currentWaypoints, Route finalRoute,
+            ElevationProfile routeProfile) {
+        routeWaypoints = currentWaypoints;
         route.set(finalRoute);
         elevationProfile.set(routeProfile);
     }
 
     /**
      * Méthode permettant de récupérer l'itinéraire à partir des identifiants des noeuds aux
-     * extrémités
+     * extrémités, le cache n'étant utilisé que depuis le fil d'exécution dédié au calcul
      * 
      * @param firstId  identifiant du premier noeud
      * @param secondId identifiant du second noeud
+     * @param limits   limites de la recherche
+     * 
+     * @throws CancellationException si la recherche a été annulée, auquel cas rien n'est
+     *                               enregistré dans le cache
      * 
      * @return l'itinéraire
      */
-    private Route getRoute(int firstId, int secondId) {
+    private Route getRoute(int firstId, int secondId, QueryLimits limits) {
         for (Entry<Pair<Integer, Integer>, Route> entry : routeCache.entrySet()) {
             if (entry.getKey().equals(new Pair<>(firstId, secondId)))
                 return entry.getValue();
         }
 
-        Route r = routeComputer.bestRouteBetween(firstId, secondId);
+        RetainedSearch search = retainedSearch(firstId, secondId);
+        Route r = search == null ? routeComputer.bestRouteBetween(firstId, secondId, limits)
+                : search.bestRoute(search.isForward() ? secondId : firstId, limits);
         if (routeCache.size() >= MAX_CACHE_SIZE)
             routeCache.remove(routeCache.keySet().iterator().next());
         /**
@@ -220,6 +301,43 @@ public final class RouteBean {
         return r;
     }
 
+    /**
+     * Méthode permettant d'obtenir la recherche conservée à utiliser pour calculer une étape
+     * 
+     * Une recherche conservée enracinée à l'une des extrémités de l'étape est réutilisée si elle
+     * existe. Sinon, une nouvelle recherche est créée si l'étape partage son départ, ou à défaut
+     * son arrivée, avec une étape du calcul précédent, c.-à-d. si seule son autre extrémité a
+     * changé. Seules les MAX_RETAINED_SEARCHES dernières recherches sont conservées.
+     * 
+     * @param firstId  identifiant du premier noeud
+     * @param secondId identifiant du second noeud
+     * 
+     * @return la recherche conservée, ou null si l'étape doit être calculée sans recherche
+     *         conservée
+     */
+    private RetainedSearch retainedSearch(int firstId, int secondId) {
+        for (RetainedSearch search : retainedSearches) {
+            if (search.rootNodeId() == (search.isForward() ? firstId : secondId)) {
+                retainedSearches.remove(search);
+                retainedSearches.addFirst(search);
+                return search;
+            }
+        }
+
+        RetainedSearch search;
+        if (previousLegs.stream().anyMatch(leg -> leg.getKey() == firstId))
+            search = routeComputer.retainedSearchFrom(firstId);
+        else if (previousLegs.stream().anyMatch(leg -> leg.getValue() == secondId))
+            search = routeComputer.retainedSearchTo(secondId);
+        else
+            return null;
+
+        if (retainedSearches.size() == MAX_RETAINED_SEARCHES)
+            retainedSearches.removeLast();
+        retainedSearches.addFirst(search);
+        return search;
+    }
+
     /**
      * Méthode permettant de mettre en place les auditeurs
      */
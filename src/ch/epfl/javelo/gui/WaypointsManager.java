@@ -6,6 +6,7 @@ import java.util.function.Consumer;
 
 import ch.epfl.javelo.data.Graph;
 import ch.epfl.javelo.projection.PointCh;
+import ch.epfl.javelo.routing.GraphComponents;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.ListChangeListener;
@@ -35,9 +36,11 @@ public final class WaypointsManager {
     private static final String MIDDLE_STYLE = "middle";
     private static final String LAST_STYLE = "last";
     private static final String ERROR_NO_PATH = "Aucune route à proximité !";
+    private static final String ERROR_UNREACHABLE = "Aucun itinéraire possible par ce point !";
 
     private final Pane pane;
     private final Graph graph;
+    private final GraphComponents components;
     private final Consumer<String> error;
     private final List<Node> groups;
     private final ObservableList<Waypoint> waypoints;
@@ -47,14 +50,18 @@ public final class WaypointsManager {
      * Construit un gestionnaire de points de passage
      * 
      * @param graph      le graphe JaVelo
+     * @param components composantes connexes du graphe, permettant de refuser les points de
+     *                   passage ne pouvant certainement pas être reliés à leurs voisins
      * @param viewParams propriété JavaFX contenant les paramètres de la carte
      * @param waypoints  liste de points de passage initiaux
      * @param error      consommateur erreur
      */
-    public WaypointsManager(Graph graph, ObjectProperty<MapViewParameters> viewParams,
-            ObservableList<Waypoint> waypoints, Consumer<String> error) {
+    public WaypointsManager(Graph graph, GraphComponents components,
+            ObjectProperty<MapViewParameters> viewParams, ObservableList<Waypoint> waypoints,
+            Consumer<String> error) {
         this.pane = new Pane();
         this.graph = graph;
+        this.components = components;
         this.waypoints = waypoints;
         this.viewParams = viewParams;
         this.error = error;
@@ -83,10 +90,33 @@ public final class WaypointsManager {
     public void addWaypoint(double x, double y) {
         PointCh point = viewParams().getPointChFromPane(x, y);
         int closestNode = getClosestNode(point);
-        if (closestNode != NO_NODE_CLOSEST)
+        if (closestNode != NO_NODE_CLOSEST && isReachable(waypoints.size(), closestNode, false))
             waypoints.add(new Waypoint(point, closestNode));
     }
 
+    /**
+     * Méthode permettant de savoir si un point de passage placé à un index donné peut être relié
+     * à ses voisins, un message d'erreur étant affiché si ce n'est certainement pas le cas
+     * 
+     * @param index    index du point de passage dans la liste
+     * @param nodeId   identité du noeud du point de passage
+     * @param replaced TRUE si le point de passage remplace celui se trouvant à cet index, FALSE
+     *                 s'il y est inséré
+     * 
+     * @return FALSE s'il n'existe certainement aucun itinéraire entre le point de passage et l'un
+     *         de ses voisins, sinon TRUE
+     */
+    private boolean isReachable(int index, int nodeId, boolean replaced) {
+        int nextIndex = replaced ? index + 1 : index;
+        boolean reachable = (index == 0
+                || components.mayReach(waypoints.get(index - 1).id(), nodeId))
+                && (nextIndex >= waypoints.size()
+                        || components.mayReach(nodeId, waypoints.get(nextIndex).id()));
+        if (!reachable)
+            error.accept(ERROR_UNREACHABLE);
+        return reachable;
+    }
+
     /**
      * Méthode permettant de récuperer l'identité du noeud le plus proche d'un point dans un rayon
      * de SEARCH_DISTANCE
@@ -144,7 +174,8 @@ public final class WaypointsManager {
                         PointCh point = viewParams().getPointChFromPane(group.getLayoutX(),
                                 group.getLayoutY());
                         int closestNode = getClosestNode(point);
-                        if (closestNode == NO_NODE_CLOSEST) {
+                        if (closestNode == NO_NODE_CLOSEST
+                                || !isReachable(id, closestNode, true)) {
                             group.setLayoutX(viewParams().viewX(waypoint.point()));
                             group.setLayoutY(viewParams().viewY(waypoint.point()));
                         } else
@@ -0,0 +1,15 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Enregistrement représentant un itinéraire proposé parmi plusieurs alternatives, accompagné de
+ * son coût
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ * 
+ * @param route itinéraire
+ * @param cost  coût de l'itinéraire, c.-à-d. la somme des longueurs de ses arêtes pondérées par
+ *              la fonction de coût
+ */
+public record AlternativeRoute(Route route, float cost) {
+}
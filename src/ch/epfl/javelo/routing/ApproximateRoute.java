@@ -0,0 +1,27 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Enregistrement représentant un itinéraire dont le coût n'est pas nécessairement minimal,
+ * accompagné de son coût et d'une borne inférieure du coût minimal
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ * 
+ * @param route      itinéraire
+ * @param cost       coût de l'itinéraire, c.-à-d. la somme des longueurs de ses arêtes pondérées
+ *                   par la fonction de coût
+ * @param lowerBound borne inférieure du coût de l'itinéraire de coût minimal
+ */
+public record ApproximateRoute(Route route, float cost, float lowerBound) {
+
+    /**
+     * Méthode permettant d'obtenir la borne garantie du rapport entre le coût de l'itinéraire et
+     * le coût minimal
+     * 
+     * @return le rapport entre le coût de l'itinéraire et la borne inférieure du coût minimal,
+     *         supérieur ou égal à 1
+     */
+    public float bound() {
+        return cost / lowerBound;
+    }
+}
@@ -0,0 +1,283 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphSectors;
+import ch.epfl.javelo.data.GraphSectors.Sector;
+
+/**
+ * Classe représentant les drapeaux d'arcs d'un graphe JaVelo pour une fonction de coût donnée
+ * 
+ * Les noeuds sont répartis en régions formées de blocs carrés de secteurs du graphe. Le drapeau
+ * d'une arête pour une région indique que l'arête appartient à un itinéraire de coût minimal
+ * menant à un noeud de cette région, de sorte qu'une recherche vers un noeud de la région peut
+ * ignorer les arêtes dont le drapeau n'est pas levé. Chaque arête possède un drapeau par région,
+ * stockés dans un entier de type long.
+ * 
+ * Les drapeaux ne sont valables que pour la fonction de coût avec laquelle ils ont été calculés.
+ * Leur fichier contient donc une empreinte de cette fonction de coût et du graphe, afin que des
+ * drapeaux calculés pour un autre profil ne soient pas utilisés.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class ArcFlags {
+    private static final int MAX_REGIONS = Long.SIZE;
+    private static final int FINGERPRINT_INDEX = 1;
+    private static final int HEADER_LONGS = 2;
+    private static final int INITIAL_SETTLED_CAPACITY = 1024;
+
+    private final int regionsPerSide;
+    private final LongBuffer flags;
+    private final int[] nodeRegions;
+
+    /**
+     * Construit les drapeaux d'arcs à partir d'une mémoire tampon au format décrit par writeTo
+     * 
+     * @param graph  graphe JaVelo
+     * @param buffer mémoire tampon contenant les drapeaux
+     * 
+     * @throws IllegalArgumentException si la mémoire tampon ne contient pas exactement un
+     *                                  ensemble de drapeaux par arête du graphe
+     */
+    private ArcFlags(Graph graph, LongBuffer buffer) {
+        Preconditions.checkArgument(buffer.capacity() == HEADER_LONGS + graph.edgeCount());
+        this.regionsPerSide = (int) buffer.get(0);
+        this.flags = buffer.slice(HEADER_LONGS, graph.edgeCount());
+        this.nodeRegions = nodeRegions(graph, regionsPerSide);
+    }
+
+    /**
+     * Méthode permettant de calculer les drapeaux d'arcs d'un graphe
+     * 
+     * Les arêtes reliant deux noeuds d'une même région ont le drapeau de cette région. Pour chaque
+     * noeud frontière d'une région, c.-à-d. atteint par une arête venant d'une autre région, une
+     * recherche de Dijkstra arrière complète lève le drapeau de la région sur les arêtes de
+     * l'arbre des itinéraires de coût minimal menant à ce noeud. Les régions sont traitées en
+     * parallèle. Ce pré-calcul est destiné à être effectué hors ligne, son résultat étant ensuite
+     * enregistré au moyen de writeTo.
+     * 
+     * @param graph          graphe JaVelo
+     * @param costFunction   fonction de coût
+     * @param regionsPerSide nombre de régions de chaque côté de la grille des régions
+     * 
+     * @throws IllegalArgumentException si le nombre de régions de chaque côté ne divise pas le
+     *                                  nombre de secteurs de chaque côté, ou si le nombre total
+     *                                  de régions dépasse 64
+     * 
+     * @return les drapeaux d'arcs du graphe
+     */
+    public static ArcFlags build(Graph graph, CostFunction costFunction, int regionsPerSide) {
+        Preconditions.checkArgument(regionsPerSide > 0
+                && GraphSectors.SECTORS_PER_SIDE % regionsPerSide == 0
+                && regionsPerSide * regionsPerSide <= MAX_REGIONS);
+
+        EdgeCostTable costs = costFunction instanceof EdgeCostTable table ? table
+                : EdgeCostTable.build(graph, costFunction);
+        int[] nodeRegions = nodeRegions(graph, regionsPerSide);
+        ThreadLocal<SearchWorkspace> workspaces = ThreadLocal
+                .withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+
+        BitSet[] regionEdges = IntStream.range(0, regionsPerSide * regionsPerSide).parallel()
+                .mapToObj(region -> regionEdges(graph, costs, nodeRegions, region,
+                        workspaces.get()))
+                .toArray(BitSet[]::new);
+
+        long[] flags = new long[HEADER_LONGS + graph.edgeCount()];
+        flags[0] = regionsPerSide;
+        for (int region = 0; region < regionEdges.length; region++) {
+            BitSet edges = regionEdges[region];
+            for (int edgeId = edges.nextSetBit(0); edgeId >= 0; edgeId = edges
+                    .nextSetBit(edgeId + 1))
+                flags[HEADER_LONGS + edgeId] |= 1L << region;
+        }
+        return new ArcFlags(graph, LongBuffer.wrap(flags));
+    }
+
+    /**
+     * Méthode permettant de charger les drapeaux d'arcs d'un graphe depuis un fichier
+     * 
+     * @param path        chemin d'accès du fichier, typiquement placé à côté des fichiers du
+     *                    graphe
+     * @param graph       graphe JaVelo
+     * @param fingerprint empreinte attendue du graphe et de la fonction de coût avec lesquels les
+     *                    drapeaux ont été calculés
+     * 
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si le fichier ne contient pas exactement un ensemble de
+     *                                  drapeaux par arête du graphe, ou si son empreinte n'est pas
+     *                                  celle attendue
+     * 
+     * @return les drapeaux d'arcs contenus dans le fichier
+     */
+    public static ArcFlags loadFrom(Path path, Graph graph, long fingerprint)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            LongBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .asLongBuffer();
+            ArcFlags arcFlags = new ArcFlags(graph, buffer);
+            Preconditions.checkArgument(buffer.get(FINGERPRINT_INDEX) == fingerprint);
+            return arcFlags;
+        }
+    }
+
+    /**
+     * Méthode permettant d'enregistrer les drapeaux d'arcs dans un fichier, qui contient le
+     * nombre de régions de chaque côté et l'empreinte donnée, suivis des drapeaux de chaque arête
+     * dans l'ordre de leur identité
+     * 
+     * @param path        chemin d'accès du fichier
+     * @param fingerprint empreinte du graphe et de la fonction de coût avec lesquels les drapeaux
+     *                    ont été calculés
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path path, long fingerprint) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((HEADER_LONGS + flags.capacity()) * Long.BYTES);
+        buffer.asLongBuffer().put(regionsPerSide).put(fingerprint)
+                .put(flags.duplicate().clear());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'arêtes possédant des drapeaux
+     * 
+     * @return le nombre d'arêtes
+     */
+    public int edgeCount() {
+        return flags.capacity();
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre total de régions
+     * 
+     * @return le nombre total de régions
+     */
+    public int regionCount() {
+        return regionsPerSide * regionsPerSide;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la région contenant un noeud
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return l'identité de la région contenant le noeud
+     */
+    public int nodeRegion(int nodeId) {
+        return nodeRegions[nodeId];
+    }
+
+    /**
+     * Méthode permettant de savoir si une arête peut appartenir à un itinéraire de coût minimal
+     * menant à un noeud d'une région
+     * 
+     * @param edgeId   identité de l'arête
+     * @param regionId identité de la région
+     * 
+     * @return TRUE si le drapeau de l'arête pour la région est levé, sinon FALSE
+     */
+    public boolean hasFlag(int edgeId, int regionId) {
+        return (flags.get(edgeId) & (1L << regionId)) != 0;
+    }
+
+    /**
+     * Méthode permettant de déterminer la région de chaque noeud à partir des secteurs du graphe,
+     * chaque région étant formée d'un bloc carré de secteurs
+     * 
+     * @param graph          graphe JaVelo
+     * @param regionsPerSide nombre de régions de chaque côté de la grille des régions
+     * 
+     * @return la région de chaque noeud
+     */
+    private static int[] nodeRegions(Graph graph, int regionsPerSide) {
+        int sectorsPerRegion = GraphSectors.SECTORS_PER_SIDE / regionsPerSide;
+        int[] nodeRegions = new int[graph.nodeCount()];
+        for (int y = 0; y < GraphSectors.SECTORS_PER_SIDE; y++) {
+            for (int x = 0; x < GraphSectors.SECTORS_PER_SIDE; x++) {
+                Sector sector = graph.sector(x, y);
+                int region = x / sectorsPerRegion + regionsPerSide * (y / sectorsPerRegion);
+                Arrays.fill(nodeRegions, sector.startNodeId(), sector.endNodeId(), region);
+            }
+        }
+        return nodeRegions;
+    }
+
+    /**
+     * Méthode permettant de déterminer les arêtes dont le drapeau d'une région doit être levé
+     * 
+     * @param graph       graphe JaVelo
+     * @param costs       coût de chaque arête
+     * @param nodeRegions région de chaque noeud
+     * @param region      identité de la région
+     * @param workspace   espace de travail des recherches arrière
+     * 
+     * @return l'ensemble des identités des arêtes dont le drapeau de la région doit être levé
+     */
+    private static BitSet regionEdges(Graph graph, EdgeCostTable costs,
+            int[] nodeRegions, int region, SearchWorkspace workspace) {
+        BitSet edges = new BitSet(graph.edgeCount());
+        int[] settled = new int[INITIAL_SETTLED_CAPACITY];
+
+        for (int nodeId = 0; nodeId < graph.nodeCount(); nodeId++) {
+            if (nodeRegions[nodeId] != region)
+                continue;
+
+            boolean boundary = false;
+            for (int i = 0; i < graph.nodeInDegree(nodeId); i++) {
+                int sourceId = graph.nodeInEdgeSourceId(nodeId, i);
+                int edgeId = graph.nodeInEdgeId(nodeId, i);
+                if (costs.edgeCost(edgeId) == Float.POSITIVE_INFINITY)
+                    continue;
+                if (nodeRegions[sourceId] == region)
+                    edges.set(edgeId);
+                else
+                    boundary = true;
+            }
+            if (!boundary)
+                continue;
+
+            // recherche arrière, le prédécesseur d'un noeud étant son arête vers l'arrivée
+            workspace.reset();
+            workspace.setDistance(nodeId, 0);
+            workspace.heap().push(nodeId, 0);
+            int settledCount = 0;
+            while (!workspace.heap().isEmpty()) {
+                int currentId = workspace.settleNext();
+                if (settledCount == settled.length)
+                    settled = Arrays.copyOf(settled, 2 * settledCount);
+                settled[settledCount++] = currentId;
+
+                float distance = workspace.distance(currentId);
+                for (int i = 0; i < graph.nodeInDegree(currentId); i++) {
+                    int edgeId = graph.nodeInEdgeId(currentId, i);
+                    int sourceId = graph.nodeInEdgeSourceId(currentId, i);
+                    float d = distance + costs.edgeCost(edgeId);
+                    if (d < workspace.distance(sourceId)) {
+                        workspace.update(sourceId, d, edgeId);
+                        workspace.heap().push(sourceId, d);
+                    }
+                }
+            }
+            // le premier noeud visité est le noeud frontière lui-même, qui n'a pas d'arête
+            for (int i = 1; i < settledCount; i++)
+                edges.set(workspace.predecessor(settled[i]));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,187 @@
+package ch.epfl.javelo.routing;
+
+import java.util.stream.IntStream;
+
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant la personnalisation d'une partition à plusieurs niveaux pour une fonction
+ * de coût, c.-à-d. le coût minimal entre chaque paire de noeuds frontières de chaque cellule
+ * 
+ * Les coûts d'une cellule sont calculés par des recherches de Dijkstra limitées à la cellule,
+ * sur le graphe pour le niveau 1, et sur les cliques du niveau inférieur et les arêtes reliant
+ * ses cellules pour les niveaux supérieurs. Les cellules d'un même niveau sont traitées en
+ * parallèle.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class CellCliques {
+    private final Graph graph;
+    private final GraphPartition partition;
+    private final CostFunction costFunction;
+    private final EdgeCostTable costTable;
+    private final float[][] costs;
+    private final int[][] cliqueFirst;
+
+    /**
+     * Construit les cliques des cellules d'une partition pour une fonction de coût
+     * 
+     * @param graph        graphe JaVelo
+     * @param partition    partition du graphe
+     * @param costFunction fonction de coût
+     */
+    CellCliques(Graph graph, GraphPartition partition, CostFunction costFunction) {
+        this.graph = graph;
+        this.partition = partition;
+        this.costFunction = costFunction;
+        this.costTable = costFunction instanceof EdgeCostTable table ? table : null;
+
+        int levelCount = partition.levelCount();
+        this.costs = new float[levelCount + 1][];
+        this.cliqueFirst = new int[levelCount + 1][];
+        ThreadLocal<SearchWorkspace> workspaces = ThreadLocal
+                .withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+
+        for (int level = 1; level <= levelCount; level++) {
+            int cellCount = partition.cellCount(level);
+            int[] first = new int[cellCount + 1];
+            for (int cell = 0; cell < cellCount; cell++) {
+                int size = cliqueSize(level, cell);
+                first[cell + 1] = first[cell] + size * size;
+            }
+            cliqueFirst[level] = first;
+            costs[level] = new float[first[cellCount]];
+
+            int cellLevel = level;
+            IntStream.range(0, cellCount).parallel()
+                    .forEach(cell -> customizeCell(workspaces.get(), cellLevel, cell));
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût d'une arête, qui est infini si elle ne peut être
+     * empruntée
+     * 
+     * @param nodeId identité du noeud de départ de l'arête
+     * @param edgeId identité de l'arête
+     * 
+     * @return le coût de l'arête
+     */
+    float edgeCost(int nodeId, int edgeId) {
+        if (costTable != null)
+            return costTable.edgeCost(edgeId);
+        return (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+    }
+
+    /**
+     * Méthode permettant de développer un noeud d'une recherche sur la vue d'ensemble d'un niveau
+     * 
+     * Au niveau 0, toutes les arêtes sortantes du noeud sont examinées. À un niveau supérieur, le
+     * noeud, qui doit être un noeud frontière de ce niveau, est relié à chaque noeud frontière de
+     * sa cellule par un arc de la clique, et seules ses arêtes sortant de sa cellule sont
+     * examinées. La recherche peut de plus être limitée à une cellule d'un niveau supérieur.
+     * 
+     * @param workspace espace de travail de la recherche
+     * @param nodeId    identité du noeud à développer
+     * @param arcLevel  niveau des arcs à examiner
+     * @param cellLevel niveau de la cellule à laquelle la recherche est limitée, ou 0 si elle ne
+     *                  l'est pas
+     * @param cellId    identité de la cellule à laquelle la recherche est limitée
+     */
+    void relaxArcs(SearchWorkspace workspace, int nodeId, int arcLevel, int cellLevel,
+            int cellId) {
+        float distance = workspace.distance(nodeId);
+
+        int nodeCell = -1;
+        if (arcLevel > 0) {
+            nodeCell = partition.cellId(arcLevel, nodeId);
+            int first = partition.boundaryFirst(arcLevel, nodeCell);
+            int size = cliqueSize(arcLevel, nodeCell);
+            int row = cliqueFirst[arcLevel][nodeCell]
+                    + (partition.boundaryIndex(arcLevel, nodeId) - first) * size;
+            for (int j = 0; j < size; j++) {
+                float cost = costs[arcLevel][row + j];
+                if (cost != Float.POSITIVE_INFINITY)
+                    relax(workspace, nodeId, partition.boundaryNode(arcLevel, first + j),
+                            distance + cost);
+            }
+        }
+
+        for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+            int edgeId = graph.nodeOutEdgeId(nodeId, i);
+            int targetId = graph.edgeTargetNodeId(edgeId);
+            if (arcLevel > 0 && partition.cellId(arcLevel, targetId) == nodeCell)
+                continue;
+            if (cellLevel > 0 && partition.cellId(cellLevel, targetId) != cellId)
+                continue;
+            float cost = edgeCost(nodeId, edgeId);
+            if (cost != Float.POSITIVE_INFINITY)
+                relax(workspace, nodeId, targetId, distance + cost);
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds frontières d'une cellule
+     * 
+     * @param level niveau de la cellule
+     * @param cell  identité de la cellule
+     * 
+     * @return le nombre de noeuds frontières de la cellule
+     */
+    private int cliqueSize(int level, int cell) {
+        return partition.boundaryFirst(level, cell + 1) - partition.boundaryFirst(level, cell);
+    }
+
+    /**
+     * Méthode permettant de calculer la clique d'une cellule, au moyen d'une recherche de Dijkstra
+     * depuis chacun de ses noeuds frontières, qui s'arrête dès que tous ont été visités
+     * 
+     * @param workspace espace de travail des recherches
+     * @param level     niveau de la cellule
+     * @param cell      identité de la cellule
+     */
+    private void customizeCell(SearchWorkspace workspace, int level, int cell) {
+        int first = partition.boundaryFirst(level, cell);
+        int size = cliqueSize(level, cell);
+        int row = cliqueFirst[level][cell];
+
+        for (int i = 0; i < size; i++) {
+            workspace.reset();
+            int startId = partition.boundaryNode(level, first + i);
+            workspace.setDistance(startId, 0);
+            workspace.heap().push(startId, 0);
+
+            int remaining = size;
+            while (remaining > 0 && !workspace.heap().isEmpty()) {
+                int currentId = workspace.settleNext();
+                if (partition.boundaryIndex(level, currentId) != -1)
+                    remaining--;
+                relaxArcs(workspace, currentId, level - 1, level, cell);
+            }
+
+            for (int j = 0; j < size; j++) {
+                int targetId = partition.boundaryNode(level, first + j);
+                costs[level][row + j] = workspace.distance(targetId);
+            }
+            row += size;
+        }
+    }
+
+    /**
+     * Méthode permettant de mettre à jour un noeud atteint par un arc si le chemin passant par cet
+     * arc est moins coûteux
+     * 
+     * @param workspace espace de travail de la recherche
+     * @param sourceId  identité du noeud de départ de l'arc
+     * @param targetId  identité du noeud d'arrivée de l'arc
+     * @param distance  coût du chemin menant au noeud d'arrivée par l'arc
+     */
+    private static void relax(SearchWorkspace workspace, int sourceId, int targetId,
+            float distance) {
+        if (distance < workspace.distance(targetId)) {
+            workspace.update(targetId, distance, sourceId);
+            workspace.heap().push(targetId, distance);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant le graphe réduit d'un graphe JaVelo pour une fonction de coût donnée, dans
+ * lequel les chaînes de noeuds de degré 2 sont remplacées par des arcs
+ * 
+ * Un noeud de chaîne est un noeud n'ayant que deux voisins, sans boucle ni arêtes parallèles,
+ * qu'un itinéraire ne peut que traverser : il possède une arête entrante depuis un voisin si et
+ * seulement s'il possède une arête sortante vers l'autre. Les autres noeuds sont des jonctions,
+ * seules conservées dans le graphe réduit, un noeud de chaque cycle formé uniquement de noeuds de
+ * chaîne étant lui aussi considéré comme une jonction. Chaque arc relie deux jonctions en suivant
+ * une suite maximale d'arêtes dont les noeuds intermédiaires sont des noeuds de chaîne ; il
+ * possède le coût, la longueur et le dénivelé positif cumulés de ces arêtes, qu'il permet de
+ * retrouver. Chaque noeud de chaîne appartient à un arc par sens de parcours de sa chaîne, les
+ * deux arcs étant jumeaux.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class ChainGraph {
+    private static final int NO_ARC = -1;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final int nodeCount;
+    private final int junctionCount;
+    private final int[] firstArcs;
+    private final int[] arcSources;
+    private final int[] arcTargets;
+    private final float[] arcCosts;
+    private final float[] arcLengths;
+    private final float[] arcElevationGains;
+    private final int[] arcTwins;
+    private final int[] arcFirstEdges;
+    private final int[] edgeIds;
+    private final float[] edgeCosts;
+    private final int[] nodeEdgeIndices;
+
+    /**
+     * Construit un graphe réduit à partir de ses tableaux, décrits dans build
+     */
+    private ChainGraph(int nodeCount, int junctionCount, int[] firstArcs, int[] arcSources,
+            int[] arcTargets, float[] arcCosts, float[] arcLengths, float[] arcElevationGains,
+            int[] arcTwins, int[] arcFirstEdges, int[] edgeIds, float[] edgeCosts,
+            int[] nodeEdgeIndices) {
+        this.nodeCount = nodeCount;
+        this.junctionCount = junctionCount;
+        this.firstArcs = firstArcs;
+        this.arcSources = arcSources;
+        this.arcTargets = arcTargets;
+        this.arcCosts = arcCosts;
+        this.arcLengths = arcLengths;
+        this.arcElevationGains = arcElevationGains;
+        this.arcTwins = arcTwins;
+        this.arcFirstEdges = arcFirstEdges;
+        this.edgeIds = edgeIds;
+        this.edgeCosts = edgeCosts;
+        this.nodeEdgeIndices = nodeEdgeIndices;
+    }
+
+    /**
+     * Méthode permettant de construire le graphe réduit d'un graphe
+     * 
+     * Les arcs de chaque jonction sont obtenus en suivant chacune de ses arêtes sortantes jusqu'à
+     * la jonction suivante, en un temps proportionnel au nombre d'arêtes du graphe. Les arcs
+     * d'une jonction sont rangés dans l'ordre de ses arêtes sortantes, et les arêtes de chaque
+     * arc à la suite les unes des autres, accompagnées de leur coût.
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût
+     * 
+     * @return le graphe réduit
+     */
+    public static ChainGraph build(Graph graph, CostFunction costFunction) {
+        int nodeCount = graph.nodeCount();
+        boolean[] isChainNode = new boolean[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            isChainNode[nodeId] = isChainNode(graph, nodeId);
+        breakChainCycles(graph, isChainNode);
+
+        int junctionCount = 0;
+        int arcCount = 0;
+        int edgeCount = 0;
+        int[] firstArcs = new int[nodeCount + 1];
+        int[] arcTargets = new int[INITIAL_CAPACITY];
+        int[] arcFirstEdges = new int[INITIAL_CAPACITY + 1];
+        int[] edgeIds = new int[INITIAL_CAPACITY];
+        int[] nodeEdgeIndices = new int[nodeCount];
+        Arrays.fill(nodeEdgeIndices, NO_ARC);
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            firstArcs[nodeId] = arcCount;
+            if (isChainNode[nodeId])
+                continue;
+
+            junctionCount++;
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int previousId = nodeId;
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                int currentId = graph.edgeTargetNodeId(edgeId);
+                while (true) {
+                    if (edgeCount == edgeIds.length)
+                        edgeIds = Arrays.copyOf(edgeIds, 2 * edgeCount);
+                    edgeIds[edgeCount++] = edgeId;
+                    if (!isChainNode[currentId])
+                        break;
+                    if (nodeEdgeIndices[currentId] == NO_ARC)
+                        nodeEdgeIndices[currentId] = edgeCount - 1;
+
+                    edgeId = outEdgeAvoiding(graph, currentId, previousId);
+                    previousId = currentId;
+                    currentId = graph.edgeTargetNodeId(edgeId);
+                }
+
+                if (arcCount + 1 == arcFirstEdges.length) {
+                    arcTargets = Arrays.copyOf(arcTargets, 2 * arcCount);
+                    arcFirstEdges = Arrays.copyOf(arcFirstEdges, 2 * arcCount + 1);
+                }
+                arcTargets[arcCount] = currentId;
+                arcFirstEdges[++arcCount] = edgeCount;
+            }
+        }
+        firstArcs[nodeCount] = arcCount;
+
+        int[] arcSources = new int[arcCount];
+        float[] arcCosts = new float[arcCount];
+        float[] arcLengths = new float[arcCount];
+        float[] arcElevationGains = new float[arcCount];
+        float[] edgeCosts = new float[edgeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int arcId = firstArcs[nodeId]; arcId < firstArcs[nodeId + 1]; arcId++) {
+                arcSources[arcId] = nodeId;
+                int fromNodeId = nodeId;
+                float cost = 0;
+                double length = 0;
+                double elevationGain = 0;
+                for (int i = arcFirstEdges[arcId]; i < arcFirstEdges[arcId + 1]; i++) {
+                    int edgeId = edgeIds[i];
+                    edgeCosts[i] = (float) (graph.edgeLength(edgeId)
+                            * costFunction.costFactor(fromNodeId, edgeId));
+                    cost += edgeCosts[i];
+                    length += graph.edgeLength(edgeId);
+                    elevationGain += graph.edgeElevationGain(edgeId);
+                    fromNodeId = graph.edgeTargetNodeId(edgeId);
+                }
+                arcCosts[arcId] = cost;
+                arcLengths[arcId] = (float) length;
+                arcElevationGains[arcId] = (float) elevationGain;
+            }
+        }
+
+        // le premier noeud de chaîne d'un arc désigne l'un des deux arcs qui le contiennent
+        int[] arcTwins = new int[arcCount];
+        Arrays.fill(arcTwins, NO_ARC);
+        int[] trimmedArcFirstEdges = Arrays.copyOf(arcFirstEdges, arcCount + 1);
+        for (int arcId = 0; arcId < arcCount; arcId++) {
+            int firstEdgeIndex = trimmedArcFirstEdges[arcId];
+            if (trimmedArcFirstEdges[arcId + 1] - firstEdgeIndex == 1)
+                continue;
+            int chainNodeId = graph.edgeTargetNodeId(edgeIds[firstEdgeIndex]);
+            int otherArcId = arcOfEdgeIndex(trimmedArcFirstEdges,
+                    nodeEdgeIndices[chainNodeId]);
+            if (otherArcId != arcId) {
+                arcTwins[arcId] = otherArcId;
+                arcTwins[otherArcId] = arcId;
+            }
+        }
+
+        return new ChainGraph(nodeCount, junctionCount, firstArcs, arcSources,
+                Arrays.copyOf(arcTargets, arcCount), arcCosts, arcLengths, arcElevationGains,
+                arcTwins, trimmedArcFirstEdges, Arrays.copyOf(edgeIds, edgeCount), edgeCosts,
+                nodeEdgeIndices);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds du graphe d'origine
+     * 
+     * @return le nombre de noeuds
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de jonctions, c.-à-d. de noeuds du graphe réduit
+     * 
+     * @return le nombre de jonctions
+     */
+    public int junctionCount() {
+        return junctionCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'arcs du graphe réduit
+     * 
+     * @return le nombre d'arcs
+     */
+    public int arcCount() {
+        return arcSources.length;
+    }
+
+    /**
+     * Méthode permettant de savoir si un noeud est une jonction
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return TRUE si le noeud appartient au graphe réduit, FALSE s'il s'agit d'un noeud de chaîne
+     */
+    public boolean isJunction(int nodeId) {
+        return nodeEdgeIndices[nodeId] == NO_ARC;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'arcs sortant d'une jonction
+     * 
+     * @param nodeId identité de la jonction
+     * 
+     * @return le nombre d'arcs sortants, nul pour un noeud de chaîne
+     */
+    int outDegree(int nodeId) {
+        return firstArcs[nodeId + 1] - firstArcs[nodeId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité du arcIndex-ième arc sortant d'une jonction
+     * 
+     * @param nodeId   identité de la jonction
+     * @param arcIndex index de l'arc
+     * 
+     * @return l'identité de l'arc
+     */
+    int arcId(int nodeId, int arcIndex) {
+        return firstArcs[nodeId] + arcIndex;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la jonction de départ d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return l'identité de la jonction de départ
+     */
+    int arcSource(int arcId) {
+        return arcSources[arcId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir la jonction d'arrivée d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return l'identité de la jonction d'arrivée
+     */
+    int arcTarget(int arcId) {
+        return arcTargets[arcId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return la somme des coûts de ses arêtes selon la fonction de coût
+     */
+    float arcCost(int arcId) {
+        return arcCosts[arcId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir la longueur d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return la somme des longueurs de ses arêtes, en mètres
+     */
+    float arcLength(int arcId) {
+        return arcLengths[arcId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir le dénivelé positif d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return la somme des dénivelés positifs de ses arêtes, en mètres
+     */
+    float arcElevationGain(int arcId) {
+        return arcElevationGains[arcId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'arc jumeau d'un arc, qui parcourt sa chaîne en sens inverse
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return l'identité de l'arc jumeau, ou -1 si l'arc n'a pas de noeud de chaîne ou si sa
+     *         chaîne ne peut pas être parcourue en sens inverse
+     */
+    int twinArcId(int arcId) {
+        return arcTwins[arcId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'arêtes d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return le nombre d'arêtes de l'arc
+     */
+    int arcEdgeCount(int arcId) {
+        return arcFirstEdges[arcId + 1] - arcFirstEdges[arcId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité de la edgeIndex-ième arête d'un arc
+     * 
+     * @param arcId     identité de l'arc
+     * @param edgeIndex index de l'arête dans l'arc
+     * 
+     * @return l'identité de l'arête dans le graphe d'origine
+     */
+    int arcEdgeId(int arcId, int edgeIndex) {
+        return edgeIds[arcFirstEdges[arcId] + edgeIndex];
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût de la edgeIndex-ième arête d'un arc
+     * 
+     * @param arcId     identité de l'arc
+     * @param edgeIndex index de l'arête dans l'arc
+     * 
+     * @return le coût de l'arête selon la fonction de coût
+     */
+    float arcEdgeCost(int arcId, int edgeIndex) {
+        return edgeCosts[arcFirstEdges[arcId] + edgeIndex];
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'un des arcs contenant un noeud de chaîne, l'autre étant son
+     * jumeau
+     * 
+     * @param nodeId identité du noeud de chaîne
+     * 
+     * @return l'identité de l'arc
+     */
+    int chainArcId(int nodeId) {
+        return arcOfEdgeIndex(arcFirstEdges, nodeEdgeIndices[nodeId]);
+    }
+
+    /**
+     * Méthode permettant d'obtenir la position d'un noeud de chaîne dans un arc le contenant
+     * 
+     * @param nodeId identité du noeud de chaîne
+     * @param arcId  identité de l'arc, chainArcId(nodeId) ou son jumeau
+     * 
+     * @return le nombre d'arêtes de l'arc précédant le noeud
+     */
+    int chainPosition(int nodeId, int arcId) {
+        int position = nodeEdgeIndices[nodeId] - arcFirstEdges[chainArcId(nodeId)] + 1;
+        return arcId == chainArcId(nodeId) ? position : arcEdgeCount(arcId) - position;
+    }
+
+    /**
+     * Méthode permettant de trouver, par dichotomie, l'arc auquel appartient une arête de la suite
+     * des arêtes des arcs
+     * 
+     * @param arcFirstEdges index de la première arête de chaque arc, suivi du nombre d'arêtes
+     * @param edgeIndex     index de l'arête dans la suite des arêtes des arcs
+     * 
+     * @return l'identité de l'arc
+     */
+    private static int arcOfEdgeIndex(int[] arcFirstEdges, int edgeIndex) {
+        int low = 0;
+        int high = arcFirstEdges.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (arcFirstEdges[middle] <= edgeIndex)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Méthode permettant de savoir si un noeud est un noeud de chaîne
+     * 
+     * @param graph  graphe JaVelo
+     * @param nodeId identité du noeud
+     * 
+     * @return TRUE si le noeud a exactement deux voisins, distincts de lui, au plus une arête
+     *         vers et depuis chacun d'eux, et une arête entrante depuis un voisin si et seulement
+     *         s'il a une arête sortante vers l'autre, sinon FALSE
+     */
+    private static boolean isChainNode(Graph graph, int nodeId) {
+        int outDegree = graph.nodeOutDegree(nodeId);
+        int inDegree = graph.nodeInDegree(nodeId);
+        if (outDegree == 0 || outDegree > 2 || inDegree != outDegree)
+            return false;
+
+        int firstNeighbour = graph.nodeInEdgeSourceId(nodeId, 0);
+        int secondNeighbour = inDegree == 2 ? graph.nodeInEdgeSourceId(nodeId, 1)
+                : graph.edgeTargetNodeId(graph.nodeOutEdgeId(nodeId, 0));
+        if (firstNeighbour == secondNeighbour || firstNeighbour == nodeId
+                || secondNeighbour == nodeId)
+            return false;
+
+        // chaque arête sortante doit mener au voisin opposé à celui d'une arête entrante
+        for (int i = 0; i < outDegree; i++) {
+            int targetId = graph.edgeTargetNodeId(graph.nodeOutEdgeId(nodeId, i));
+            if (targetId != firstNeighbour && targetId != secondNeighbour)
+                return false;
+            int oppositeId = targetId == firstNeighbour ? secondNeighbour : firstNeighbour;
+            boolean fromOpposite = false;
+            for (int j = 0; j < inDegree; j++)
+                fromOpposite |= graph.nodeInEdgeSourceId(nodeId, j) == oppositeId;
+            if (!fromOpposite)
+                return false;
+        }
+        return outDegree == 1
+                || graph.edgeTargetNodeId(graph.nodeOutEdgeId(nodeId, 0)) != graph
+                        .edgeTargetNodeId(graph.nodeOutEdgeId(nodeId, 1));
+    }
+
+    /**
+     * Méthode permettant de transformer en jonction un noeud de chaque cycle formé uniquement de
+     * noeuds de chaîne, chaque chaîne étant parcourue une seule fois
+     * 
+     * @param graph       graphe JaVelo
+     * @param isChainNode TRUE pour les noeuds de chaîne, modifié en place
+     */
+    private static void breakChainCycles(Graph graph, boolean[] isChainNode) {
+        boolean[] visited = new boolean[isChainNode.length];
+        for (int nodeId = 0; nodeId < isChainNode.length; nodeId++) {
+            if (!isChainNode[nodeId] || visited[nodeId])
+                continue;
+
+            visited[nodeId] = true;
+            boolean cycle = false;
+            for (int side = 0; side < 2 && !cycle; side++) {
+                int previousId = nodeId;
+                int currentId = side == 0 ? neighbourAvoiding(graph, nodeId, -1)
+                        : neighbourAvoiding(graph, nodeId, neighbourAvoiding(graph, nodeId, -1));
+                while (isChainNode[currentId] && currentId != nodeId) {
+                    visited[currentId] = true;
+                    int nextId = neighbourAvoiding(graph, currentId, previousId);
+                    previousId = currentId;
+                    currentId = nextId;
+                }
+                cycle = currentId == nodeId;
+            }
+            if (cycle)
+                isChainNode[nodeId] = false;
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le voisin d'un noeud de chaîne autre qu'un noeud donné
+     * 
+     * @param graph    graphe JaVelo
+     * @param nodeId   identité du noeud de chaîne
+     * @param avoidId  identité du voisin à éviter, ou -1
+     * 
+     * @return l'identité du premier voisin différent du noeud à éviter
+     */
+    private static int neighbourAvoiding(Graph graph, int nodeId, int avoidId) {
+        for (int i = 0; i < graph.nodeInDegree(nodeId); i++) {
+            int sourceId = graph.nodeInEdgeSourceId(nodeId, i);
+            if (sourceId != avoidId)
+                return sourceId;
+        }
+        for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+            int targetId = graph.edgeTargetNodeId(graph.nodeOutEdgeId(nodeId, i));
+            if (targetId != avoidId)
+                return targetId;
+        }
+        return avoidId;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'arête sortante d'un noeud de chaîne menant au voisin opposé
+     * à celui dont on vient
+     * 
+     * @param graph      graphe JaVelo
+     * @param nodeId     identité du noeud de chaîne
+     * @param previousId identité du voisin dont on vient
+     * 
+     * @return l'identité de l'arête sortante
+     */
+    private static int outEdgeAvoiding(Graph graph, int nodeId, int previousId) {
+        int edgeId = graph.nodeOutEdgeId(nodeId, 0);
+        if (graph.edgeTargetNodeId(edgeId) == previousId)
+            edgeId = graph.nodeOutEdgeId(nodeId, 1);
+        return edgeId;
+    }
+}
@@ -0,0 +1,280 @@
+package ch.epfl.javelo.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant un planificateur d'itinéraire effectuant ses recherches sur le graphe réduit
+ * obtenu en remplaçant les chaînes de noeuds de degré 2 par des arcs
+ * 
+ * Seules les jonctions sont placées dans la file de priorité de la recherche A*. Un noeud de
+ * départ ou d'arrivée situé sur une chaîne est relié aux extrémités des arcs qui le contiennent
+ * par le coût de la partie de l'arc qui l'en sépare. Les arcs de l'itinéraire trouvé sont ensuite
+ * dépliés en arêtes du graphe, si bien que l'itinéraire est le même que celui d'une recherche sur
+ * le graphe complet.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class ChainRouteComputer {
+    private static final int NO_ARC = -1;
+    private static final int NO_PREDECESSOR = -1;
+    private static final int INITIAL_EDGE_CAPACITY = 64;
+
+    private final Graph graph;
+    private final ChainGraph chainGraph;
+    private final Heuristic heuristic;
+    private final ThreadLocal<SearchWorkspace> workspaces;
+
+    /**
+     * Construit un planificateur d'itinéraire utilisant le graphe réduit et, comme heuristique, la
+     * distance à vol d'oiseau
+     * 
+     * @param graph      graphe JaVelo
+     * @param chainGraph graphe réduit du graphe, construit pour la fonction de coût souhaitée
+     * 
+     * @throws IllegalArgumentException si le graphe réduit ne possède pas le même nombre de noeuds
+     *                                  que le graphe
+     */
+    public ChainRouteComputer(Graph graph, ChainGraph chainGraph) {
+        this(graph, chainGraph, new EuclideanHeuristic(graph));
+    }
+
+    /**
+     * Construit un planificateur d'itinéraire utilisant le graphe réduit et l'heuristique donnée
+     * 
+     * @param graph      graphe JaVelo
+     * @param chainGraph graphe réduit du graphe, construit pour la fonction de coût souhaitée
+     * @param heuristic  heuristique de la recherche, qui doit être admissible et cohérente pour la
+     *                   fonction de coût
+     * 
+     * @throws IllegalArgumentException si le graphe réduit ne possède pas le même nombre de noeuds
+     *                                  que le graphe
+     */
+    public ChainRouteComputer(Graph graph, ChainGraph chainGraph, Heuristic heuristic) {
+        Preconditions.checkArgument(graph.nodeCount() == chainGraph.nodeCount());
+        this.graph = graph;
+        this.chainGraph = chainGraph;
+        this.heuristic = heuristic;
+        this.workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal
+     * 
+     * Le prédécesseur d'une jonction est l'arc par lequel elle a été atteinte, ou -2 - a si elle
+     * l'a été par la fin de l'arc a contenant le noeud de départ.
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        Preconditions.checkArgument(startNodeId != endNodeId);
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+        NodeQueue heap = workspace.heap();
+
+        int[] startArcs = chainArcs(startNodeId);
+        if (chainGraph.isJunction(startNodeId)) {
+            workspace.update(startNodeId, 0, NO_PREDECESSOR);
+            heap.push(startNodeId, heuristic.lowerBound(startNodeId, endNodeId));
+        } else {
+            for (int arcId : startArcs) {
+                if (arcId == NO_ARC)
+                    continue;
+                int targetId = chainGraph.arcTarget(arcId);
+                float cost = segmentCost(arcId, chainGraph.chainPosition(startNodeId, arcId),
+                        chainGraph.arcEdgeCount(arcId));
+                if (cost < workspace.distance(targetId)) {
+                    workspace.update(targetId, cost, -2 - arcId);
+                    heap.push(targetId, cost + heuristic.lowerBound(targetId, endNodeId));
+                }
+            }
+        }
+
+        // arcs par lesquels le noeud d'arrivée, s'il est sur une chaîne, peut être atteint
+        int[] endArcs = chainArcs(endNodeId);
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestArcId = NO_ARC;
+        boolean direct = false;
+        for (int arcId : startArcs) {
+            if (arcId == NO_ARC || (arcId != endArcs[0] && arcId != endArcs[1]))
+                continue;
+            int startPosition = chainGraph.chainPosition(startNodeId, arcId);
+            int endPosition = chainGraph.chainPosition(endNodeId, arcId);
+            float cost = segmentCost(arcId, startPosition, endPosition);
+            if (startPosition < endPosition && cost < bestCost) {
+                bestCost = cost;
+                bestArcId = arcId;
+                direct = true;
+            }
+        }
+
+        boolean endReached = false;
+        while (!heap.isEmpty() && heap.minKey() < bestCost) {
+            int currentId = workspace.settleNext();
+            float currentCost = workspace.distance(currentId);
+            if (currentId == endNodeId) {
+                bestCost = currentCost;
+                endReached = true;
+                break;
+            }
+
+            for (int arcId : endArcs) {
+                if (arcId == NO_ARC || chainGraph.arcSource(arcId) != currentId)
+                    continue;
+                float cost = currentCost
+                        + segmentCost(arcId, 0, chainGraph.chainPosition(endNodeId, arcId));
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestArcId = arcId;
+                    direct = false;
+                }
+            }
+
+            for (int i = 0; i < chainGraph.outDegree(currentId); i++) {
+                int arcId = chainGraph.arcId(currentId, i);
+                int targetId = chainGraph.arcTarget(arcId);
+                float cost = currentCost + chainGraph.arcCost(arcId);
+                if (cost < workspace.distance(targetId)) {
+                    workspace.update(targetId, cost, arcId);
+                    heap.push(targetId, cost + heuristic.lowerBound(targetId, endNodeId));
+                }
+            }
+        }
+
+        if (!endReached && bestArcId == NO_ARC)
+            return null;
+        return new SingleRoute(
+                unpack(workspace, startNodeId, endNodeId, endReached, bestArcId, direct));
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de jonctions visitées lors de la dernière recherche
+     * effectuée par le fil d'exécution courant
+     * 
+     * @return le nombre de jonctions visitées lors de la dernière recherche
+     */
+    public int settledNodeCount() {
+        return workspaces.get().settledCount();
+    }
+
+    /**
+     * Méthode permettant d'obtenir les arcs contenant un noeud de chaîne
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return les deux arcs contenant le noeud, -1 remplaçant un arc inexistant, ou deux fois -1
+     *         si le noeud est une jonction
+     */
+    private int[] chainArcs(int nodeId) {
+        if (chainGraph.isJunction(nodeId))
+            return new int[] { NO_ARC, NO_ARC };
+        int arcId = chainGraph.chainArcId(nodeId);
+        return new int[] { arcId, chainGraph.twinArcId(arcId) };
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût d'une partie d'un arc
+     * 
+     * @param arcId     identité de l'arc
+     * @param fromIndex nombre d'arêtes de l'arc précédant la partie
+     * @param toIndex   nombre d'arêtes de l'arc précédant la fin de la partie
+     * 
+     * @return le coût de la partie de l'arc
+     */
+    private float segmentCost(int arcId, int fromIndex, int toIndex) {
+        float cost = 0;
+        for (int i = fromIndex; i < toIndex; i++)
+            cost += chainGraph.arcEdgeCost(arcId, i);
+        return cost;
+    }
+
+    /**
+     * Méthode permettant de déplier les arcs de l'itinéraire trouvé en arêtes du graphe
+     * 
+     * @param workspace   espace de travail de la recherche
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * @param endReached  TRUE si le noeud d'arrivée est une jonction visitée par la recherche
+     * @param endArcId    arc menant au noeud d'arrivée s'il est sur une chaîne
+     * @param direct      TRUE si l'itinéraire ne suit que l'arc menant au noeud d'arrivée depuis
+     *                    le noeud de départ
+     * 
+     * @return les arêtes de l'itinéraire, dans l'ordre
+     */
+    private List<Edge> unpack(SearchWorkspace workspace, int startNodeId, int endNodeId,
+            boolean endReached, int endArcId, boolean direct) {
+        // pile des arêtes, empilées de l'arrivée vers le départ
+        int[] edgeIds = new int[INITIAL_EDGE_CAPACITY];
+        int edgeCount = 0;
+        if (direct) {
+            int fromIndex = chainGraph.chainPosition(startNodeId, endArcId);
+            int toIndex = chainGraph.chainPosition(endNodeId, endArcId);
+            edgeIds = pushEdges(edgeIds, edgeCount, endArcId, fromIndex, toIndex);
+            edgeCount += toIndex - fromIndex;
+        } else {
+            int nodeId = endNodeId;
+            if (!endReached) {
+                int toIndex = chainGraph.chainPosition(endNodeId, endArcId);
+                edgeIds = pushEdges(edgeIds, edgeCount, endArcId, 0, toIndex);
+                edgeCount += toIndex;
+                nodeId = chainGraph.arcSource(endArcId);
+            }
+            int predecessor = workspace.predecessor(nodeId);
+            while (predecessor >= 0) {
+                int toIndex = chainGraph.arcEdgeCount(predecessor);
+                edgeIds = pushEdges(edgeIds, edgeCount, predecessor, 0, toIndex);
+                edgeCount += toIndex;
+                predecessor = workspace.predecessor(chainGraph.arcSource(predecessor));
+            }
+            if (predecessor != NO_PREDECESSOR) {
+                int arcId = -2 - predecessor;
+                int fromIndex = chainGraph.chainPosition(startNodeId, arcId);
+                int toIndex = chainGraph.arcEdgeCount(arcId);
+                edgeIds = pushEdges(edgeIds, edgeCount, arcId, fromIndex, toIndex);
+                edgeCount += toIndex - fromIndex;
+            }
+        }
+
+        List<Edge> edges = new ArrayList<>(edgeCount);
+        int fromNodeId = startNodeId;
+        for (int i = edgeCount - 1; i >= 0; i--) {
+            int edgeId = edgeIds[i];
+            int toNodeId = graph.edgeTargetNodeId(edgeId);
+            edges.add(Edge.of(graph, edgeId, fromNodeId, toNodeId));
+            fromNodeId = toNodeId;
+        }
+        return edges;
+    }
+
+    /**
+     * Méthode permettant d'empiler une partie des arêtes d'un arc, de la dernière à la première,
+     * sur la pile des arêtes suivantes de l'itinéraire
+     * 
+     * @param edgeIds   pile des arêtes suivantes de l'itinéraire
+     * @param edgeCount nombre d'arêtes de la pile
+     * @param arcId     identité de l'arc
+     * @param fromIndex index de la première arête de la partie
+     * @param toIndex   index suivant celui de la dernière arête de la partie
+     * 
+     * @return la pile, agrandie si elle ne pouvait pas contenir la partie
+     */
+    private int[] pushEdges(int[] edgeIds, int edgeCount, int arcId, int fromIndex,
+            int toIndex) {
+        int newCount = edgeCount + toIndex - fromIndex;
+        if (newCount > edgeIds.length)
+            edgeIds = Arrays.copyOf(edgeIds, Math.max(2 * edgeIds.length, newCount));
+        for (int i = toIndex - 1; i >= fromIndex; i--)
+            edgeIds[edgeCount++] = chainGraph.arcEdgeId(arcId, i);
+        return edgeIds;
+    }
+}
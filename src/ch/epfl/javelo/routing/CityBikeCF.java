@@ -11,6 +11,10 @@ import static ch.epfl.javelo.data.Attribute.*;
 // https://github.com/abrensch/brouter/blob/15e84c81ea23408abde8605bd57a87a777003ce2/misc/profiles2/trekking.brf
 
 public record CityBikeCF(Graph graph) implements CostFunction {
+    // Version of the costs computed by this function, to be incremented whenever they change,
+    // so that the data precomputed with a previous version is recomputed
+    public static final int VERSION = 1;
+
     // Any kind of marked cycle route (international, national, regional or local)
     private static final AttributeSet CYCLE_ROUTE =
             AttributeSet.of(ICN_YES, NCN_YES, RCN_YES, LCN_YES);
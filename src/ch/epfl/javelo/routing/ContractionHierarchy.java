@@ -0,0 +1,384 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant une hiérarchie de contraction d'un graphe JaVelo pour une fonction de coût
+ * donnée
+ * 
+ * Une hiérarchie est formée d'un rang par noeud (son ordre de contraction) et d'arcs, qui sont soit
+ * des arêtes du graphe, soit des raccourcis remplaçant deux arcs passant par un noeud contracté.
+ * Les arcs sont indexés deux fois : parmi les arcs montants de leur noeud de départ, ou parmi les
+ * arcs descendants de leur noeud d'arrivée, selon le rang de leurs extrémités.
+ * 
+ * Les raccourcis et leur coût dépendant du graphe et de la fonction de coût, le fichier d'une
+ * hiérarchie commence par une empreinte de ceux-ci, afin qu'une hiérarchie calculée à partir
+ * d'autres données ne soit pas utilisée.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class ContractionHierarchy {
+    private static final int OFFSET_SOURCE = 0;
+    private static final int OFFSET_TARGET = OFFSET_SOURCE + 1;
+    private static final int OFFSET_COST = OFFSET_TARGET + 1;
+    private static final int OFFSET_FIRST = OFFSET_COST + 1;
+    private static final int OFFSET_SECOND = OFFSET_FIRST + 1;
+    private static final int OFFSET_LENGTH = OFFSET_SECOND + 1;
+    private static final int ARC_INTS = OFFSET_LENGTH + 1;
+    private static final int FINGERPRINT_BYTES = Long.BYTES;
+    private static final int HEADER_INTS = 2;
+    private static final int NO_SECOND_ARC = -1;
+    private static final long CHECKSUM_FACTOR = 0x9E3779B97F4A7C15L;
+
+    private final int nodeCount;
+    private final int arcCount;
+    private final IntBuffer ranks;
+    private final IntBuffer arcs;
+    private final IntBuffer upFirst;
+    private final IntBuffer upArcs;
+    private final IntBuffer downFirst;
+    private final IntBuffer downArcs;
+
+    /**
+     * Construit une hiérarchie de contraction à partir d'une mémoire tampon au format décrit par
+     * writeTo
+     * 
+     * @param buffer mémoire tampon contenant la hiérarchie
+     */
+    private ContractionHierarchy(IntBuffer buffer) {
+        this.nodeCount = buffer.get(0);
+        this.arcCount = buffer.get(1);
+
+        int start = HEADER_INTS;
+        this.ranks = buffer.slice(start, nodeCount);
+        start += nodeCount;
+        this.arcs = buffer.slice(start, arcCount * ARC_INTS);
+        start += arcCount * ARC_INTS;
+        this.upFirst = buffer.slice(start, nodeCount + 1);
+        start += nodeCount + 1;
+        this.upArcs = buffer.slice(start, upFirst.get(nodeCount));
+        start += upFirst.get(nodeCount);
+        this.downFirst = buffer.slice(start, nodeCount + 1);
+        start += nodeCount + 1;
+        this.downArcs = buffer.slice(start, downFirst.get(nodeCount));
+    }
+
+    /**
+     * Méthode permettant de construire la hiérarchie de contraction d'un graphe
+     * 
+     * Les arêtes de coût infini selon la fonction de coût sont ignorées. Ce pré-calcul est coûteux
+     * et est destiné à être effectué hors ligne, son résultat étant ensuite enregistré au moyen de
+     * writeTo.
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût
+     * 
+     * @return la hiérarchie de contraction du graphe
+     */
+    public static ContractionHierarchy build(Graph graph, CostFunction costFunction) {
+        return new HierarchyContractor(graph, costFunction).contract();
+    }
+
+    /**
+     * Méthode permettant de charger une hiérarchie de contraction depuis un fichier
+     * 
+     * @param path        chemin d'accès du fichier, typiquement placé à côté des fichiers du
+     *                    graphe
+     * @param graph       graphe JaVelo
+     * @param fingerprint empreinte attendue du graphe et de la fonction de coût avec lesquels la
+     *                    hiérarchie a été calculée
+     * 
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si l'empreinte du fichier n'est pas celle attendue, ou si
+     *                                  la hiérarchie ne possède pas le même nombre de noeuds que
+     *                                  le graphe
+     * 
+     * @return la hiérarchie de contraction contenue dans le fichier
+     */
+    public static ContractionHierarchy loadFrom(Path path, Graph graph, long fingerprint)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            Preconditions.checkArgument(
+                    channel.size() >= FINGERPRINT_BYTES + HEADER_INTS * Integer.BYTES);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Preconditions.checkArgument(buffer.getLong(0) == fingerprint
+                    && buffer.getInt(FINGERPRINT_BYTES) == graph.nodeCount());
+            return new ContractionHierarchy(buffer.slice(FINGERPRINT_BYTES,
+                    buffer.capacity() - FINGERPRINT_BYTES).asIntBuffer());
+        }
+    }
+
+    /**
+     * Méthode permettant d'enregistrer la hiérarchie de contraction dans un fichier, qui contient
+     * l'empreinte donnée suivie de la hiérarchie
+     * 
+     * @param path        chemin d'accès du fichier
+     * @param fingerprint empreinte du graphe et de la fonction de coût avec lesquels la
+     *                    hiérarchie a été calculée
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path path, long fingerprint) throws IOException {
+        int intCount = HEADER_INTS + ranks.capacity() + arcs.capacity() + upFirst.capacity()
+                + upArcs.capacity() + downFirst.capacity() + downArcs.capacity();
+        ByteBuffer buffer = ByteBuffer.allocate(FINGERPRINT_BYTES + intCount * Integer.BYTES);
+        IntBuffer ints = buffer.putLong(fingerprint).asIntBuffer();
+        ints.put(nodeCount).put(arcCount);
+        for (IntBuffer section : new IntBuffer[] { ranks, arcs, upFirst, upArcs, downFirst,
+                downArcs })
+            ints.put(section.duplicate().clear());
+        buffer.rewind();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds de la hiérarchie
+     * 
+     * @return le nombre de noeuds
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'arcs de la hiérarchie, arêtes et raccourcis compris
+     * 
+     * @return le nombre d'arcs
+     */
+    public int arcCount() {
+        return arcCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir une somme de contrôle du rang des noeuds et des arcs de la
+     * hiérarchie, qui permet de vérifier qu'un étiquetage par concentrateurs en est issu
+     * 
+     * @return la somme de contrôle de la hiérarchie
+     */
+    long checksum() {
+        long checksum = nodeCount;
+        for (IntBuffer section : new IntBuffer[] { ranks, arcs }) {
+            for (int i = 0; i < section.capacity(); i++)
+                checksum = CHECKSUM_FACTOR * checksum + section.get(i);
+        }
+        return checksum;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le rang d'un noeud, c.-à-d. sa position dans l'ordre de
+     * contraction
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return le rang du noeud
+     */
+    public int rank(int nodeId) {
+        return ranks.get(nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'arcs montants d'un noeud
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return le nombre d'arcs partant du noeud vers un noeud de rang supérieur
+     */
+    int upDegree(int nodeId) {
+        return upFirst.get(nodeId + 1) - upFirst.get(nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité du arcIndex-ième arc montant d'un noeud
+     * 
+     * @param nodeId   identité du noeud
+     * @param arcIndex index de l'arc
+     * 
+     * @return l'identité de l'arc
+     */
+    int upArcId(int nodeId, int arcIndex) {
+        return upArcs.get(upFirst.get(nodeId) + arcIndex);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'arcs descendants arrivant à un noeud
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return le nombre d'arcs arrivant au noeud depuis un noeud de rang supérieur
+     */
+    int downDegree(int nodeId) {
+        return downFirst.get(nodeId + 1) - downFirst.get(nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité du arcIndex-ième arc descendant arrivant à un noeud
+     * 
+     * @param nodeId   identité du noeud
+     * @param arcIndex index de l'arc
+     * 
+     * @return l'identité de l'arc
+     */
+    int downArcId(int nodeId, int arcIndex) {
+        return downArcs.get(downFirst.get(nodeId) + arcIndex);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le noeud de départ d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return l'identité du noeud de départ de l'arc
+     */
+    int arcSource(int arcId) {
+        return arcs.get(ARC_INTS * arcId + OFFSET_SOURCE);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le noeud d'arrivée d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return l'identité du noeud d'arrivée de l'arc
+     */
+    int arcTarget(int arcId) {
+        return arcs.get(ARC_INTS * arcId + OFFSET_TARGET);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return le coût de l'arc
+     */
+    float arcCost(int arcId) {
+        return Float.intBitsToFloat(arcs.get(ARC_INTS * arcId + OFFSET_COST));
+    }
+
+    /**
+     * Méthode permettant d'obtenir la longueur d'un arc
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return la longueur de l'arc en mètres, c.-à-d. celle des arêtes qu'il remplace
+     */
+    float arcLength(int arcId) {
+        return Float.intBitsToFloat(arcs.get(ARC_INTS * arcId + OFFSET_LENGTH));
+    }
+
+    /**
+     * Méthode permettant de savoir si un arc est un raccourci
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return TRUE si l'arc est un raccourci, FALSE s'il s'agit d'une arête du graphe
+     */
+    boolean isShortcut(int arcId) {
+        return arcs.get(ARC_INTS * arcId + OFFSET_SECOND) != NO_SECOND_ARC;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité de l'arête du graphe correspondant à un arc qui
+     * n'est pas un raccourci
+     * 
+     * @param arcId identité de l'arc
+     * 
+     * @return l'identité de l'arête
+     */
+    int arcEdgeId(int arcId) {
+        return arcs.get(ARC_INTS * arcId + OFFSET_FIRST);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le premier des deux arcs remplacés par un raccourci
+     * 
+     * @param arcId identité du raccourci
+     * 
+     * @return l'identité de l'arc allant du départ du raccourci au noeud contracté
+     */
+    int firstArcId(int arcId) {
+        return arcs.get(ARC_INTS * arcId + OFFSET_FIRST);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le second des deux arcs remplacés par un raccourci
+     * 
+     * @param arcId identité du raccourci
+     * 
+     * @return l'identité de l'arc allant du noeud contracté à l'arrivée du raccourci
+     */
+    int secondArcId(int arcId) {
+        return arcs.get(ARC_INTS * arcId + OFFSET_SECOND);
+    }
+
+    /**
+     * Méthode permettant de construire une hiérarchie de contraction à partir des tableaux
+     * produits par la contraction du graphe
+     * 
+     * @param ranks    rang de chaque noeud
+     * @param sources  noeud de départ de chaque arc
+     * @param targets  noeud d'arrivée de chaque arc
+     * @param costs    coût de chaque arc
+     * @param firsts   identité de l'arête du graphe de chaque arc, ou du premier arc remplacé s'il
+     *                 s'agit d'un raccourci
+     * @param seconds  identité du second arc remplacé par chaque raccourci, ou -1 pour les arcs qui
+     *                 ne sont pas des raccourcis
+     * @param lengths  longueur de chaque arc
+     * @param arcCount nombre d'arcs
+     * 
+     * @return la hiérarchie de contraction
+     */
+    static ContractionHierarchy of(int[] ranks, int[] sources, int[] targets, float[] costs,
+            int[] firsts, int[] seconds, float[] lengths, int arcCount) {
+        int nodeCount = ranks.length;
+        int[] upFirst = new int[nodeCount + 1];
+        int[] downFirst = new int[nodeCount + 1];
+
+        for (int arcId = 0; arcId < arcCount; arcId++) {
+            if (ranks[sources[arcId]] < ranks[targets[arcId]])
+                upFirst[sources[arcId] + 1]++;
+            else
+                downFirst[targets[arcId] + 1]++;
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            upFirst[nodeId + 1] += upFirst[nodeId];
+            downFirst[nodeId + 1] += downFirst[nodeId];
+        }
+
+        int[] upArcs = new int[upFirst[nodeCount]];
+        int[] downArcs = new int[downFirst[nodeCount]];
+        int[] nextUp = upFirst.clone();
+        int[] nextDown = downFirst.clone();
+        for (int arcId = 0; arcId < arcCount; arcId++) {
+            if (ranks[sources[arcId]] < ranks[targets[arcId]])
+                upArcs[nextUp[sources[arcId]]++] = arcId;
+            else
+                downArcs[nextDown[targets[arcId]]++] = arcId;
+        }
+
+        IntBuffer buffer = IntBuffer.allocate(HEADER_INTS + nodeCount + arcCount * ARC_INTS
+                + upFirst.length + upArcs.length + downFirst.length + downArcs.length);
+        buffer.put(nodeCount).put(arcCount).put(ranks);
+        for (int arcId = 0; arcId < arcCount; arcId++) {
+            buffer.put(sources[arcId]).put(targets[arcId]).put(Float.floatToIntBits(costs[arcId]))
+                    .put(firsts[arcId]).put(seconds[arcId])
+                    .put(Float.floatToIntBits(lengths[arcId]));
+        }
+        buffer.put(upFirst).put(upArcs).put(downFirst).put(downArcs);
+        return new ContractionHierarchy(buffer.clear());
+    }
+}
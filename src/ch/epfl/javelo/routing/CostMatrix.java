@@ -0,0 +1,106 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Classe représentant une matrice des coûts et des longueurs des itinéraires de coût minimal
+ * entre des noeuds de départ et des noeuds d'arrivée
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class CostMatrix {
+    private final int sourceCount;
+    private final int targetCount;
+    private final float[] costs;
+    private final double[] lengths;
+
+    /**
+     * Construit une matrice dont toutes les entrées sont infinies
+     * 
+     * @param sourceCount nombre de noeuds de départ
+     * @param targetCount nombre de noeuds d'arrivée
+     */
+    CostMatrix(int sourceCount, int targetCount) {
+        this.sourceCount = sourceCount;
+        this.targetCount = targetCount;
+        this.costs = new float[sourceCount * targetCount];
+        this.lengths = new double[sourceCount * targetCount];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+        Arrays.fill(lengths, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds de départ, c.-à-d. de lignes
+     * 
+     * @return le nombre de noeuds de départ
+     */
+    public int sourceCount() {
+        return sourceCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds d'arrivée, c.-à-d. de colonnes
+     * 
+     * @return le nombre de noeuds d'arrivée
+     */
+    public int targetCount() {
+        return targetCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût de l'itinéraire de coût minimal entre deux noeuds
+     * 
+     * @param sourceIndex index du noeud de départ
+     * @param targetIndex index du noeud d'arrivée
+     * 
+     * @throws IndexOutOfBoundsException si l'un des index est invalide
+     * 
+     * @return le coût de l'itinéraire, ou l'infini positif s'il n'en existe pas
+     */
+    public float cost(int sourceIndex, int targetIndex) {
+        return costs[index(sourceIndex, targetIndex)];
+    }
+
+    /**
+     * Méthode permettant d'obtenir la longueur de l'itinéraire de coût minimal entre deux noeuds
+     * 
+     * @param sourceIndex index du noeud de départ
+     * @param targetIndex index du noeud d'arrivée
+     * 
+     * @throws IndexOutOfBoundsException si l'un des index est invalide
+     * 
+     * @return la longueur de l'itinéraire en mètres, ou l'infini positif s'il n'en existe pas
+     */
+    public double length(int sourceIndex, int targetIndex) {
+        return lengths[index(sourceIndex, targetIndex)];
+    }
+
+    /**
+     * Méthode permettant de fixer le coût et la longueur d'une entrée de la matrice
+     * 
+     * @param sourceIndex index du noeud de départ
+     * @param targetIndex index du noeud d'arrivée
+     * @param cost        coût de l'itinéraire
+     * @param length      longueur de l'itinéraire en mètres
+     */
+    void set(int sourceIndex, int targetIndex, float cost, double length) {
+        int index = index(sourceIndex, targetIndex);
+        costs[index] = cost;
+        lengths[index] = length;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'index d'une entrée dans les tableaux de la matrice
+     * 
+     * @param sourceIndex index du noeud de départ
+     * @param targetIndex index du noeud d'arrivée
+     * 
+     * @return l'index de l'entrée
+     */
+    private int index(int sourceIndex, int targetIndex) {
+        return Objects.checkIndex(sourceIndex, sourceCount) * targetCount
+                + Objects.checkIndex(targetIndex, targetCount);
+    }
+}
@@ -0,0 +1,147 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant une fonction de coût pré-calculée, c.-à-d. une table donnant le coût de
+ * chaque arête du graphe (sa longueur pondérée par la fonction de coût d'origine)
+ * 
+ * Le coût d'une arête ne dépendant que de l'arête elle-même, la fonction de coût d'origine n'est
+ * évaluée qu'une fois par arête. Le planificateur d'itinéraire lit directement le coût dans la
+ * table lorsque sa fonction de coût en est une.
+ * 
+ * Le fichier d'une table commence par une empreinte des données à partir desquelles elle a été
+ * calculée (graphe et version de la fonction de coût d'origine), afin qu'une table calculée à
+ * partir d'autres données ne soit pas utilisée.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class EdgeCostTable implements CostFunction {
+    private static final int HEADER_BYTES = Long.BYTES;
+
+    private final Graph graph;
+    private final FloatBuffer costs;
+
+    /**
+     * Construit une table des coûts des arêtes
+     * 
+     * @param graph graphe JaVelo
+     * @param costs mémoire tampon contenant le coût de chaque arête
+     * 
+     * @throws IllegalArgumentException si la table ne contient pas exactement un coût par arête
+     *                                  du graphe
+     */
+    private EdgeCostTable(Graph graph, FloatBuffer costs) {
+        Preconditions.checkArgument(costs.capacity() == graph.edgeCount());
+        this.graph = graph;
+        this.costs = costs;
+    }
+
+    /**
+     * Méthode permettant de construire la table des coûts des arêtes d'un graphe, en parallèle
+     * 
+     * La fonction de coût d'origine doit donc pouvoir être appelée depuis plusieurs fils
+     * d'exécution, ce qui est le cas de CityBikeCF.
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût d'origine
+     * 
+     * @return la table des coûts des arêtes
+     */
+    public static EdgeCostTable build(Graph graph, CostFunction costFunction) {
+        float[] costs = new float[graph.edgeCount()];
+        // les arêtes sortantes d'un noeud n'appartiennent qu'à lui, aucune case n'est partagée
+        IntStream.range(0, graph.nodeCount()).parallel().forEach(nodeId -> {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                costs[edgeId] = (float) (graph.edgeLength(edgeId)
+                        * costFunction.costFactor(nodeId, edgeId));
+            }
+        });
+        return new EdgeCostTable(graph, FloatBuffer.wrap(costs));
+    }
+
+    /**
+     * Méthode permettant de charger la table des coûts des arêtes d'un graphe depuis un fichier
+     * 
+     * @param path        chemin d'accès du fichier, typiquement placé à côté des fichiers du
+     *                    graphe
+     * @param graph       graphe JaVelo
+     * @param fingerprint empreinte attendue des données à partir desquelles la table a été
+     *                    calculée
+     * 
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si l'empreinte du fichier n'est pas celle attendue, ou si
+     *                                  le fichier ne contient pas exactement un coût par arête du
+     *                                  graphe
+     * 
+     * @return la table des coûts contenue dans le fichier
+     */
+    public static EdgeCostTable loadFrom(Path path, Graph graph, long fingerprint)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            Preconditions.checkArgument(channel.size() >= HEADER_BYTES);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Preconditions.checkArgument(buffer.getLong(0) == fingerprint);
+            return new EdgeCostTable(graph, buffer.slice(HEADER_BYTES,
+                    buffer.capacity() - HEADER_BYTES).asFloatBuffer());
+        }
+    }
+
+    /**
+     * Méthode permettant d'enregistrer la table dans un fichier, qui contient l'empreinte donnée
+     * suivie du coût de chaque arête dans l'ordre de leur identité
+     * 
+     * @param path        chemin d'accès du fichier
+     * @param fingerprint empreinte des données à partir desquelles la table a été calculée
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path path, long fingerprint) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + costs.capacity() * Float.BYTES);
+        buffer.putLong(fingerprint).asFloatBuffer().put(costs.duplicate().clear());
+        buffer.rewind();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût d'une arête
+     * 
+     * @param edgeId identité de l'arête
+     * 
+     * @return le coût de l'arête, c.-à-d. sa longueur pondérée par la fonction de coût d'origine
+     */
+    public float edgeCost(int edgeId) {
+        return costs.get(edgeId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Le facteur est retrouvé à partir du coût de l'arête et de sa longueur, un facteur de 1
+     * étant attribué aux arêtes de longueur nulle et de coût fini.
+     */
+    @Override
+    public double costFactor(int nodeId, int edgeId) {
+        float cost = edgeCost(edgeId);
+        double length = graph.edgeLength(edgeId);
+        if (length == 0)
+            return Float.isNaN(cost) ? Double.POSITIVE_INFINITY : 1;
+        return cost / length;
+    }
+}
@@ -0,0 +1,27 @@
+package ch.epfl.javelo.routing;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Enregistrement représentant l'heuristique de la distance à vol d'oiseau entre deux noeuds
+ * 
+ * Cette heuristique n'est admissible que pour les fonctions de coût dont le facteur multiplicateur
+ * vaut toujours au moins 1, ce qui est le cas de CityBikeCF.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ * 
+ * @param graph graphe JaVelo
+ */
+public record EuclideanHeuristic(Graph graph) implements Heuristic {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float lowerBound(int nodeId, int targetNodeId) {
+        return (float) Math2.norm(graph.nodeE(targetNodeId) - graph.nodeE(nodeId),
+                graph.nodeN(targetNodeId) - graph.nodeN(nodeId));
+    }
+}
@@ -0,0 +1,305 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant les composantes connexes d'un graphe JaVelo, les arêtes de coût infini
+ * pour une fonction de coût donnée étant ignorées
+ * 
+ * Chaque noeud possède l'identité de sa composante fortement connexe et celle de sa composante
+ * faiblement connexe. Les composantes fortement connexes sont numérotées dans l'ordre où
+ * l'algorithme de Tarjan les termine, de sorte qu'une arête allant d'une composante à une autre
+ * va toujours vers une composante d'identité inférieure. Un noeud ne peut donc atteindre que des
+ * noeuds de la même composante faible et de composante forte d'identité inférieure ou égale.
+ * 
+ * Le fichier des composantes commence par une empreinte des données à partir desquelles elles
+ * ont été calculées (graphe et fonction de coût), afin que des composantes calculées à partir
+ * d'autres données ne soient pas utilisées.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class GraphComponents {
+    private static final int UNVISITED = -1;
+    private static final int HEADER_BYTES = Long.BYTES;
+
+    private final IntBuffer strongIds;
+    private final IntBuffer weakIds;
+
+    /**
+     * Construit les composantes connexes à partir d'une mémoire tampon au format décrit par
+     * writeTo
+     * 
+     * @param buffer mémoire tampon contenant les composantes
+     */
+    private GraphComponents(IntBuffer buffer) {
+        int nodeCount = buffer.capacity() / 2;
+        this.strongIds = buffer.slice(0, nodeCount);
+        this.weakIds = buffer.slice(nodeCount, nodeCount);
+    }
+
+    /**
+     * Méthode permettant de calculer les composantes connexes d'un graphe
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût, dont les arêtes de coût infini sont ignorées
+     * 
+     * @return les composantes connexes du graphe
+     */
+    public static GraphComponents build(Graph graph, CostFunction costFunction) {
+        int nodeCount = graph.nodeCount();
+        int[] ids = new int[2 * nodeCount];
+        strongComponents(graph, costFunction, ids);
+        weakComponents(graph, costFunction, ids, nodeCount);
+        return new GraphComponents(IntBuffer.wrap(ids));
+    }
+
+    /**
+     * Méthode permettant de charger les composantes connexes d'un graphe depuis un fichier
+     * 
+     * @param path        chemin d'accès du fichier, typiquement placé à côté des fichiers du
+     *                    graphe
+     * @param graph       graphe JaVelo
+     * @param fingerprint empreinte attendue des données à partir desquelles les composantes ont
+     *                    été calculées
+     * 
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si l'empreinte du fichier n'est pas celle attendue, ou si
+     *                                  le fichier ne contient pas exactement deux composantes par
+     *                                  noeud du graphe
+     * 
+     * @return les composantes connexes contenues dans le fichier
+     */
+    public static GraphComponents loadFrom(Path path, Graph graph, long fingerprint)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            Preconditions.checkArgument(channel.size()
+                    == HEADER_BYTES + 2L * graph.nodeCount() * Integer.BYTES);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Preconditions.checkArgument(buffer.getLong(0) == fingerprint);
+            return new GraphComponents(buffer.slice(HEADER_BYTES,
+                    buffer.capacity() - HEADER_BYTES).asIntBuffer());
+        }
+    }
+
+    /**
+     * Méthode permettant d'enregistrer les composantes dans un fichier, qui contient l'empreinte
+     * donnée suivie de l'identité de la composante forte de chaque noeud puis de celle de sa
+     * composante faible
+     * 
+     * @param path        chemin d'accès du fichier
+     * @param fingerprint empreinte des données à partir desquelles les composantes ont été
+     *                    calculées
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path path, long fingerprint) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 2 * nodeCount() * Integer.BYTES);
+        buffer.putLong(fingerprint).asIntBuffer().put(strongIds.duplicate().clear())
+                .put(weakIds.duplicate().clear());
+        buffer.rewind();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds du graphe
+     * 
+     * @return le nombre de noeuds
+     */
+    public int nodeCount() {
+        return strongIds.capacity();
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité de la composante fortement connexe d'un noeud
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return l'identité de la composante fortement connexe du noeud
+     */
+    public int strongComponentId(int nodeId) {
+        return strongIds.get(nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité de la composante faiblement connexe d'un noeud
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return l'identité de la composante faiblement connexe du noeud
+     */
+    public int weakComponentId(int nodeId) {
+        return weakIds.get(nodeId);
+    }
+
+    /**
+     * Méthode permettant de savoir si un noeud peut éventuellement en atteindre un autre, en temps
+     * constant
+     * 
+     * @param fromNodeId identité du noeud de départ
+     * @param toNodeId   identité du noeud d'arrivée
+     * 
+     * @return FALSE s'il n'existe certainement aucun itinéraire entre les deux noeuds, TRUE s'il
+     *         en existe certainement un (même composante forte) ou si seule une recherche permet
+     *         de le déterminer
+     */
+    public boolean mayReach(int fromNodeId, int toNodeId) {
+        return weakComponentId(fromNodeId) == weakComponentId(toNodeId)
+                && strongComponentId(fromNodeId) >= strongComponentId(toNodeId);
+    }
+
+    /**
+     * Méthode permettant de savoir si une arête doit être prise en compte, c.-à-d. si son coût
+     * est fini
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût
+     * @param nodeId       identité du noeud de départ de l'arête
+     * @param edgeId       identité de l'arête
+     * 
+     * @return TRUE si le coût de l'arête est fini sinon FALSE
+     */
+    private static boolean isUsable(Graph graph, CostFunction costFunction, int nodeId,
+            int edgeId) {
+        float cost = (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
+        return cost < Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Méthode permettant de calculer les composantes fortement connexes au moyen d'une version
+     * itérative de l'algorithme de Tarjan
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût
+     * @param ids          tableau dont les premières cases sont à remplir avec l'identité de la
+     *                     composante forte de chaque noeud
+     */
+    private static void strongComponents(Graph graph, CostFunction costFunction, int[] ids) {
+        int nodeCount = graph.nodeCount();
+        int[] indices = new int[nodeCount];
+        int[] lowLinks = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int[] callNodes = new int[nodeCount];
+        int[] callEdges = new int[nodeCount];
+        Arrays.fill(indices, UNVISITED);
+
+        int index = 0;
+        int stackSize = 0;
+        int componentCount = 0;
+        for (int rootId = 0; rootId < nodeCount; rootId++) {
+            if (indices[rootId] != UNVISITED)
+                continue;
+
+            int callSize = 0;
+            callNodes[callSize] = rootId;
+            callEdges[callSize++] = 0;
+            indices[rootId] = lowLinks[rootId] = index++;
+            stack[stackSize++] = rootId;
+            onStack[rootId] = true;
+
+            while (callSize > 0) {
+                int nodeId = callNodes[callSize - 1];
+                int edgeIndex = callEdges[callSize - 1];
+
+                if (edgeIndex < graph.nodeOutDegree(nodeId)) {
+                    callEdges[callSize - 1]++;
+                    int edgeId = graph.nodeOutEdgeId(nodeId, edgeIndex);
+                    if (!isUsable(graph, costFunction, nodeId, edgeId))
+                        continue;
+
+                    int targetId = graph.edgeTargetNodeId(edgeId);
+                    if (indices[targetId] == UNVISITED) {
+                        callNodes[callSize] = targetId;
+                        callEdges[callSize++] = 0;
+                        indices[targetId] = lowLinks[targetId] = index++;
+                        stack[stackSize++] = targetId;
+                        onStack[targetId] = true;
+                    } else if (onStack[targetId])
+                        lowLinks[nodeId] = Math.min(lowLinks[nodeId], indices[targetId]);
+                    continue;
+                }
+
+                // toutes les arêtes du noeud ont été parcourues
+                if (lowLinks[nodeId] == indices[nodeId]) {
+                    int memberId;
+                    do {
+                        memberId = stack[--stackSize];
+                        onStack[memberId] = false;
+                        ids[memberId] = componentCount;
+                    } while (memberId != nodeId);
+                    componentCount++;
+                }
+                callSize--;
+                if (callSize > 0) {
+                    int parentId = callNodes[callSize - 1];
+                    lowLinks[parentId] = Math.min(lowLinks[parentId], lowLinks[nodeId]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Méthode permettant de calculer les composantes faiblement connexes au moyen d'une structure
+     * union-find
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût
+     * @param ids          tableau dont les dernières cases sont à remplir avec l'identité de la
+     *                     composante faible de chaque noeud
+     * @param offset       index de la case du premier noeud dans le tableau
+     */
+    private static void weakComponents(Graph graph, CostFunction costFunction, int[] ids,
+            int offset) {
+        int nodeCount = graph.nodeCount();
+        int[] parents = new int[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            parents[nodeId] = nodeId;
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                if (!isUsable(graph, costFunction, nodeId, edgeId))
+                    continue;
+
+                int rootA = root(parents, nodeId);
+                int rootB = root(parents, graph.edgeTargetNodeId(edgeId));
+                if (rootA != rootB)
+                    parents[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+            }
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            ids[offset + nodeId] = root(parents, nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir la racine d'un noeud dans une structure union-find, en
+     * raccourcissant le chemin parcouru
+     * 
+     * @param parents parent de chaque noeud
+     * @param nodeId  identité du noeud
+     * 
+     * @return l'identité de la racine du noeud
+     */
+    private static int root(int[] parents, int nodeId) {
+        while (parents[nodeId] != nodeId) {
+            parents[nodeId] = parents[parents[nodeId]];
+            nodeId = parents[nodeId];
+        }
+        return nodeId;
+    }
+}
@@ -0,0 +1,335 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant une partition à plusieurs niveaux des noeuds d'un graphe JaVelo,
+ * indépendante de toute fonction de coût
+ * 
+ * Les noeuds sont répartis en cellules par bissections successives selon leurs coordonnées, chaque
+ * cellule d'un niveau étant l'union de cellules du niveau inférieur. Le niveau 0 correspond au
+ * graphe lui-même. Un noeud est un noeud frontière d'un niveau s'il est l'extrémité d'une arête
+ * reliant deux cellules différentes de ce niveau.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class GraphPartition {
+    private static final int[] MAX_CELL_SIZES = { 1 << 8, 1 << 11, 1 << 14, 1 << 17 };
+    private static final int HEADER_INTS = 2;
+    private static final int NOT_BOUNDARY = -1;
+
+    private final int nodeCount;
+    private final int levelCount;
+    private final IntBuffer shifts;
+    private final IntBuffer leafCells;
+    private final int[] cellCounts;
+    private final int[][] boundaryNodes;
+    private final int[][] boundaryFirst;
+    private final int[][] boundaryIndices;
+
+    /**
+     * Construit une partition à partir d'une mémoire tampon au format décrit par writeTo, les
+     * noeuds frontières étant déterminés à partir des arêtes du graphe
+     * 
+     * @param graph  graphe JaVelo
+     * @param buffer mémoire tampon contenant la partition
+     * 
+     * @throws IllegalArgumentException si la partition ne possède pas le même nombre de noeuds que
+     *                                  le graphe
+     */
+    private GraphPartition(Graph graph, IntBuffer buffer) {
+        this.nodeCount = buffer.get(0);
+        this.levelCount = buffer.get(1);
+        Preconditions.checkArgument(nodeCount == graph.nodeCount());
+        this.shifts = buffer.slice(HEADER_INTS, levelCount);
+        this.leafCells = buffer.slice(HEADER_INTS + levelCount, nodeCount);
+
+        int leafCount = 0;
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            leafCount = Math.max(leafCount, leafCells.get(nodeId) + 1);
+        this.cellCounts = new int[levelCount + 1];
+        for (int level = 1; level <= levelCount; level++)
+            cellCounts[level] = ((leafCount - 1) >>> shifts.get(level - 1)) + 1;
+
+        // tri des noeuds par cellule feuille, qui les regroupe aussi par cellule à chaque niveau
+        int[] leafNodeFirst = new int[leafCount + 1];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            leafNodeFirst[leafCells.get(nodeId) + 1]++;
+        for (int leaf = 0; leaf < leafCount; leaf++)
+            leafNodeFirst[leaf + 1] += leafNodeFirst[leaf];
+        int[] nodesByCell = new int[nodeCount];
+        int[] next = Arrays.copyOf(leafNodeFirst, leafCount);
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            nodesByCell[next[leafCells.get(nodeId)]++] = nodeId;
+
+        // niveau le plus élevé auquel chaque noeud est un noeud frontière
+        int[] boundaryLevels = new int[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int targetId = graph.edgeTargetNodeId(graph.nodeOutEdgeId(nodeId, i));
+                int level = highestSeparatingLevel(nodeId, targetId);
+                boundaryLevels[nodeId] = Math.max(boundaryLevels[nodeId], level);
+                boundaryLevels[targetId] = Math.max(boundaryLevels[targetId], level);
+            }
+        }
+
+        this.boundaryNodes = new int[levelCount + 1][];
+        this.boundaryFirst = new int[levelCount + 1][];
+        this.boundaryIndices = new int[levelCount + 1][];
+        for (int level = 1; level <= levelCount; level++) {
+            int[] first = new int[cellCounts[level] + 1];
+            int[] indices = new int[nodeCount];
+            Arrays.fill(indices, NOT_BOUNDARY);
+            int count = 0;
+            for (int nodeId : nodesByCell) {
+                if (boundaryLevels[nodeId] >= level) {
+                    first[cellId(level, nodeId) + 1]++;
+                    count++;
+                }
+            }
+            for (int cell = 0; cell < cellCounts[level]; cell++)
+                first[cell + 1] += first[cell];
+
+            int[] nodes = new int[count];
+            int index = 0;
+            for (int nodeId : nodesByCell) {
+                if (boundaryLevels[nodeId] >= level) {
+                    indices[nodeId] = index;
+                    nodes[index++] = nodeId;
+                }
+            }
+            boundaryNodes[level] = nodes;
+            boundaryFirst[level] = first;
+            boundaryIndices[level] = indices;
+        }
+    }
+
+    /**
+     * Méthode permettant de construire la partition des noeuds d'un graphe
+     * 
+     * Les noeuds sont triés selon l'axe de plus grande étendue puis séparés en deux moitiés, de
+     * manière récursive, jusqu'à ce que les cellules du niveau 1 ne dépassent plus la taille
+     * voulue. Les niveaux ne comportant qu'une seule cellule sont omis.
+     * 
+     * @param graph graphe JaVelo
+     * 
+     * @return la partition des noeuds du graphe
+     */
+    public static GraphPartition build(Graph graph) {
+        int nodeCount = graph.nodeCount();
+        int[] depths = Arrays.stream(MAX_CELL_SIZES)
+                .map(size -> Integer.SIZE - Integer.numberOfLeadingZeros((nodeCount - 1) / size))
+                .filter(depth -> depth > 0).distinct().toArray();
+        int leafDepth = depths.length == 0 ? 0 : depths[0];
+
+        int[] order = new int[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            order[nodeId] = nodeId;
+        int[] bounds = { 0, nodeCount };
+        for (int depth = 0; depth < leafDepth; depth++) {
+            int[] newBounds = new int[2 * bounds.length - 1];
+            for (int range = 0; range < bounds.length - 1; range++) {
+                int from = bounds[range];
+                int to = bounds[range + 1];
+                bisect(graph, order, from, to);
+                newBounds[2 * range] = from;
+                newBounds[2 * range + 1] = (from + to) >>> 1;
+            }
+            newBounds[newBounds.length - 1] = nodeCount;
+            bounds = newBounds;
+        }
+
+        IntBuffer buffer = IntBuffer.allocate(HEADER_INTS + depths.length + nodeCount);
+        buffer.put(nodeCount).put(depths.length);
+        for (int depth : depths)
+            buffer.put(leafDepth - depth);
+        int[] leafCells = new int[nodeCount];
+        for (int range = 0; range < bounds.length - 1; range++) {
+            for (int i = bounds[range]; i < bounds[range + 1]; i++)
+                leafCells[order[i]] = range;
+        }
+        buffer.put(leafCells);
+        return new GraphPartition(graph, buffer.clear());
+    }
+
+    /**
+     * Méthode permettant de charger une partition depuis un fichier écrit par writeTo
+     * 
+     * @param path  chemin d'accès du fichier
+     * @param graph graphe JaVelo auquel la partition correspond
+     * 
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si la partition ne possède pas le même nombre de noeuds que
+     *                                  le graphe
+     * 
+     * @return la partition contenue dans le fichier
+     */
+    public static GraphPartition loadFrom(Path path, Graph graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return new GraphPartition(graph, channel
+                    .map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer());
+        }
+    }
+
+    /**
+     * Méthode permettant d'enregistrer la partition dans un fichier, qui contient le nombre de
+     * noeuds, le nombre de niveaux, le décalage permettant d'obtenir la cellule de chaque niveau à
+     * partir de la cellule feuille, puis la cellule feuille de chaque noeud
+     * 
+     * @param path chemin d'accès du fichier
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer
+                .allocate((HEADER_INTS + levelCount + nodeCount) * Integer.BYTES);
+        buffer.asIntBuffer().put(nodeCount).put(levelCount).put(shifts.duplicate().clear())
+                .put(leafCells.duplicate().clear());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds de la partition
+     * 
+     * @return le nombre de noeuds de la partition
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de niveaux de la partition, sans compter le niveau 0
+     * 
+     * @return le nombre de niveaux de la partition
+     */
+    public int levelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de cellules d'un niveau
+     * 
+     * @param level niveau, compris entre 1 et le nombre de niveaux (inclus)
+     * 
+     * @return le nombre de cellules du niveau
+     */
+    public int cellCount(int level) {
+        return cellCounts[level];
+    }
+
+    /**
+     * Méthode permettant d'obtenir la cellule d'un niveau contenant un noeud
+     * 
+     * @param level  niveau, compris entre 1 et le nombre de niveaux (inclus)
+     * @param nodeId identité du noeud
+     * 
+     * @return l'identité de la cellule contenant le noeud
+     */
+    public int cellId(int level, int nodeId) {
+        return leafCells.get(nodeId) >>> shifts.get(level - 1);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le niveau le plus élevé auquel deux noeuds se trouvent dans des
+     * cellules différentes
+     * 
+     * @param nodeId      identité du premier noeud
+     * @param otherNodeId identité du second noeud
+     * 
+     * @return le niveau le plus élevé séparant les deux noeuds, ou 0 s'ils se trouvent dans la
+     *         même cellule à tous les niveaux
+     */
+    int highestSeparatingLevel(int nodeId, int otherNodeId) {
+        int level = levelCount;
+        while (level > 0 && cellId(level, nodeId) == cellId(level, otherNodeId))
+            level--;
+        return level;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'index, parmi les noeuds frontières d'un niveau, du premier
+     * noeud frontière d'une cellule, les noeuds frontières de chaque cellule étant contigus
+     * 
+     * @param level niveau de la cellule
+     * @param cell  identité de la cellule, ou nombre de cellules du niveau pour obtenir le nombre
+     *              total de noeuds frontières
+     * 
+     * @return l'index du premier noeud frontière de la cellule
+     */
+    int boundaryFirst(int level, int cell) {
+        return boundaryFirst[level][cell];
+    }
+
+    /**
+     * Méthode permettant d'obtenir le noeud frontière d'un niveau se trouvant à un index donné
+     * 
+     * @param level niveau
+     * @param index index du noeud frontière
+     * 
+     * @return l'identité du noeud frontière
+     */
+    int boundaryNode(int level, int index) {
+        return boundaryNodes[level][index];
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'index d'un noeud parmi les noeuds frontières d'un niveau
+     * 
+     * @param level  niveau
+     * @param nodeId identité du noeud
+     * 
+     * @return l'index du noeud parmi les noeuds frontières du niveau, ou -1 s'il n'en fait pas
+     *         partie
+     */
+    int boundaryIndex(int level, int nodeId) {
+        return boundaryIndices[level][nodeId];
+    }
+
+    /**
+     * Méthode permettant de trier une plage de noeuds selon l'axe de plus grande étendue de leurs
+     * coordonnées, afin de la séparer en deux moitiés
+     * 
+     * @param graph graphe JaVelo
+     * @param order noeuds à trier
+     * @param from  début de la plage (inclus)
+     * @param to    fin de la plage (exclus)
+     */
+    private static void bisect(Graph graph, int[] order, int from, int to) {
+        double minE = Double.POSITIVE_INFINITY, maxE = Double.NEGATIVE_INFINITY;
+        double minN = Double.POSITIVE_INFINITY, maxN = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double e = graph.nodeE(order[i]);
+            double n = graph.nodeN(order[i]);
+            minE = Math.min(minE, e);
+            maxE = Math.max(maxE, e);
+            minN = Math.min(minN, n);
+            maxN = Math.max(maxN, n);
+        }
+        boolean alongE = maxE - minE >= maxN - minN;
+
+        // clefs formées de la coordonnée arrondie au mètre suivie de l'identité du noeud
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            long coordinate = Math.round(alongE ? graph.nodeE(order[i]) : graph.nodeN(order[i]));
+            keys[i - from] = coordinate << Integer.SIZE | order[i];
+        }
+        Arrays.sort(keys);
+        for (int i = from; i < to; i++)
+            order[i] = (int) keys[i - from];
+    }
+}
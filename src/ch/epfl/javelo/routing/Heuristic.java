@@ -0,0 +1,27 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Interface représentant une heuristique de recherche A*, c.-à-d. une borne inférieure du coût
+ * d'un itinéraire entre deux noeuds
+ * 
+ * Pour que le planificateur d'itinéraire reste exact, la borne doit être admissible et cohérente
+ * pour la fonction de coût utilisée : elle ne doit jamais dépasser le coût réel, et la borne d'un
+ * noeud ne doit pas dépasser le coût d'une arête qui en part additionné de la borne du noeud
+ * atteint.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public interface Heuristic {
+
+    /**
+     * Méthode permettant d'obtenir une borne inférieure du coût d'un itinéraire entre deux noeuds
+     * 
+     * @param nodeId       identité du noeud de départ
+     * @param targetNodeId identité du noeud d'arrivée
+     * 
+     * @return une borne inférieure du coût de l'itinéraire, qui peut être infinie s'il n'en
+     *         existe pas
+     */
+    float lowerBound(int nodeId, int targetNodeId);
+}
@@ -0,0 +1,334 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe permettant de construire la hiérarchie de contraction d'un graphe JaVelo
+ * 
+ * Les noeuds sont contractés un à un, par ordre croissant de priorité. Contracter un noeud revient
+ * à le retirer du graphe restant en ajoutant un raccourci entre chaque paire de voisins dont le
+ * plus court chemin passe par lui, ce que l'on vérifie au moyen d'une recherche locale (dite de
+ * témoin) de taille bornée. La priorité d'un noeud est mise à jour paresseusement.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class HierarchyContractor {
+    private static final int WITNESS_SETTLED_LIMIT = 500;
+    private static final int SIMULATION_SETTLED_LIMIT = 50;
+    private static final int NO_SECOND_ARC = -1;
+    private static final int INITIAL_ARC_CAPACITY = 4;
+
+    private final int nodeCount;
+    private final int[][] outArcs;
+    private final int[][] inArcs;
+    private final int[] outDegrees;
+    private final int[] inDegrees;
+    private final int[] ranks;
+    private final int[] contractedNeighbors;
+    private final int[] levels;
+    private final SearchWorkspace workspace;
+
+    private int[] sources;
+    private int[] targets;
+    private float[] costs;
+    private int[] firsts;
+    private int[] seconds;
+    private float[] lengths;
+    private int arcCount;
+
+    /**
+     * Construit un contracteur pour le graphe et la fonction de coût donnés
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût
+     */
+    HierarchyContractor(Graph graph, CostFunction costFunction) {
+        this.nodeCount = graph.nodeCount();
+        this.outArcs = new int[nodeCount][];
+        this.inArcs = new int[nodeCount][];
+        this.outDegrees = new int[nodeCount];
+        this.inDegrees = new int[nodeCount];
+        this.ranks = new int[nodeCount];
+        this.contractedNeighbors = new int[nodeCount];
+        this.levels = new int[nodeCount];
+        this.workspace = new SearchWorkspace(nodeCount);
+
+        int initialCapacity = nodeCount * 2;
+        this.sources = new int[initialCapacity];
+        this.targets = new int[initialCapacity];
+        this.costs = new float[initialCapacity];
+        this.firsts = new int[initialCapacity];
+        this.seconds = new int[initialCapacity];
+        this.lengths = new float[initialCapacity];
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            outArcs[nodeId] = new int[INITIAL_ARC_CAPACITY];
+            inArcs[nodeId] = new int[INITIAL_ARC_CAPACITY];
+        }
+        Arrays.fill(ranks, -1);
+
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < graph.nodeOutDegree(nodeId); i++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, i);
+                float cost = (float) (graph.edgeLength(edgeId)
+                        * costFunction.costFactor(nodeId, edgeId));
+                if (cost < Float.POSITIVE_INFINITY)
+                    addArc(nodeId, graph.edgeTargetNodeId(edgeId), cost,
+                            (float) graph.edgeLength(edgeId), edgeId, NO_SECOND_ARC);
+            }
+        }
+    }
+
+    /**
+     * Méthode permettant de contracter tous les noeuds du graphe
+     * 
+     * @return la hiérarchie de contraction obtenue
+     */
+    ContractionHierarchy contract() {
+        NodeHeap queue = new NodeHeap(nodeCount);
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            queue.update(nodeId, priority(nodeId));
+
+        int rank = 0;
+        int[] neighbors = new int[INITIAL_ARC_CAPACITY];
+        while (!queue.isEmpty()) {
+            int nodeId = queue.removeMin();
+
+            // mise à jour paresseuse de la priorité
+            float priority = priority(nodeId);
+            if (!queue.isEmpty() && priority > queue.minKey()) {
+                queue.update(nodeId, priority);
+                continue;
+            }
+
+            int neighborCount = 0;
+            if (neighbors.length < outDegrees[nodeId] + inDegrees[nodeId])
+                neighbors = new int[outDegrees[nodeId] + inDegrees[nodeId]];
+            for (int i = 0; i < outDegrees[nodeId]; i++)
+                neighbors[neighborCount++] = targets[outArcs[nodeId][i]];
+            for (int i = 0; i < inDegrees[nodeId]; i++)
+                neighbors[neighborCount++] = sources[inArcs[nodeId][i]];
+
+            contractNode(nodeId);
+            ranks[nodeId] = rank++;
+
+            for (int i = 0; i < neighborCount; i++) {
+                int neighborId = neighbors[i];
+                contractedNeighbors[neighborId]++;
+                levels[neighborId] = Math.max(levels[neighborId], levels[nodeId] + 1);
+            }
+            for (int i = 0; i < neighborCount; i++) {
+                if (queue.contains(neighbors[i]))
+                    queue.update(neighbors[i], priority(neighbors[i]));
+            }
+        }
+
+        return ContractionHierarchy.of(ranks, sources, targets, costs, firsts, seconds, lengths,
+                arcCount);
+    }
+
+    /**
+     * Méthode permettant de calculer la priorité de contraction d'un noeud, qui combine la
+     * différence entre le nombre de raccourcis créés et d'arcs supprimés, le nombre de voisins
+     * déjà contractés et le niveau du noeud dans la hiérarchie
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return la priorité du noeud, les noeuds de plus petite priorité étant contractés en
+     *         premier
+     */
+    private float priority(int nodeId) {
+        int shortcuts = shortcutsFor(nodeId, false);
+        int edgeDifference = shortcuts - outDegrees[nodeId] - inDegrees[nodeId];
+        return 2 * edgeDifference + contractedNeighbors[nodeId] + levels[nodeId];
+    }
+
+    /**
+     * Méthode permettant de contracter un noeud en ajoutant les raccourcis nécessaires et en le
+     * retirant du graphe restant
+     * 
+     * @param nodeId identité du noeud
+     */
+    private void contractNode(int nodeId) {
+        shortcutsFor(nodeId, true);
+
+        for (int i = 0; i < inDegrees[nodeId]; i++) {
+            int sourceId = sources[inArcs[nodeId][i]];
+            outDegrees[sourceId] = removeArc(outArcs[sourceId], outDegrees[sourceId],
+                    inArcs[nodeId][i]);
+        }
+        for (int i = 0; i < outDegrees[nodeId]; i++) {
+            int targetId = targets[outArcs[nodeId][i]];
+            inDegrees[targetId] = removeArc(inArcs[targetId], inDegrees[targetId],
+                    outArcs[nodeId][i]);
+        }
+        outArcs[nodeId] = null;
+        inArcs[nodeId] = null;
+        outDegrees[nodeId] = 0;
+        inDegrees[nodeId] = 0;
+    }
+
+    /**
+     * Méthode permettant de déterminer les raccourcis nécessaires à la contraction d'un noeud
+     * 
+     * @param nodeId identité du noeud
+     * @param add    TRUE si les raccourcis doivent être ajoutés au graphe, FALSE s'il faut
+     *               uniquement les compter
+     * 
+     * @return le nombre de raccourcis nécessaires
+     */
+    private int shortcutsFor(int nodeId, boolean add) {
+        int shortcuts = 0;
+        float maxOutCost = 0;
+        for (int i = 0; i < outDegrees[nodeId]; i++)
+            maxOutCost = Math.max(maxOutCost, costs[outArcs[nodeId][i]]);
+
+        for (int i = 0; i < inDegrees[nodeId]; i++) {
+            int inArcId = inArcs[nodeId][i];
+            int sourceId = sources[inArcId];
+            float inCost = costs[inArcId];
+
+            witnessSearch(sourceId, nodeId, inCost + maxOutCost,
+                    add ? WITNESS_SETTLED_LIMIT : SIMULATION_SETTLED_LIMIT);
+
+            for (int j = 0; j < outDegrees[nodeId]; j++) {
+                int outArcId = outArcs[nodeId][j];
+                int targetId = targets[outArcId];
+                float viaCost = inCost + costs[outArcId];
+                if (targetId == sourceId || workspace.distance(targetId) <= viaCost)
+                    continue;
+
+                shortcuts++;
+                if (add)
+                    addArc(sourceId, targetId, viaCost, lengths[inArcId] + lengths[outArcId],
+                            inArcId, outArcId);
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Méthode permettant d'effectuer une recherche de témoins depuis un noeud, dans le graphe
+     * restant privé du noeud en cours de contraction, les distances obtenues étant laissées dans
+     * l'espace de travail
+     * 
+     * @param sourceId       identité du noeud de départ
+     * @param excludedId     identité du noeud en cours de contraction
+     * @param maxCost        coût au-delà duquel la recherche s'arrête
+     * @param settledLimit   nombre de noeuds visités au-delà duquel la recherche s'arrête
+     */
+    private void witnessSearch(int sourceId, int excludedId, float maxCost, int settledLimit) {
+        workspace.reset();
+        workspace.setDistance(sourceId, 0);
+        NodeQueue queue = workspace.heap();
+        queue.push(sourceId, 0);
+
+        while (!queue.isEmpty() && queue.minKey() <= maxCost
+                && workspace.settledCount() < settledLimit) {
+            int currentId = workspace.settleNext();
+            float currentDistance = workspace.distance(currentId);
+            for (int i = 0; i < outDegrees[currentId]; i++) {
+                int arcId = outArcs[currentId][i];
+                int targetId = targets[arcId];
+                if (targetId == excludedId)
+                    continue;
+
+                float d = currentDistance + costs[arcId];
+                if (d < workspace.distance(targetId)) {
+                    workspace.setDistance(targetId, d);
+                    queue.push(targetId, d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Méthode permettant d'ajouter un arc au graphe restant, ou d'améliorer l'arc existant entre
+     * les deux mêmes noeuds
+     * 
+     * @param sourceId identité du noeud de départ
+     * @param targetId identité du noeud d'arrivée
+     * @param cost     coût de l'arc
+     * @param length   longueur de l'arc
+     * @param first    identité de l'arête du graphe, ou du premier arc remplacé s'il s'agit d'un
+     *                 raccourci
+     * @param second   identité du second arc remplacé, ou NO_SECOND_ARC
+     */
+    private void addArc(int sourceId, int targetId, float cost, float length, int first,
+            int second) {
+        if (sourceId == targetId)
+            return;
+
+        for (int i = 0; i < outDegrees[sourceId]; i++) {
+            int arcId = outArcs[sourceId][i];
+            if (targets[arcId] == targetId) {
+                if (cost < costs[arcId]) {
+                    costs[arcId] = cost;
+                    lengths[arcId] = length;
+                    firsts[arcId] = first;
+                    seconds[arcId] = second;
+                }
+                return;
+            }
+        }
+
+        if (arcCount == sources.length) {
+            int capacity = 2 * arcCount;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int arcId = arcCount++;
+        sources[arcId] = sourceId;
+        targets[arcId] = targetId;
+        costs[arcId] = cost;
+        lengths[arcId] = length;
+        firsts[arcId] = first;
+        seconds[arcId] = second;
+
+        outArcs[sourceId] = appendArc(outArcs[sourceId], outDegrees[sourceId]++, arcId);
+        inArcs[targetId] = appendArc(inArcs[targetId], inDegrees[targetId]++, arcId);
+    }
+
+    /**
+     * Méthode permettant d'ajouter un arc à la fin d'une liste d'arcs, en l'agrandissant si
+     * nécessaire
+     * 
+     * @param arcs  liste d'arcs
+     * @param size  nombre d'arcs de la liste
+     * @param arcId identité de l'arc à ajouter
+     * 
+     * @return la liste d'arcs contenant l'arc ajouté
+     */
+    private static int[] appendArc(int[] arcs, int size, int arcId) {
+        if (size == arcs.length)
+            arcs = Arrays.copyOf(arcs, 2 * size);
+        arcs[size] = arcId;
+        return arcs;
+    }
+
+    /**
+     * Méthode permettant de retirer un arc d'une liste d'arcs
+     * 
+     * @param arcs  liste d'arcs
+     * @param size  nombre d'arcs de la liste
+     * @param arcId identité de l'arc à retirer
+     * 
+     * @return le nouveau nombre d'arcs de la liste
+     */
+    private static int removeArc(int[] arcs, int size, int arcId) {
+        for (int i = 0; i < size; i++) {
+            if (arcs[i] == arcId) {
+                arcs[i] = arcs[size - 1];
+                return size - 1;
+            }
+        }
+        return size;
+    }
+}
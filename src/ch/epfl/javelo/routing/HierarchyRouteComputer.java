@@ -0,0 +1,418 @@
+package ch.epfl.javelo.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant un planificateur d'itinéraire utilisant une hiérarchie de contraction
+ * 
+ * Une requête consiste en deux recherches de Dijkstra, l'une depuis le départ sur les arcs
+ * montants, l'autre depuis l'arrivée sur les arcs descendants, les noeuds pouvant être atteints
+ * à moindre coût depuis un noeud de rang supérieur n'étant pas développés. Les raccourcis de
+ * l'itinéraire trouvé sont ensuite dépliés en arêtes du graphe.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class HierarchyRouteComputer {
+    private static final int INITIAL_BUCKET_CAPACITY = 64;
+    private static final int INITIAL_STACK_CAPACITY = 64;
+
+    private final Graph graph;
+    private final ContractionHierarchy hierarchy;
+    private final HubLabels labels;
+    private final ThreadLocal<SearchWorkspace> forwardWorkspaces;
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+
+    /**
+     * Construit un planificateur d'itinéraire utilisant une hiérarchie de contraction
+     * 
+     * @param graph     graphe JaVelo
+     * @param hierarchy hiérarchie de contraction du graphe, construite pour la fonction de coût
+     *                  souhaitée
+     * 
+     * @throws IllegalArgumentException si la hiérarchie ne possède pas le même nombre de noeuds
+     *                                  que le graphe
+     */
+    public HierarchyRouteComputer(Graph graph, ContractionHierarchy hierarchy) {
+        this(graph, hierarchy, null);
+    }
+
+    /**
+     * Construit un planificateur d'itinéraire utilisant une hiérarchie de contraction et, pour
+     * trouver les itinéraires sans recherche, l'étiquetage par concentrateurs qui en est issu
+     * 
+     * @param graph     graphe JaVelo
+     * @param hierarchy hiérarchie de contraction du graphe, construite pour la fonction de coût
+     *                  souhaitée
+     * @param labels    étiquetage par concentrateurs construit à partir de la hiérarchie, ou null
+     * 
+     * @throws IllegalArgumentException si la hiérarchie ne possède pas le même nombre de noeuds
+     *                                  que le graphe, ou si l'étiquetage n'est pas issu de la
+     *                                  hiérarchie
+     */
+    public HierarchyRouteComputer(Graph graph, ContractionHierarchy hierarchy,
+            HubLabels labels) {
+        Preconditions.checkArgument(graph.nodeCount() == hierarchy.nodeCount());
+        Preconditions.checkArgument(labels == null || labels.isBuiltFrom(hierarchy));
+        this.graph = graph;
+        this.hierarchy = hierarchy;
+        this.labels = labels;
+        this.forwardWorkspaces = ThreadLocal
+                .withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+        this.backwardWorkspaces = ThreadLocal
+                .withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        Preconditions.checkArgument(startNodeId != endNodeId);
+        if (labels != null) {
+            int[] arcs = labels.arcsBetween(hierarchy, startNodeId, endNodeId);
+            return arcs == null ? null : new SingleRoute(unpackArcs(arcs, arcs.length));
+        }
+
+        SearchWorkspace forward = forwardWorkspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        forward.reset();
+        backward.reset();
+        forward.setDistance(startNodeId, 0);
+        forward.heap().push(startNodeId, 0);
+        backward.setDistance(endNodeId, 0);
+        backward.heap().push(endNodeId, 0);
+
+        float bestCost = Float.POSITIVE_INFINITY;
+        int meetingNodeId = -1;
+
+        while (true) {
+            boolean forwardActive = !forward.heap().isEmpty()
+                    && forward.heap().minKey() < bestCost;
+            boolean backwardActive = !backward.heap().isEmpty()
+                    && backward.heap().minKey() < bestCost;
+            if (!forwardActive && !backwardActive)
+                break;
+
+            boolean forwardTurn = forwardActive
+                    && (!backwardActive || forward.heap().minKey() <= backward.heap().minKey());
+            int currentId = forwardTurn ? forward.settleNext() : backward.settleNext();
+
+            float cost = forward.distance(currentId) + backward.distance(currentId);
+            if (cost < bestCost) {
+                bestCost = cost;
+                meetingNodeId = currentId;
+            }
+
+            if (forwardTurn)
+                analyseForwardNode(forward, currentId, false);
+            else
+                analyseBackwardNode(backward, currentId, false);
+        }
+
+        if (meetingNodeId == -1)
+            return null;
+        return new SingleRoute(unpack(forward, backward, startNodeId, endNodeId, meetingNodeId));
+    }
+
+    /**
+     * Méthode permettant d'obtenir la matrice des coûts et des longueurs des itinéraires de coût
+     * minimal entre des noeuds de départ et des noeuds d'arrivée, sans construire les itinéraires
+     * 
+     * Le calcul se fait au moyen de seaux : une recherche arrière complète depuis chaque noeud
+     * d'arrivée dépose dans le seau de chaque noeud développé son coût jusqu'à cette arrivée,
+     * puis une recherche avant complète depuis chaque noeud de départ parcourt les seaux des
+     * noeuds qu'elle développe. Les recherches sont effectuées en parallèle.
+     * 
+     * @param sourceNodeIds identité des noeuds de départ
+     * @param targetNodeIds identité des noeuds d'arrivée
+     * 
+     * @return la matrice des coûts, dont l'entrée (i, j) correspond à l'itinéraire allant du
+     *         i-ème noeud de départ au j-ème noeud d'arrivée
+     */
+    public CostMatrix costMatrix(int[] sourceNodeIds, int[] targetNodeIds) {
+        BucketEntries[] entries = IntStream.range(0, targetNodeIds.length).parallel()
+                .mapToObj(targetIndex -> bucketEntries(targetNodeIds[targetIndex]))
+                .toArray(BucketEntries[]::new);
+
+        // regroupement des entrées par noeud, sous forme d'index compact
+        int nodeCount = graph.nodeCount();
+        int[] firstEntry = new int[nodeCount + 1];
+        for (BucketEntries targetEntries : entries) {
+            for (int nodeId : targetEntries.nodeIds())
+                firstEntry[nodeId + 1]++;
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            firstEntry[nodeId + 1] += firstEntry[nodeId];
+
+        int entryCount = firstEntry[nodeCount];
+        int[] entryTargets = new int[entryCount];
+        float[] entryCosts = new float[entryCount];
+        double[] entryLengths = new double[entryCount];
+        int[] next = firstEntry.clone();
+        for (int targetIndex = 0; targetIndex < entries.length; targetIndex++) {
+            BucketEntries targetEntries = entries[targetIndex];
+            for (int i = 0; i < targetEntries.nodeIds().length; i++) {
+                int index = next[targetEntries.nodeIds()[i]]++;
+                entryTargets[index] = targetIndex;
+                entryCosts[index] = targetEntries.costs()[i];
+                entryLengths[index] = targetEntries.lengths()[i];
+            }
+        }
+
+        CostMatrix matrix = new CostMatrix(sourceNodeIds.length, targetNodeIds.length);
+        IntStream.range(0, sourceNodeIds.length).parallel().forEach(sourceIndex -> {
+            SearchWorkspace forward = forwardWorkspaces.get();
+            forward.reset();
+            forward.setDistance(sourceNodeIds[sourceIndex], 0);
+            forward.setLength(sourceNodeIds[sourceIndex], 0);
+            forward.heap().push(sourceNodeIds[sourceIndex], 0);
+
+            float[] bestCosts = new float[targetNodeIds.length];
+            double[] bestLengths = new double[targetNodeIds.length];
+            Arrays.fill(bestCosts, Float.POSITIVE_INFINITY);
+
+            while (!forward.heap().isEmpty()) {
+                int currentId = forward.settleNext();
+                if (!analyseForwardNode(forward, currentId, true))
+                    continue;
+
+                for (int i = firstEntry[currentId]; i < firstEntry[currentId + 1]; i++) {
+                    float cost = forward.distance(currentId) + entryCosts[i];
+                    if (cost < bestCosts[entryTargets[i]]) {
+                        bestCosts[entryTargets[i]] = cost;
+                        bestLengths[entryTargets[i]] = forward.length(currentId) + entryLengths[i];
+                    }
+                }
+            }
+
+            for (int targetIndex = 0; targetIndex < targetNodeIds.length; targetIndex++) {
+                if (bestCosts[targetIndex] != Float.POSITIVE_INFINITY)
+                    matrix.set(sourceIndex, targetIndex, bestCosts[targetIndex],
+                            bestLengths[targetIndex]);
+            }
+        });
+        return matrix;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds visités lors de la dernière recherche
+     * effectuée par le fil d'exécution courant, dans les deux sens
+     * 
+     * @return le nombre de noeuds visités lors de la dernière recherche
+     */
+    public int settledNodeCount() {
+        return forwardWorkspaces.get().settledCount() + backwardWorkspaces.get().settledCount();
+    }
+
+    /**
+     * Méthode permettant d'analyser un noeud de la recherche avant en parcourant ses arcs
+     * montants, à moins qu'il puisse être atteint à moindre coût depuis un noeud de rang supérieur
+     * 
+     * @param forward     espace de travail de la recherche avant
+     * @param currentId   identité du noeud en cours d'analyse
+     * @param withLengths TRUE si la longueur des chemins doit être calculée
+     * 
+     * @return TRUE si le noeud a été développé, FALSE s'il peut être atteint à moindre coût depuis
+     *         un noeud de rang supérieur
+     */
+    private boolean analyseForwardNode(SearchWorkspace forward, int currentId,
+            boolean withLengths) {
+        float currentDistance = forward.distance(currentId);
+        for (int i = 0; i < hierarchy.downDegree(currentId); i++) {
+            int arcId = hierarchy.downArcId(currentId, i);
+            if (forward.distance(hierarchy.arcSource(arcId))
+                    + hierarchy.arcCost(arcId) < currentDistance)
+                return false;
+        }
+
+        for (int i = 0; i < hierarchy.upDegree(currentId); i++) {
+            int arcId = hierarchy.upArcId(currentId, i);
+            int targetId = hierarchy.arcTarget(arcId);
+            float d = currentDistance + hierarchy.arcCost(arcId);
+            if (d < forward.distance(targetId)) {
+                forward.update(targetId, d, arcId);
+                if (withLengths)
+                    forward.setLength(targetId,
+                            forward.length(currentId) + hierarchy.arcLength(arcId));
+                forward.heap().push(targetId, d);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Méthode permettant d'analyser un noeud de la recherche arrière en parcourant les arcs
+     * descendants qui y arrivent, à moins qu'il puisse atteindre l'arrivée à moindre coût via un
+     * noeud de rang supérieur
+     * 
+     * @param backward    espace de travail de la recherche arrière
+     * @param currentId   identité du noeud en cours d'analyse
+     * @param withLengths TRUE si la longueur des chemins doit être calculée
+     * 
+     * @return TRUE si le noeud a été développé, FALSE s'il peut atteindre l'arrivée à moindre coût
+     *         via un noeud de rang supérieur
+     */
+    private boolean analyseBackwardNode(SearchWorkspace backward, int currentId,
+            boolean withLengths) {
+        float currentDistance = backward.distance(currentId);
+        for (int i = 0; i < hierarchy.upDegree(currentId); i++) {
+            int arcId = hierarchy.upArcId(currentId, i);
+            if (backward.distance(hierarchy.arcTarget(arcId))
+                    + hierarchy.arcCost(arcId) < currentDistance)
+                return false;
+        }
+
+        for (int i = 0; i < hierarchy.downDegree(currentId); i++) {
+            int arcId = hierarchy.downArcId(currentId, i);
+            int sourceId = hierarchy.arcSource(arcId);
+            float d = currentDistance + hierarchy.arcCost(arcId);
+            if (d < backward.distance(sourceId)) {
+                backward.update(sourceId, d, arcId);
+                if (withLengths)
+                    backward.setLength(sourceId,
+                            backward.length(currentId) + hierarchy.arcLength(arcId));
+                backward.heap().push(sourceId, d);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Méthode permettant d'obtenir les entrées de seaux d'un noeud d'arrivée, au moyen d'une
+     * recherche arrière complète dans la hiérarchie
+     * 
+     * @param targetNodeId identité du noeud d'arrivée
+     * 
+     * @return les noeuds développés par la recherche, avec leur coût et la longueur de leur
+     *         chemin jusqu'au noeud d'arrivée
+     */
+    private BucketEntries bucketEntries(int targetNodeId) {
+        SearchWorkspace backward = backwardWorkspaces.get();
+        backward.reset();
+        backward.setDistance(targetNodeId, 0);
+        backward.setLength(targetNodeId, 0);
+        backward.heap().push(targetNodeId, 0);
+
+        int count = 0;
+        int[] nodeIds = new int[INITIAL_BUCKET_CAPACITY];
+        float[] costs = new float[INITIAL_BUCKET_CAPACITY];
+        double[] lengths = new double[INITIAL_BUCKET_CAPACITY];
+        while (!backward.heap().isEmpty()) {
+            int currentId = backward.settleNext();
+            if (!analyseBackwardNode(backward, currentId, true))
+                continue;
+
+            if (count == nodeIds.length) {
+                nodeIds = Arrays.copyOf(nodeIds, 2 * count);
+                costs = Arrays.copyOf(costs, 2 * count);
+                lengths = Arrays.copyOf(lengths, 2 * count);
+            }
+            nodeIds[count] = currentId;
+            costs[count] = backward.distance(currentId);
+            lengths[count] = backward.length(currentId);
+            count++;
+        }
+        return new BucketEntries(Arrays.copyOf(nodeIds, count), Arrays.copyOf(costs, count),
+                Arrays.copyOf(lengths, count));
+    }
+
+    /**
+     * Méthode permettant d'obtenir les arêtes de l'itinéraire en dépliant les arcs des deux
+     * recherches
+     * 
+     * Les raccourcis pouvant être imbriqués très profondément, ils sont dépliés au moyen d'une
+     * pile explicite plutôt que récursivement.
+     * 
+     * @param forward       espace de travail de la recherche avant
+     * @param backward      espace de travail de la recherche arrière
+     * @param startNodeId   identité du noeud de départ
+     * @param endNodeId     identité du noeud d'arrivée
+     * @param meetingNodeId identité du noeud de rencontre des deux recherches
+     * 
+     * @return la liste des arêtes de l'itinéraire
+     */
+    private List<Edge> unpack(SearchWorkspace forward, SearchWorkspace backward,
+            int startNodeId, int endNodeId, int meetingNodeId) {
+        int[] stack = new int[INITIAL_STACK_CAPACITY];
+        int size = 0;
+
+        // arcs de la recherche arrière, ajoutés du noeud de rencontre vers l'arrivée puis
+        // retournés afin que l'arc menant à l'arrivée soit au fond de la pile
+        for (int nodeId = meetingNodeId; nodeId != endNodeId;) {
+            int arcId = backward.predecessor(nodeId);
+            if (size == stack.length)
+                stack = Arrays.copyOf(stack, 2 * size);
+            stack[size++] = arcId;
+            nodeId = hierarchy.arcTarget(arcId);
+        }
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int arcId = stack[i];
+            stack[i] = stack[j];
+            stack[j] = arcId;
+        }
+
+        // arcs de la recherche avant, empilés du noeud de rencontre vers le départ
+        for (int nodeId = meetingNodeId; nodeId != startNodeId;) {
+            int arcId = forward.predecessor(nodeId);
+            if (size == stack.length)
+                stack = Arrays.copyOf(stack, 2 * size);
+            stack[size++] = arcId;
+            nodeId = hierarchy.arcSource(arcId);
+        }
+
+        return unpackArcs(stack, size);
+    }
+
+    /**
+     * Méthode permettant d'obtenir les arêtes correspondant à une suite d'arcs de la hiérarchie,
+     * en dépliant ses raccourcis
+     * 
+     * @param stack pile contenant les arcs, le premier arc de l'itinéraire se trouvant au sommet,
+     *              qui est modifiée et peut être agrandie
+     * @param size  nombre d'arcs de la pile
+     * 
+     * @return la liste des arêtes correspondant aux arcs
+     */
+    private List<Edge> unpackArcs(int[] stack, int size) {
+        List<Edge> edges = new ArrayList<>();
+        while (size > 0) {
+            int arcId = stack[--size];
+            if (hierarchy.isShortcut(arcId)) {
+                if (size + 2 > stack.length)
+                    stack = Arrays.copyOf(stack, 2 * stack.length + 2);
+                stack[size++] = hierarchy.secondArcId(arcId);
+                stack[size++] = hierarchy.firstArcId(arcId);
+            } else
+                edges.add(Edge.of(graph, hierarchy.arcEdgeId(arcId), hierarchy.arcSource(arcId),
+                        hierarchy.arcTarget(arcId)));
+        }
+        return edges;
+    }
+
+    /**
+     * Enregistrement représentant les entrées de seaux déposées par la recherche arrière d'un
+     * noeud d'arrivée
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     * 
+     * @param nodeIds identité des noeuds développés
+     * @param costs   coût depuis chaque noeud jusqu'au noeud d'arrivée
+     * @param lengths longueur du chemin depuis chaque noeud jusqu'au noeud d'arrivée
+     */
+    private record BucketEntries(int[] nodeIds, float[] costs, double[] lengths) {
+    }
+}
@@ -0,0 +1,663 @@
+package ch.epfl.javelo.routing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import ch.epfl.javelo.Preconditions;
+
+/**
+ * Classe représentant un étiquetage par concentrateurs (hub labels) d'un graphe JaVelo, obtenu à
+ * partir de sa hiérarchie de contraction
+ * 
+ * L'étiquette avant d'un noeud contient les noeuds de rang supérieur (concentrateurs) qu'il
+ * atteint de manière optimale par des arcs montants, avec leur coût, et son étiquette arrière
+ * ceux depuis lesquels il est atteint de manière optimale par des arcs descendants. Le coût
+ * minimal entre deux noeuds est le minimum, sur les concentrateurs communs à l'étiquette avant
+ * du départ et à l'étiquette arrière de l'arrivée, de la somme des deux coûts.
+ * 
+ * Les entrées d'une étiquette sont triées par rang et compressées : l'étiquette commence par son
+ * nombre d'entrées, puis chaque entrée contient l'écart de rang avec l'entrée précédente et
+ * l'identité, augmentée de 1, du premier arc vers le concentrateur, encodés en entiers de
+ * longueur variable, ainsi que son coût.
+ * 
+ * Les étiquettes pouvant occuper plus de 2 Go, leur position est un entier de type long et elles
+ * sont réparties en blocs d'au plus CHUNK_BYTES octets, projetés séparément en mémoire. Une
+ * étiquette ne chevauchant jamais deux blocs, la fin d'un bloc peut être inutilisée, raison pour
+ * laquelle la fin d'une étiquette est donnée par son nombre d'entrées et non par la position de
+ * la suivante.
+ * 
+ * Le fichier d'un étiquetage commence par une empreinte du graphe et de la fonction de coût ainsi
+ * que par une somme de contrôle de la hiérarchie dont il est issu, les premiers arcs des
+ * étiquettes n'ayant de sens que pour cette hiérarchie.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class HubLabels {
+    private static final int HEADER_LONGS = 3;
+    private static final int OFFSET_NODE_COUNT = 0;
+    private static final int OFFSET_FINGERPRINT = OFFSET_NODE_COUNT + Long.BYTES;
+    private static final int OFFSET_CHECKSUM = OFFSET_FINGERPRINT + Long.BYTES;
+    private static final int CHUNK_BITS = 30;
+    private static final int CHUNK_BYTES = 1 << CHUNK_BITS;
+    private static final int NO_ARC = -1;
+    private static final int INITIAL_ARC_CAPACITY = 64;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = (1 << VARINT_BITS) - 1;
+    private static final int VARINT_CONTINUE = 1 << VARINT_BITS;
+
+    private final int nodeCount;
+    private final long hierarchyChecksum;
+    private final LongBuffer forwardFirst;
+    private final LongBuffer backwardFirst;
+    private final ByteBuffer[] chunks;
+
+    /**
+     * Construit un étiquetage
+     * 
+     * @param hierarchyChecksum somme de contrôle de la hiérarchie dont l'étiquetage est issu
+     * @param forwardFirst      position de l'étiquette avant de chaque noeud, suivie de la fin
+     *                          des étiquettes avant
+     * @param backwardFirst     position de l'étiquette arrière de chaque noeud, suivie de la fin
+     *                          des étiquettes arrière
+     * @param chunks            blocs contenant les étiquettes compressées
+     */
+    private HubLabels(long hierarchyChecksum, LongBuffer forwardFirst, LongBuffer backwardFirst,
+            ByteBuffer[] chunks) {
+        this.nodeCount = forwardFirst.capacity() - 1;
+        this.hierarchyChecksum = hierarchyChecksum;
+        this.forwardFirst = forwardFirst;
+        this.backwardFirst = backwardFirst;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Méthode permettant de construire l'étiquetage par concentrateurs d'un graphe à partir de sa
+     * hiérarchie de contraction, les coûts étant ceux de la fonction de coût pour laquelle la
+     * hiérarchie a été construite
+     * 
+     * Les étiquettes sont calculées par ordre de rang décroissant : l'étiquette d'un noeud est
+     * obtenue en prolongeant celles des extrémités de ses arcs, puis épurée des concentrateurs
+     * qui peuvent être atteints à moindre coût via un autre concentrateur de l'étiquette.
+     * 
+     * @param hierarchy hiérarchie de contraction du graphe
+     * 
+     * @return l'étiquetage par concentrateurs du graphe
+     */
+    public static HubLabels build(ContractionHierarchy hierarchy) {
+        int nodeCount = hierarchy.nodeCount();
+        int[] nodesByRank = new int[nodeCount];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++)
+            nodesByRank[hierarchy.rank(nodeId)] = nodeId;
+
+        // étiquettes conservées sous forme compressée afin de limiter la mémoire nécessaire
+        byte[][] forward = new byte[nodeCount][];
+        byte[][] backward = new byte[nodeCount][];
+        LabelBuilder builder = new LabelBuilder(nodeCount);
+        for (int rank = nodeCount - 1; rank >= 0; rank--) {
+            int nodeId = nodesByRank[rank];
+
+            builder.start(rank);
+            for (int i = 0; i < hierarchy.upDegree(nodeId); i++) {
+                int arcId = hierarchy.upArcId(nodeId, i);
+                builder.extend(forward[hierarchy.arcTarget(arcId)], hierarchy.arcCost(arcId),
+                        arcId);
+            }
+            forward[nodeId] = builder.finish(backward, nodesByRank);
+
+            builder.start(rank);
+            for (int i = 0; i < hierarchy.downDegree(nodeId); i++) {
+                int arcId = hierarchy.downArcId(nodeId, i);
+                builder.extend(backward[hierarchy.arcSource(arcId)], hierarchy.arcCost(arcId),
+                        arcId);
+            }
+            backward[nodeId] = builder.finish(forward, nodesByRank);
+        }
+
+        long[] forwardFirsts = labelFirsts(forward, 0);
+        long[] backwardFirsts = labelFirsts(backward, forwardFirsts[nodeCount]);
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(backwardFirsts[nodeCount])];
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = ByteBuffer.allocate(chunkSize(backwardFirsts[nodeCount], i));
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            put(chunks, forwardFirsts[nodeId], forward[nodeId]);
+            forward[nodeId] = null;
+        }
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            put(chunks, backwardFirsts[nodeId], backward[nodeId]);
+            backward[nodeId] = null;
+        }
+        return new HubLabels(hierarchy.checksum(), LongBuffer.wrap(forwardFirsts),
+                LongBuffer.wrap(backwardFirsts), chunks);
+    }
+
+    /**
+     * Méthode permettant de charger un étiquetage depuis un fichier, chaque bloc d'étiquettes
+     * étant projeté séparément en mémoire
+     * 
+     * @param path        chemin d'accès du fichier, typiquement placé à côté des fichiers du
+     *                    graphe
+     * @param hierarchy   hiérarchie de contraction dont l'étiquetage doit être issu
+     * @param fingerprint empreinte attendue du graphe et de la fonction de coût avec lesquels
+     *                    l'étiquetage a été calculé
+     * 
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si l'empreinte du fichier n'est pas celle attendue, ou si
+     *                                  l'étiquetage n'est pas issu de la hiérarchie donnée
+     * 
+     * @return l'étiquetage contenu dans le fichier
+     */
+    public static HubLabels loadFrom(Path path, ContractionHierarchy hierarchy, long fingerprint)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            Preconditions.checkArgument(channel.size() >= HEADER_LONGS * Long.BYTES);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    HEADER_LONGS * Long.BYTES);
+            long hierarchyChecksum = header.getLong(OFFSET_CHECKSUM);
+            Preconditions.checkArgument(header.getLong(OFFSET_FINGERPRINT) == fingerprint
+                    && header.getLong(OFFSET_NODE_COUNT) == hierarchy.nodeCount()
+                    && hierarchyChecksum == hierarchy.checksum());
+
+            int nodeCount = hierarchy.nodeCount();
+            long firstsBytes = (long) (nodeCount + 1) * Long.BYTES;
+            long start = HEADER_LONGS * Long.BYTES;
+            LongBuffer forwardFirst = channel
+                    .map(FileChannel.MapMode.READ_ONLY, start, firstsBytes).asLongBuffer();
+            start += firstsBytes;
+            LongBuffer backwardFirst = channel
+                    .map(FileChannel.MapMode.READ_ONLY, start, firstsBytes).asLongBuffer();
+            start += firstsBytes;
+
+            long labelBytes = backwardFirst.get(nodeCount);
+            ByteBuffer[] chunks = new ByteBuffer[chunkCount(labelBytes)];
+            for (int i = 0; i < chunks.length; i++)
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        start + ((long) i << CHUNK_BITS), chunkSize(labelBytes, i));
+            return new HubLabels(hierarchyChecksum, forwardFirst, backwardFirst, chunks);
+        }
+    }
+
+    /**
+     * Méthode permettant d'enregistrer l'étiquetage dans un fichier, qui contient le nombre de
+     * noeuds, l'empreinte donnée, la somme de contrôle de la hiérarchie, la position de
+     * l'étiquette avant puis arrière de chaque noeud, et enfin les blocs d'étiquettes, écrits
+     * l'un après l'autre sans être copiés
+     * 
+     * @param path        chemin d'accès du fichier
+     * @param fingerprint empreinte du graphe et de la fonction de coût avec lesquels l'étiquetage
+     *                    a été calculé
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path path, long fingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LONGS * Long.BYTES);
+            header.putLong(OFFSET_NODE_COUNT, nodeCount)
+                    .putLong(OFFSET_FINGERPRINT, fingerprint)
+                    .putLong(OFFSET_CHECKSUM, hierarchyChecksum);
+            write(channel, header);
+            for (LongBuffer firsts : new LongBuffer[] { forwardFirst, backwardFirst }) {
+                ByteBuffer buffer = ByteBuffer.allocate(firsts.capacity() * Long.BYTES);
+                buffer.asLongBuffer().put(firsts.duplicate().clear());
+                write(channel, buffer);
+            }
+            for (ByteBuffer chunk : chunks)
+                write(channel, chunk.duplicate().clear());
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds de l'étiquetage
+     * 
+     * @return le nombre de noeuds
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Méthode permettant de savoir si l'étiquetage est issu d'une hiérarchie de contraction
+     * 
+     * @param hierarchy hiérarchie de contraction
+     * 
+     * @return TRUE si l'étiquetage a été construit à partir de la hiérarchie, sinon FALSE
+     */
+    boolean isBuiltFrom(ContractionHierarchy hierarchy) {
+        return hierarchy.nodeCount() == nodeCount && hierarchy.checksum() == hierarchyChecksum;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la taille totale des étiquettes compressées
+     * 
+     * @return la taille des étiquettes avant et arrière, fins de blocs inutilisées comprises, en
+     *         octets
+     */
+    public long labelBytes() {
+        return backwardFirst.get(nodeCount);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût de l'itinéraire de coût minimal entre deux noeuds,
+     * sans le construire
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return le coût de l'itinéraire, ou l'infini positif s'il n'en existe pas
+     */
+    public float cost(int startNodeId, int endNodeId) {
+        return Float.intBitsToFloat(bestHub(startNodeId, endNodeId)[1]);
+    }
+
+    /**
+     * Méthode permettant d'obtenir les arcs de la hiérarchie formant l'itinéraire de coût minimal
+     * entre deux noeuds, les raccourcis n'étant pas dépliés
+     * 
+     * @param hierarchy   hiérarchie de contraction à partir de laquelle l'étiquetage a été
+     *                    construit
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return l'identité des arcs de l'itinéraire dans l'ordre inverse, le dernier arc se
+     *         trouvant au début du tableau, ou null s'il n'en existe pas
+     */
+    int[] arcsBetween(ContractionHierarchy hierarchy, int startNodeId, int endNodeId) {
+        int hubRank = bestHub(startNodeId, endNodeId)[0];
+        if (hubRank == NO_ARC)
+            return null;
+
+        // arcs arrière, de l'arrivée vers le concentrateur, suivis des arcs avant, ajoutés du
+        // départ vers le concentrateur puis retournés
+        int[] arcs = new int[INITIAL_ARC_CAPACITY];
+        int size = 0;
+        int arcId = firstArc(backwardFirst, endNodeId, hubRank);
+        while (arcId != NO_ARC) {
+            if (size == arcs.length)
+                arcs = Arrays.copyOf(arcs, 2 * size);
+            arcs[size++] = arcId;
+            arcId = firstArc(backwardFirst, hierarchy.arcSource(arcId), hubRank);
+        }
+        int backwardSize = size;
+        arcId = firstArc(forwardFirst, startNodeId, hubRank);
+        while (arcId != NO_ARC) {
+            if (size == arcs.length)
+                arcs = Arrays.copyOf(arcs, 2 * size);
+            arcs[size++] = arcId;
+            arcId = firstArc(forwardFirst, hierarchy.arcTarget(arcId), hubRank);
+        }
+        for (int i = backwardSize, j = size - 1; i < j; i++, j--) {
+            arcId = arcs[i];
+            arcs[i] = arcs[j];
+            arcs[j] = arcId;
+        }
+        return Arrays.copyOf(arcs, size);
+    }
+
+    /**
+     * Méthode permettant de trouver le concentrateur commun à l'étiquette avant du départ et à
+     * l'étiquette arrière de l'arrivée minimisant le coût total
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return un tableau contenant le rang du concentrateur, ou -1 s'il n'y en a pas, et la
+     *         représentation binaire du coût total
+     */
+    private int[] bestHub(int startNodeId, int endNodeId) {
+        LabelReader f = reader(forwardFirst, startNodeId);
+        LabelReader b = reader(backwardFirst, endNodeId);
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestRank = NO_ARC;
+
+        boolean hasF = f.next();
+        boolean hasB = b.next();
+        while (hasF && hasB) {
+            if (f.rank < b.rank)
+                hasF = f.next();
+            else if (f.rank > b.rank)
+                hasB = b.next();
+            else {
+                float cost = f.cost + b.cost;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestRank = f.rank;
+                }
+                hasF = f.next();
+                hasB = b.next();
+            }
+        }
+        return new int[] { bestRank, Float.floatToIntBits(bestCost) };
+    }
+
+    /**
+     * Méthode permettant d'obtenir le premier arc du chemin menant d'un noeud à un concentrateur
+     * de son étiquette (ou l'inverse pour une étiquette arrière)
+     * 
+     * @param firsts  position de l'étiquette de chaque noeud
+     * @param nodeId  identité du noeud
+     * @param hubRank rang du concentrateur, qui doit faire partie de l'étiquette
+     * 
+     * @throws IllegalStateException si le concentrateur ne fait pas partie de l'étiquette, ce
+     *                               qui n'arrive que si l'étiquetage n'est pas issu de la
+     *                               hiérarchie parcourue
+     * 
+     * @return l'identité de l'arc, ou -1 si le noeud est le concentrateur lui-même
+     */
+    private int firstArc(LongBuffer firsts, int nodeId, int hubRank) {
+        LabelReader reader = reader(firsts, nodeId);
+        do {
+            if (!reader.next())
+                throw new IllegalStateException();
+        } while (reader.rank < hubRank);
+        if (reader.rank != hubRank)
+            throw new IllegalStateException();
+        return reader.arcId;
+    }
+
+    /**
+     * Méthode permettant d'obtenir un lecteur de l'étiquette d'un noeud, au sein du bloc qui la
+     * contient
+     * 
+     * @param firsts position de l'étiquette de chaque noeud
+     * @param nodeId identité du noeud
+     * 
+     * @return le lecteur de l'étiquette du noeud
+     */
+    private LabelReader reader(LongBuffer firsts, int nodeId) {
+        long first = firsts.get(nodeId);
+        return new LabelReader(chunks[(int) (first >>> CHUNK_BITS)],
+                (int) (first & (CHUNK_BYTES - 1)));
+    }
+
+    /**
+     * Méthode permettant de calculer la position de l'étiquette compressée de chaque noeud, une
+     * étiquette qui chevaucherait deux blocs étant placée au début du bloc suivant
+     * 
+     * @param labels étiquettes compressées de chaque noeud
+     * @param start  position de la première étiquette
+     * 
+     * @throws IllegalArgumentException si une étiquette dépasse la taille d'un bloc
+     * 
+     * @return la position de chaque étiquette, suivie de la fin de la dernière étiquette
+     */
+    private static long[] labelFirsts(byte[][] labels, long start) {
+        long[] firsts = new long[labels.length + 1];
+        firsts[0] = start;
+        for (int nodeId = 0; nodeId < labels.length; nodeId++) {
+            int length = labels[nodeId].length;
+            Preconditions.checkArgument(length <= CHUNK_BYTES);
+            long first = firsts[nodeId];
+            if ((first & (CHUNK_BYTES - 1)) + length > CHUNK_BYTES)
+                firsts[nodeId] = first = ((first >>> CHUNK_BITS) + 1) << CHUNK_BITS;
+            firsts[nodeId + 1] = first + length;
+        }
+        return firsts;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de blocs nécessaires à des étiquettes
+     * 
+     * @param labelBytes taille totale des étiquettes, en octets
+     * 
+     * @return le nombre de blocs
+     */
+    private static int chunkCount(long labelBytes) {
+        return (int) ((labelBytes + CHUNK_BYTES - 1) >>> CHUNK_BITS);
+    }
+
+    /**
+     * Méthode permettant d'obtenir la taille d'un bloc, seul le dernier pouvant être plus petit
+     * que CHUNK_BYTES
+     * 
+     * @param labelBytes taille totale des étiquettes, en octets
+     * @param chunk      index du bloc
+     * 
+     * @return la taille du bloc, en octets
+     */
+    private static int chunkSize(long labelBytes, int chunk) {
+        return (int) Math.min(CHUNK_BYTES, labelBytes - ((long) chunk << CHUNK_BITS));
+    }
+
+    /**
+     * Méthode permettant de placer une étiquette compressée dans son bloc
+     * 
+     * @param chunks blocs des étiquettes
+     * @param first  position de l'étiquette, qui ne chevauche pas deux blocs
+     * @param label  étiquette compressée
+     */
+    private static void put(ByteBuffer[] chunks, long first, byte[] label) {
+        chunks[(int) (first >>> CHUNK_BITS)].put((int) (first & (CHUNK_BYTES - 1)), label);
+    }
+
+    /**
+     * Méthode permettant d'écrire entièrement une mémoire tampon dans un canal
+     * 
+     * @param channel canal de sortie
+     * @param buffer  mémoire tampon à écrire
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Classe permettant de construire l'étiquette d'un noeud à partir de celles de ses voisins de
+     * rang supérieur
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     */
+    private static final class LabelBuilder {
+        private final float[] costs;
+        private final int[] arcIds;
+        private int[] ranks;
+        private int size;
+        private int ownRank;
+
+        /**
+         * Construit un constructeur d'étiquettes pour le nombre de noeuds donné
+         * 
+         * @param nodeCount nombre total de noeuds
+         */
+        private LabelBuilder(int nodeCount) {
+            this.costs = new float[nodeCount];
+            this.arcIds = new int[nodeCount];
+            this.ranks = new int[nodeCount];
+            Arrays.fill(costs, Float.POSITIVE_INFINITY);
+        }
+
+        /**
+         * Méthode permettant de commencer l'étiquette d'un noeud, qui est son propre concentrateur
+         * 
+         * @param rank rang du noeud
+         */
+        private void start(int rank) {
+            size = 0;
+            ownRank = rank;
+            add(rank, 0, NO_ARC);
+        }
+
+        /**
+         * Méthode permettant de prolonger l'étiquette d'un voisin par l'arc y menant
+         * 
+         * @param label étiquette compressée du voisin
+         * @param cost  coût de l'arc
+         * @param arcId identité de l'arc
+         */
+        private void extend(byte[] label, float cost, int arcId) {
+            LabelReader reader = new LabelReader(label);
+            while (reader.next())
+                add(reader.rank, cost + reader.cost, arcId);
+        }
+
+        /**
+         * Méthode permettant de terminer l'étiquette en retirant les concentrateurs pouvant être
+         * atteints à moindre coût via un autre concentrateur de l'étiquette, puis de la
+         * compresser
+         * 
+         * @param opposite    étiquettes opposées compressées des noeuds de rang supérieur
+         * @param nodesByRank identité du noeud de chaque rang
+         * 
+         * @return l'étiquette compressée
+         */
+        private byte[] finish(byte[][] opposite, int[] nodesByRank) {
+            Arrays.sort(ranks, 0, size);
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            int entryCount = 0;
+            int previousRank = 0;
+            for (int i = 0; i < size; i++) {
+                int rank = ranks[i];
+                float cost = costs[rank];
+                if (rank != ownRank && isDominated(opposite[nodesByRank[rank]], cost))
+                    continue;
+
+                writeVarint(stream, rank - previousRank);
+                writeVarint(stream, arcIds[rank] + 1);
+                int bits = Float.floatToIntBits(cost);
+                for (int shift = Integer.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE)
+                    stream.write(bits >>> shift);
+                previousRank = rank;
+                entryCount++;
+            }
+            for (int i = 0; i < size; i++)
+                costs[ranks[i]] = Float.POSITIVE_INFINITY;
+
+            ByteArrayOutputStream label = new ByteArrayOutputStream(stream.size() + Integer.BYTES);
+            writeVarint(label, entryCount);
+            label.writeBytes(stream.toByteArray());
+            return label.toByteArray();
+        }
+
+        /**
+         * Méthode permettant d'ajouter un concentrateur à l'étiquette, ou de diminuer son coût
+         * s'il s'y trouve déjà avec un coût supérieur
+         * 
+         * @param rank  rang du concentrateur
+         * @param cost  coût jusqu'au concentrateur
+         * @param arcId premier arc vers le concentrateur
+         */
+        private void add(int rank, float cost, int arcId) {
+            if (costs[rank] == Float.POSITIVE_INFINITY) {
+                if (size == ranks.length)
+                    ranks = Arrays.copyOf(ranks, 2 * size);
+                ranks[size++] = rank;
+            } else if (cost >= costs[rank])
+                return;
+            costs[rank] = cost;
+            arcIds[rank] = arcId;
+        }
+
+        /**
+         * Méthode permettant de savoir si un concentrateur peut être atteint à moindre coût via un
+         * autre concentrateur de l'étiquette en cours de construction
+         * 
+         * @param hubLabel étiquette opposée compressée du concentrateur
+         * @param cost     coût jusqu'au concentrateur selon l'étiquette
+         * 
+         * @return TRUE s'il existe un chemin de coût strictement inférieur, sinon FALSE
+         */
+        private boolean isDominated(byte[] hubLabel, float cost) {
+            LabelReader reader = new LabelReader(hubLabel);
+            while (reader.next()) {
+                if (costs[reader.rank] + reader.cost < cost)
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * Méthode permettant d'écrire un entier positif en utilisant 7 bits par octet, le bit de
+         * poids fort indiquant qu'un octet suit
+         * 
+         * @param stream flot de sortie
+         * @param value  entier positif à écrire
+         */
+        private static void writeVarint(ByteArrayOutputStream stream, int value) {
+            while (value >= VARINT_CONTINUE) {
+                stream.write((value & VARINT_MASK) | VARINT_CONTINUE);
+                value >>>= VARINT_BITS;
+            }
+            stream.write(value);
+        }
+    }
+
+    /**
+     * Classe permettant de parcourir une étiquette compressée
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     */
+    private static final class LabelReader {
+        private final ByteBuffer labels;
+        private int remaining;
+        private int position;
+        private int rank;
+        private int arcId;
+        private float cost;
+
+        /**
+         * Construit un lecteur d'une étiquette située dans un bloc
+         * 
+         * @param labels bloc d'étiquettes compressées
+         * @param start  position du début de l'étiquette dans le bloc
+         */
+        private LabelReader(ByteBuffer labels, int start) {
+            this.labels = labels;
+            this.position = start;
+            this.remaining = readVarint();
+            this.arcId = NO_ARC;
+        }
+
+        /**
+         * Construit un lecteur d'une étiquette compressée isolée
+         * 
+         * @param label étiquette compressée
+         */
+        private LabelReader(byte[] label) {
+            this(ByteBuffer.wrap(label), 0);
+        }
+
+        /**
+         * Méthode permettant de lire l'entrée suivante de l'étiquette
+         * 
+         * @return TRUE si une entrée a été lue, FALSE si l'étiquette est terminée
+         */
+        private boolean next() {
+            if (remaining == 0)
+                return false;
+            remaining--;
+            rank += readVarint();
+            arcId = readVarint() - 1;
+            cost = labels.getFloat(position);
+            position += Float.BYTES;
+            return true;
+        }
+
+        /**
+         * Méthode permettant de lire un entier positif écrit par writeVarint
+         * 
+         * @return l'entier lu
+         */
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = labels.get(position++);
+                value |= (b & VARINT_MASK) << shift;
+                shift += VARINT_BITS;
+            } while ((b & VARINT_CONTINUE) != 0);
+            return value;
+        }
+    }
+}
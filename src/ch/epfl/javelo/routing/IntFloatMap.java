@@ -0,0 +1,129 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+/**
+ * Classe représentant une table associative d'entiers positifs ou nuls vers des nombres à
+ * virgule flottante, à adressage ouvert et sondage linéaire, sans objets intermédiaires
+ * 
+ * Les entrées ne pouvant pas être supprimées, seules sont proposées l'association d'une valeur à
+ * une clef et la suppression de toutes les entrées.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class IntFloatMap {
+    private static final int EMPTY_KEY = -1;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+    private final float missingValue;
+    private int[] keys;
+    private float[] values;
+    private int shift;
+    private int size;
+
+    /**
+     * Construit une table vide
+     * 
+     * @param missingValue valeur associée aux clefs absentes de la table
+     */
+    IntFloatMap(float missingValue) {
+        this.missingValue = missingValue;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre d'entrées de la table
+     * 
+     * @return le nombre d'entrées de la table
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la valeur associée à une clef
+     * 
+     * @param key clef, positive ou nulle
+     * 
+     * @return la valeur associée à la clef, ou la valeur des clefs absentes
+     */
+    float get(int key) {
+        int slot = (key * HASH_MULTIPLIER) >>> shift;
+        while (true) {
+            int k = keys[slot];
+            if (k == key)
+                return values[slot];
+            if (k == EMPTY_KEY)
+                return missingValue;
+            slot = (slot + 1) & (keys.length - 1);
+        }
+    }
+
+    /**
+     * Méthode permettant d'associer une valeur à une clef, la capacité de la table étant doublée
+     * lorsqu'elle est à moitié pleine
+     * 
+     * @param key   clef, positive ou nulle
+     * @param value valeur à associer à la clef
+     */
+    void put(int key, float value) {
+        int slot = (key * HASH_MULTIPLIER) >>> shift;
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY_KEY) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    put(key, value);
+                    return;
+                }
+                keys[slot] = key;
+                size++;
+                break;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Méthode permettant de supprimer toutes les entrées de la table, en un temps proportionnel à
+     * sa capacité, celle-ci étant ramenée à sa valeur initiale si elle dépasse
+     * MAX_RETAINED_CAPACITY afin qu'une recherche exceptionnellement étendue ne retienne pas la
+     * mémoire
+     */
+    void clear() {
+        if (keys.length > MAX_RETAINED_CAPACITY)
+            allocate(INITIAL_CAPACITY);
+        else
+            Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+    }
+
+    /**
+     * Méthode permettant de doubler la capacité de la table en y réinsérant toutes ses entrées
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        allocate(2 * oldKeys.length);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY)
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    /**
+     * Méthode permettant d'allouer des tableaux vides d'une capacité donnée
+     * 
+     * @param capacity capacité, qui doit être une puissance de deux
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new float[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        Arrays.fill(keys, EMPTY_KEY);
+    }
+}
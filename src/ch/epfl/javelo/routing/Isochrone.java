@@ -0,0 +1,144 @@
+package ch.epfl.javelo.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.projection.PointCh;
+
+/**
+ * Classe représentant la zone atteignable depuis un noeud de départ sans dépasser un budget,
+ * c.-à-d. les noeuds et les arêtes atteignables ainsi que le coût et la longueur des chemins de
+ * coût minimal qui y mènent
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class Isochrone {
+    private final Graph graph;
+    private final int[] nodeIds;
+    private final float[] costs;
+    private final double[] lengths;
+    private final int[] edgeIds;
+
+    /**
+     * Énumération représentant les types de budget d'une zone atteignable
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     */
+    public enum BudgetKind {
+        /**
+         * Budget exprimé en coût, c.-à-d. en longueur pondérée par la fonction de coût
+         */
+        COST,
+
+        /**
+         * Budget exprimé en mètres, le long des chemins de coût minimal
+         */
+        LENGTH
+    }
+
+    /**
+     * Construit une zone atteignable
+     * 
+     * @param graph   graphe JaVelo
+     * @param nodeIds identité des noeuds atteignables, dans l'ordre croissant de leur coût
+     * @param costs   coût du chemin menant à chaque noeud
+     * @param lengths longueur du chemin menant à chaque noeud
+     * @param edgeIds identité des arêtes de coût fini partant d'un noeud atteignable et pouvant
+     *                être parcourues en entier sans dépasser le budget
+     */
+    Isochrone(Graph graph, int[] nodeIds, float[] costs, double[] lengths, int[] edgeIds) {
+        this.graph = graph;
+        this.nodeIds = nodeIds;
+        this.costs = costs;
+        this.lengths = lengths;
+        this.edgeIds = edgeIds;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité des noeuds atteignables
+     * 
+     * @return l'identité des noeuds atteignables, dans l'ordre croissant de leur coût
+     */
+    public int[] nodeIds() {
+        return nodeIds.clone();
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût des chemins menant aux noeuds atteignables
+     * 
+     * @return le coût du chemin menant à chaque noeud, dans l'ordre de nodeIds
+     */
+    public float[] costs() {
+        return costs.clone();
+    }
+
+    /**
+     * Méthode permettant d'obtenir la longueur des chemins menant aux noeuds atteignables
+     * 
+     * @return la longueur en mètres du chemin menant à chaque noeud, dans l'ordre de nodeIds
+     */
+    public double[] lengths() {
+        return lengths.clone();
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité des arêtes atteignables
+     * 
+     * @return l'identité des arêtes de coût fini pouvant être parcourues en entier sans dépasser
+     *         le budget
+     */
+    public int[] edgeIds() {
+        return edgeIds.clone();
+    }
+
+    /**
+     * Méthode permettant d'obtenir le contour de la zone atteignable, c.-à-d. l'enveloppe
+     * convexe de ses noeuds
+     * 
+     * @return les sommets du contour dans le sens inverse des aiguilles d'une montre, ou la liste
+     *         des noeuds eux-mêmes s'il y en a moins de trois
+     */
+    public List<PointCh> outline() {
+        PointCh[] points = new PointCh[nodeIds.length];
+        for (int i = 0; i < nodeIds.length; i++)
+            points[i] = graph.nodePoint(nodeIds[i]);
+        Arrays.sort(points, Comparator.comparingDouble(PointCh::e).thenComparingDouble(PointCh::n));
+        if (points.length < 3)
+            return List.of(points);
+
+        // algorithme de la chaîne monotone : partie inférieure puis partie supérieure
+        List<PointCh> hull = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++) {
+            int lowerSize = hull.size();
+            for (int i = 0; i < points.length; i++) {
+                PointCh point = points[pass == 0 ? i : points.length - 1 - i];
+                while (hull.size() >= lowerSize + 2 && cross(hull.get(hull.size() - 2),
+                        hull.get(hull.size() - 1), point) <= 0)
+                    hull.remove(hull.size() - 1);
+                hull.add(point);
+            }
+            // le dernier point de chaque partie est le premier de l'autre
+            hull.remove(hull.size() - 1);
+        }
+        return List.copyOf(hull);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le produit vectoriel des vecteurs OA et OB
+     * 
+     * @param o origine des deux vecteurs
+     * @param a extrémité du premier vecteur
+     * @param b extrémité du second vecteur
+     * 
+     * @return le produit vectoriel, positif si O, A et B tournent dans le sens inverse des
+     *         aiguilles d'une montre
+     */
+    private static double cross(PointCh o, PointCh a, PointCh b) {
+        return (a.e() - o.e()) * (b.n() - o.n()) - (a.n() - o.n()) * (b.e() - o.e());
+    }
+}
@@ -0,0 +1,225 @@
+package ch.epfl.javelo.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant l'heuristique des points de repère (ALT), qui borne inférieurement le coût
+ * d'un itinéraire au moyen de l'inégalité triangulaire et des coûts pré-calculés entre chaque
+ * noeud et quelques noeuds de repère
+ * 
+ * Pour chaque repère L, on a c(v, t) >= c(L, t) - c(L, v) et c(v, t) >= c(v, L) - c(t, L). Ces
+ * bornes étant calculées avec la fonction de coût elle-même, elles sont admissibles et cohérentes
+ * pour cette fonction de coût, et seulement pour elle. Le fichier de l'heuristique commence donc
+ * par une empreinte du graphe et de la fonction de coût avec lesquels elle a été calculée, afin
+ * qu'une heuristique calculée à partir d'autres données ne soit pas utilisée.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class LandmarkHeuristic implements Heuristic {
+    private static final int FINGERPRINT_BYTES = Long.BYTES;
+    private static final int HEADER_INTS = 2;
+    private static final int DISTANCES_PER_LANDMARK = 2;
+    private static final int OFFSET_FROM_LANDMARK = 0;
+    private static final int OFFSET_TO_LANDMARK = 1;
+
+    private final int nodeCount;
+    private final int landmarkCount;
+    private final IntBuffer landmarkIds;
+    private final IntBuffer distances;
+
+    /**
+     * Construit une heuristique des points de repère à partir d'une mémoire tampon au format
+     * décrit par writeTo
+     * 
+     * @param buffer mémoire tampon contenant l'heuristique
+     */
+    private LandmarkHeuristic(IntBuffer buffer) {
+        this.nodeCount = buffer.get(0);
+        this.landmarkCount = buffer.get(1);
+        this.landmarkIds = buffer.slice(HEADER_INTS, landmarkCount);
+        this.distances = buffer.slice(HEADER_INTS + landmarkCount,
+                nodeCount * landmarkCount * DISTANCES_PER_LANDMARK);
+    }
+
+    /**
+     * Méthode permettant de construire l'heuristique des points de repère d'un graphe
+     * 
+     * Les repères sont choisis selon la méthode dite « avoid » : chaque nouveau repère est placé
+     * au bout de la branche d'un arbre des plus courts chemins le long de laquelle les repères
+     * déjà choisis donnent les moins bonnes bornes. Le premier repère est le noeud le plus
+     * éloigné d'un noeud tiré au hasard. Ce pré-calcul est destiné à être effectué hors ligne,
+     * son résultat étant ensuite enregistré au moyen de writeTo.
+     * 
+     * @param graph         graphe JaVelo
+     * @param costFunction  fonction de coût pour laquelle l'heuristique doit être admissible
+     * @param landmarkCount nombre de repères
+     * 
+     * @throws IllegalArgumentException si le nombre de repères n'est pas strictement positif ou
+     *                                  dépasse le nombre de noeuds du graphe
+     * 
+     * @return l'heuristique des points de repère du graphe
+     */
+    public static LandmarkHeuristic build(Graph graph, CostFunction costFunction,
+            int landmarkCount) {
+        Preconditions.checkArgument(landmarkCount > 0 && landmarkCount <= graph.nodeCount());
+        return new LandmarkSelector(graph, costFunction).select(landmarkCount);
+    }
+
+    /**
+     * Méthode permettant de charger une heuristique des points de repère depuis un fichier
+     * 
+     * @param path        chemin d'accès du fichier, typiquement placé à côté des fichiers du
+     *                    graphe
+     * @param graph       graphe JaVelo
+     * @param fingerprint empreinte attendue du graphe et de la fonction de coût avec lesquels
+     *                    l'heuristique a été calculée
+     * 
+     * @throws IOException              en cas d'erreur d'entrée/sortie
+     * @throws IllegalArgumentException si l'empreinte du fichier n'est pas celle attendue, ou si
+     *                                  l'heuristique ne possède pas le même nombre de noeuds que
+     *                                  le graphe
+     * 
+     * @return l'heuristique contenue dans le fichier
+     */
+    public static LandmarkHeuristic loadFrom(Path path, Graph graph, long fingerprint)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            Preconditions.checkArgument(
+                    channel.size() >= FINGERPRINT_BYTES + HEADER_INTS * Integer.BYTES);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Preconditions.checkArgument(buffer.getLong(0) == fingerprint
+                    && buffer.getInt(FINGERPRINT_BYTES) == graph.nodeCount());
+            return new LandmarkHeuristic(buffer.slice(FINGERPRINT_BYTES,
+                    buffer.capacity() - FINGERPRINT_BYTES).asIntBuffer());
+        }
+    }
+
+    /**
+     * Méthode permettant d'enregistrer l'heuristique dans un fichier
+     * 
+     * Le fichier contient l'empreinte donnée, le nombre de noeuds, le nombre de repères,
+     * l'identité des repères puis, pour chaque noeud et chaque repère, le coût depuis le repère et
+     * le coût jusqu'au repère.
+     * 
+     * @param path        chemin d'accès du fichier
+     * @param fingerprint empreinte du graphe et de la fonction de coût avec lesquels l'heuristique
+     *                    a été calculée
+     * 
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    public void writeTo(Path path, long fingerprint) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(FINGERPRINT_BYTES
+                + (HEADER_INTS + landmarkIds.capacity() + distances.capacity()) * Integer.BYTES);
+        buffer.putLong(fingerprint).asIntBuffer().put(nodeCount).put(landmarkCount)
+                .put(landmarkIds.duplicate().clear()).put(distances.duplicate().clear());
+        buffer.rewind();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds du graphe de l'heuristique
+     * 
+     * @return le nombre de noeuds
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de repères
+     * 
+     * @return le nombre de repères
+     */
+    public int landmarkCount() {
+        return landmarkCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité d'un repère
+     * 
+     * @param landmarkIndex index du repère
+     * 
+     * @return l'identité du noeud servant de repère
+     */
+    public int landmarkNodeId(int landmarkIndex) {
+        return landmarkIds.get(landmarkIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float lowerBound(int nodeId, int targetNodeId) {
+        float bound = 0;
+        int nodeIndex = nodeId * landmarkCount * DISTANCES_PER_LANDMARK;
+        int targetIndex = targetNodeId * landmarkCount * DISTANCES_PER_LANDMARK;
+
+        for (int i = 0; i < landmarkCount * DISTANCES_PER_LANDMARK; i += DISTANCES_PER_LANDMARK) {
+            // c(v, t) >= c(L, t) - c(L, v), infinie si t n'est pas atteignable depuis L
+            float fromLandmark = distance(nodeIndex + i + OFFSET_FROM_LANDMARK);
+            if (fromLandmark != Float.POSITIVE_INFINITY)
+                bound = Math.max(bound,
+                        distance(targetIndex + i + OFFSET_FROM_LANDMARK) - fromLandmark);
+
+            // c(v, t) >= c(v, L) - c(t, L), infinie si L n'est pas atteignable depuis v
+            float targetToLandmark = distance(targetIndex + i + OFFSET_TO_LANDMARK);
+            if (targetToLandmark != Float.POSITIVE_INFINITY)
+                bound = Math.max(bound,
+                        distance(nodeIndex + i + OFFSET_TO_LANDMARK) - targetToLandmark);
+        }
+        return bound;
+    }
+
+    /**
+     * Méthode permettant d'obtenir un coût stocké dans la mémoire tampon des coûts
+     * 
+     * @param index index du coût
+     * 
+     * @return le coût
+     */
+    private float distance(int index) {
+        return Float.intBitsToFloat(distances.get(index));
+    }
+
+    /**
+     * Méthode permettant de construire une heuristique des points de repère à partir des coûts
+     * calculés pour chaque repère
+     * 
+     * @param landmarkIds   identité de chaque repère
+     * @param fromLandmarks coût depuis chaque repère jusqu'à chaque noeud
+     * @param toLandmarks   coût depuis chaque noeud jusqu'à chaque repère
+     * 
+     * @return l'heuristique des points de repère
+     */
+    static LandmarkHeuristic of(int[] landmarkIds, float[][] fromLandmarks,
+            float[][] toLandmarks) {
+        int landmarkCount = landmarkIds.length;
+        int nodeCount = fromLandmarks[0].length;
+
+        IntBuffer buffer = IntBuffer.allocate(
+                HEADER_INTS + landmarkCount + nodeCount * landmarkCount * DISTANCES_PER_LANDMARK);
+        buffer.put(nodeCount).put(landmarkCount).put(landmarkIds);
+        // les coûts d'un même noeud sont contigus, afin qu'une borne ne lise qu'une zone mémoire
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            for (int i = 0; i < landmarkCount; i++) {
+                buffer.put(Float.floatToIntBits(fromLandmarks[i][nodeId]))
+                        .put(Float.floatToIntBits(toLandmarks[i][nodeId]));
+            }
+        }
+        return new LandmarkHeuristic(buffer.clear());
+    }
+}
@@ -0,0 +1,252 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe permettant de choisir les repères d'une heuristique des points de repère et de calculer
+ * leurs coûts depuis et jusqu'à chaque noeud du graphe
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class LandmarkSelector {
+    private static final long SEED = 2022;
+    private static final int MAX_ROOT_ATTEMPTS = 16;
+    private static final int NO_NODE = -1;
+
+    private final Graph graph;
+    private final CostFunction costFunction;
+    private final int nodeCount;
+    private final NodeHeap heap;
+    private final Random random;
+    private int settledCount;
+
+    /**
+     * Construit un sélectionneur de repères pour le graphe et la fonction de coût donnés
+     * 
+     * @param graph        graphe JaVelo
+     * @param costFunction fonction de coût
+     */
+    LandmarkSelector(Graph graph, CostFunction costFunction) {
+        this.graph = graph;
+        this.costFunction = costFunction;
+        this.nodeCount = graph.nodeCount();
+        this.heap = new NodeHeap(nodeCount);
+        this.random = new Random(SEED);
+    }
+
+    /**
+     * Méthode permettant de choisir les repères et de construire l'heuristique correspondante
+     * 
+     * @param landmarkCount nombre de repères
+     * 
+     * @return l'heuristique des points de repère
+     */
+    LandmarkHeuristic select(int landmarkCount) {
+        int[] landmarkIds = new int[landmarkCount];
+        float[][] fromLandmarks = new float[landmarkCount][];
+        float[][] toLandmarks = new float[landmarkCount][];
+        boolean[] isLandmark = new boolean[nodeCount];
+
+        int[] predecessors = new int[nodeCount];
+        int[] order = new int[nodeCount];
+        for (int k = 0; k < landmarkCount; k++) {
+            int rootId = largestTreeRoot(predecessors, order);
+            float[] rootDistances = distances(rootId, false, predecessors, order);
+            int rootSettledCount = settledCount;
+
+            int landmarkId = k == 0 ? NO_NODE
+                    : avoidLandmark(rootId, rootDistances, predecessors, order, rootSettledCount,
+                            isLandmark, fromLandmarks, toLandmarks, k);
+            if (landmarkId == NO_NODE)
+                landmarkId = farthestNode(rootDistances, order, rootSettledCount, isLandmark);
+
+            landmarkIds[k] = landmarkId;
+            isLandmark[landmarkId] = true;
+            fromLandmarks[k] = distances(landmarkId, false, null, null);
+            toLandmarks[k] = distances(landmarkId, true, null, null);
+        }
+        return LandmarkHeuristic.of(landmarkIds, fromLandmarks, toLandmarks);
+    }
+
+    /**
+     * Méthode permettant de tirer au hasard la racine d'un arbre des plus courts chemins, en
+     * préférant les noeuds depuis lesquels la plus grande partie du graphe est atteignable
+     * 
+     * @param predecessors tableau des prédécesseurs, utilisé comme espace de travail
+     * @param order        tableau de l'ordre de visite, utilisé comme espace de travail
+     * 
+     * @return l'identité de la racine
+     */
+    private int largestTreeRoot(int[] predecessors, int[] order) {
+        int bestRootId = random.nextInt(nodeCount);
+        int bestSettledCount = 0;
+        for (int attempt = 0; attempt < MAX_ROOT_ATTEMPTS; attempt++) {
+            int rootId = attempt == 0 ? bestRootId : random.nextInt(nodeCount);
+            distances(rootId, false, predecessors, order);
+            if (settledCount > bestSettledCount) {
+                bestRootId = rootId;
+                bestSettledCount = settledCount;
+            }
+            if (2 * bestSettledCount >= nodeCount)
+                break;
+        }
+        return bestRootId;
+    }
+
+    /**
+     * Méthode permettant de choisir un repère selon la méthode « avoid »
+     * 
+     * Chaque noeud de l'arbre des plus courts chemins issu de la racine est pondéré par l'écart
+     * entre son coût depuis la racine et la borne obtenue avec les repères déjà choisis. Le poids
+     * d'un sous-arbre est la somme des poids de ses noeuds, ou 0 s'il contient un repère. Le
+     * nouveau repère est la feuille atteinte en descendant depuis la racine vers le sous-arbre le
+     * plus lourd.
+     * 
+     * @param rootId           identité de la racine
+     * @param rootDistances    coût depuis la racine jusqu'à chaque noeud
+     * @param predecessors     prédécesseur de chaque noeud dans l'arbre
+     * @param order            noeuds de l'arbre dans l'ordre de leur visite
+     * @param rootSettledCount nombre de noeuds de l'arbre
+     * @param isLandmark       TRUE pour les noeuds déjà choisis comme repères
+     * @param fromLandmarks    coût depuis chaque repère déjà choisi
+     * @param toLandmarks      coût jusqu'à chaque repère déjà choisi
+     * @param landmarkCount    nombre de repères déjà choisis
+     * 
+     * @return l'identité du nouveau repère, ou NO_NODE si aucun sous-arbre n'a de poids
+     */
+    private int avoidLandmark(int rootId, float[] rootDistances, int[] predecessors, int[] order,
+            int rootSettledCount, boolean[] isLandmark, float[][] fromLandmarks,
+            float[][] toLandmarks, int landmarkCount) {
+        double[] sizes = new double[nodeCount];
+        boolean[] containsLandmark = new boolean[nodeCount];
+        int[] heaviestChildren = new int[nodeCount];
+        Arrays.fill(heaviestChildren, NO_NODE);
+
+        // les enfants d'un noeud étant visités après lui, on les traite dans l'ordre inverse
+        for (int i = rootSettledCount - 1; i > 0; i--) {
+            int nodeId = order[i];
+            int parentId = predecessors[nodeId];
+            if (isLandmark[nodeId] || containsLandmark[nodeId]) {
+                containsLandmark[parentId] = true;
+                sizes[nodeId] = 0;
+                continue;
+            }
+
+            sizes[nodeId] += rootDistances[nodeId] - lowerBound(fromLandmarks, toLandmarks,
+                    landmarkCount, rootId, nodeId);
+            sizes[parentId] += sizes[nodeId];
+            int heaviestChildId = heaviestChildren[parentId];
+            if (sizes[nodeId] > 0
+                    && (heaviestChildId == NO_NODE || sizes[nodeId] > sizes[heaviestChildId]))
+                heaviestChildren[parentId] = nodeId;
+        }
+
+        if (containsLandmark[rootId] && heaviestChildren[rootId] == NO_NODE)
+            return NO_NODE;
+        int nodeId = rootId;
+        while (heaviestChildren[nodeId] != NO_NODE)
+            nodeId = heaviestChildren[nodeId];
+        return isLandmark[nodeId] || nodeId == rootId ? NO_NODE : nodeId;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le noeud de l'arbre le plus éloigné de sa racine qui n'est pas
+     * déjà un repère
+     * 
+     * @param rootDistances    coût depuis la racine jusqu'à chaque noeud
+     * @param order            noeuds de l'arbre dans l'ordre de leur visite
+     * @param rootSettledCount nombre de noeuds de l'arbre
+     * @param isLandmark       TRUE pour les noeuds déjà choisis comme repères
+     * 
+     * @return l'identité du noeud le plus éloigné
+     */
+    private static int farthestNode(float[] rootDistances, int[] order, int rootSettledCount,
+            boolean[] isLandmark) {
+        for (int i = rootSettledCount - 1; i >= 0; i--) {
+            if (!isLandmark[order[i]])
+                return order[i];
+        }
+        // tous les noeuds atteignables sont déjà des repères
+        for (int nodeId = 0; nodeId < rootDistances.length; nodeId++) {
+            if (!isLandmark[nodeId])
+                return nodeId;
+        }
+        throw new IllegalArgumentException();
+    }
+
+    /**
+     * Méthode permettant d'obtenir la borne inférieure du coût entre deux noeuds donnée par les
+     * repères déjà choisis
+     * 
+     * @param fromLandmarks coût depuis chaque repère
+     * @param toLandmarks   coût jusqu'à chaque repère
+     * @param landmarkCount nombre de repères
+     * @param nodeId        identité du noeud de départ
+     * @param targetNodeId  identité du noeud d'arrivée
+     * 
+     * @return la borne inférieure du coût
+     */
+    private static float lowerBound(float[][] fromLandmarks, float[][] toLandmarks,
+            int landmarkCount, int nodeId, int targetNodeId) {
+        float bound = 0;
+        for (int i = 0; i < landmarkCount; i++) {
+            if (fromLandmarks[i][nodeId] != Float.POSITIVE_INFINITY)
+                bound = Math.max(bound, fromLandmarks[i][targetNodeId] - fromLandmarks[i][nodeId]);
+            if (toLandmarks[i][targetNodeId] != Float.POSITIVE_INFINITY)
+                bound = Math.max(bound, toLandmarks[i][nodeId] - toLandmarks[i][targetNodeId]);
+        }
+        return bound;
+    }
+
+    /**
+     * Méthode permettant de calculer le coût minimal entre un noeud et tous les autres au moyen
+     * de l'algorithme de Dijkstra
+     * 
+     * @param rootId       identité du noeud racine
+     * @param backward     TRUE pour calculer les coûts jusqu'à la racine en parcourant les arêtes
+     *                     entrantes, FALSE pour calculer les coûts depuis la racine
+     * @param predecessors tableau à remplir avec le prédécesseur de chaque noeud atteint, ou null
+     * @param order        tableau à remplir avec les noeuds dans l'ordre de leur visite, ou null
+     * 
+     * @return le coût minimal de chaque noeud, infini s'il n'est pas atteignable
+     */
+    private float[] distances(int rootId, boolean backward, int[] predecessors, int[] order) {
+        float[] distances = new float[nodeCount];
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        distances[rootId] = 0;
+        if (predecessors != null)
+            predecessors[rootId] = NO_NODE;
+        heap.push(rootId, 0);
+        settledCount = 0;
+
+        while (!heap.isEmpty()) {
+            int currentId = heap.removeMin();
+            if (order != null)
+                order[settledCount] = currentId;
+            settledCount++;
+
+            int degree = backward ? graph.nodeInDegree(currentId)
+                    : graph.nodeOutDegree(currentId);
+            for (int i = 0; i < degree; i++) {
+                int edgeId = backward ? graph.nodeInEdgeId(currentId, i)
+                        : graph.nodeOutEdgeId(currentId, i);
+                int sourceId = backward ? graph.nodeInEdgeSourceId(currentId, i) : currentId;
+                int nPrime = backward ? sourceId : graph.edgeTargetNodeId(edgeId);
+
+                float d = distances[currentId] + (float) (graph.edgeLength(edgeId)
+                        * costFunction.costFactor(sourceId, edgeId));
+                if (d < distances[nPrime]) {
+                    distances[nPrime] = d;
+                    if (predecessors != null)
+                        predecessors[nPrime] = currentId;
+                    heap.push(nPrime, d);
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,216 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import ch.epfl.javelo.Bits;
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant un planificateur d'itinéraire calculant, en une seule recherche, les
+ * itinéraires de coût minimal de plusieurs fonctions de coût entre les mêmes noeuds
+ * 
+ * La recherche A* associe à chaque noeud une étiquette par fonction de coût et n'utilise qu'une
+ * file de priorité, dont la clef d'un noeud est la plus petite, parmi les étiquettes qui doivent
+ * encore être propagées, de la somme de la distance et de la borne de l'heuristique. Lorsqu'un
+ * noeud est retiré de la file, chacune de ses arêtes sortantes n'est lue qu'une fois pour
+ * relaxer toutes ces étiquettes. Un noeud peut ainsi être retiré plusieurs fois, au plus une
+ * fois par fonction de coût. L'heuristique étant cohérente, une étiquette dont la clef atteint
+ * la distance du noeud d'arrivée pour sa fonction de coût n'est pas propagée, et la recherche
+ * s'arrête dès que la plus petite clef de la file atteint la plus grande de ces distances.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class MultiProfileRouteComputer {
+    private final Graph graph;
+    private final CostFunction[] costFunctions;
+    private final EdgeCostTable[] costTables;
+    private final Heuristic heuristic;
+    private final ThreadLocal<ProfileWorkspace> workspaces;
+
+    /**
+     * Construit un planificateur d'itinéraire pour les fonctions de coût données, utilisant
+     * comme heuristique la distance à vol d'oiseau
+     * 
+     * @param graph         graphe JaVelo
+     * @param costFunctions fonctions de coût, dont le facteur multiplicateur vaut toujours au
+     *                      moins 1
+     * 
+     * @throws IllegalArgumentException si aucune fonction de coût n'est donnée ou s'il y en a plus
+     *                                  de Integer.SIZE
+     */
+    public MultiProfileRouteComputer(Graph graph, List<CostFunction> costFunctions) {
+        this(graph, costFunctions, new EuclideanHeuristic(graph));
+    }
+
+    /**
+     * Construit un planificateur d'itinéraire pour les fonctions de coût et l'heuristique données
+     * 
+     * @param graph         graphe JaVelo
+     * @param costFunctions fonctions de coût
+     * @param heuristic     heuristique de la recherche, qui doit être admissible et cohérente pour
+     *                      chacune des fonctions de coût
+     * 
+     * @throws IllegalArgumentException si aucune fonction de coût n'est donnée ou s'il y en a plus
+     *                                  de Integer.SIZE
+     */
+    public MultiProfileRouteComputer(Graph graph, List<CostFunction> costFunctions,
+            Heuristic heuristic) {
+        Preconditions.checkArgument(
+                !costFunctions.isEmpty() && costFunctions.size() <= Integer.SIZE);
+        this.graph = graph;
+        this.costFunctions = costFunctions.toArray(new CostFunction[0]);
+        this.costTables = new EdgeCostTable[this.costFunctions.length];
+        for (int k = 0; k < this.costFunctions.length; k++) {
+            if (this.costFunctions[k] instanceof EdgeCostTable table)
+                costTables[k] = table;
+        }
+        this.heuristic = heuristic;
+        int profileCount = this.costFunctions.length;
+        this.workspaces = ThreadLocal
+                .withInitial(() -> new ProfileWorkspace(graph.nodeCount(), profileCount));
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de fonctions de coût du planificateur
+     * 
+     * @return le nombre de fonctions de coût
+     */
+    public int profileCount() {
+        return costFunctions.length;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal de chacune des fonctions de coût
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes
+     * 
+     * @return la liste des itinéraires de coût minimal, dans l'ordre des fonctions de coût,
+     *         contenant null pour les fonctions de coût selon lesquelles il n'existe pas
+     *         d'itinéraire
+     */
+    public List<Route> bestRoutesBetween(int startNodeId, int endNodeId) {
+        Preconditions.checkArgument(startNodeId != endNodeId);
+        int profileCount = costFunctions.length;
+        ProfileWorkspace workspace = workspaces.get();
+        workspace.reset();
+        for (int k = 0; k < profileCount; k++)
+            workspace.update(startNodeId, k, 0, -1);
+        NodeHeap queue = workspace.heap();
+        queue.push(startNodeId, 0);
+
+        while (!queue.isEmpty() && queue.minKey() < maxDistance(workspace, endNodeId)) {
+            int currentId = workspace.settleNext();
+            int pending = workspace.takePending(currentId);
+
+            for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
+                int edgeId = graph.nodeOutEdgeId(currentId, i);
+                int nPrime = graph.edgeTargetNodeId(edgeId);
+                double length = graph.edgeLength(edgeId);
+                float lowerBound = Float.NaN;
+
+                float minKey = Float.POSITIVE_INFINITY;
+                for (int k = 0; k < profileCount; k++) {
+                    if ((pending & (1 << k)) == 0)
+                        continue;
+                    float d = workspace.distance(currentId, k)
+                            + edgeCost(k, currentId, edgeId, length);
+                    if (d >= workspace.distance(nPrime, k))
+                        continue;
+                    if (Float.isNaN(lowerBound))
+                        lowerBound = heuristic.lowerBound(nPrime, endNodeId);
+                    // une étiquette qui ne peut plus améliorer l'arrivée n'est pas propagée
+                    if (d + lowerBound < workspace.distance(endNodeId, k)) {
+                        workspace.update(nPrime, k, d, (i << 28) | currentId);
+                        minKey = Math.min(minKey, d + lowerBound);
+                    }
+                }
+                if (minKey != Float.POSITIVE_INFINITY)
+                    queue.push(nPrime, minKey);
+            }
+        }
+
+        Route[] routes = new Route[profileCount];
+        for (int k = 0; k < profileCount; k++) {
+            if (workspace.distance(endNodeId, k) != Float.POSITIVE_INFINITY)
+                routes[k] = new SingleRoute(edges(workspace, k, startNodeId, endNodeId));
+        }
+        return Arrays.asList(routes);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds retirés de la file lors de la dernière
+     * recherche effectuée par le fil d'exécution courant
+     * 
+     * @return le nombre de noeuds visités lors de la dernière recherche
+     */
+    public int settledNodeCount() {
+        return workspaces.get().settledCount();
+    }
+
+    /**
+     * Méthode permettant d'obtenir la plus grande des distances du noeud d'arrivée
+     * 
+     * @param workspace espace de travail de la recherche
+     * @param endNodeId identité du noeud d'arrivée
+     * 
+     * @return la plus grande des distances, infinie si le noeud n'a pas encore été atteint pour
+     *         l'une des fonctions de coût
+     */
+    private float maxDistance(ProfileWorkspace workspace, int endNodeId) {
+        float maxDistance = 0;
+        for (int k = 0; k < costFunctions.length; k++)
+            maxDistance = Math.max(maxDistance, workspace.distance(endNodeId, k));
+        return maxDistance;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût d'une arête parcourue depuis un noeud selon une
+     * fonction de coût
+     * 
+     * @param profile index de la fonction de coût
+     * @param nodeId  identité du noeud de départ de l'arête
+     * @param edgeId  identité de l'arête
+     * @param length  longueur de l'arête
+     * 
+     * @return le coût de l'arête, lu directement dans la table des coûts si la fonction de coût
+     *         en est une
+     */
+    private float edgeCost(int profile, int nodeId, int edgeId, double length) {
+        if (costTables[profile] != null)
+            return costTables[profile].edgeCost(edgeId);
+        return (float) (length * costFunctions[profile].costFactor(nodeId, edgeId));
+    }
+
+    /**
+     * Méthode permettant d'obtenir les arêtes de l'itinéraire d'une fonction de coût en remontant
+     * dans ses prédécesseurs
+     * 
+     * @param workspace   espace de travail de la recherche
+     * @param profile     index de la fonction de coût
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return liste des arêtes
+     */
+    private List<Edge> edges(ProfileWorkspace workspace, int profile, int startNodeId,
+            int endNodeId) {
+        LinkedList<Edge> edges = new LinkedList<>();
+        int currentEndId = endNodeId;
+        while (currentEndId != startNodeId) {
+            int predecessor = workspace.predecessor(currentEndId, profile);
+            int edgeIndex = Bits.extractUnsigned(predecessor, 28, 4);
+            int currentStartId = Bits.extractUnsigned(predecessor, 0, 28);
+            int edgeId = graph.nodeOutEdgeId(currentStartId, edgeIndex);
+            edges.addFirst(Edge.of(graph, edgeId, currentStartId, currentEndId));
+            currentEndId = currentStartId;
+        }
+        return edges;
+    }
+}
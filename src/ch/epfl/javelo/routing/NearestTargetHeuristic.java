@@ -0,0 +1,113 @@
+package ch.epfl.javelo.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphSectors;
+import ch.epfl.javelo.projection.SwissBounds;
+
+/**
+ * Classe représentant l'heuristique d'une recherche vers le plus proche de plusieurs noeuds
+ * d'arrivée, c.-à-d. la plus petite des bornes d'une heuristique entre un noeud et chacune des
+ * arrivées, qui reste admissible et cohérente
+ * 
+ * Lorsque l'heuristique est la distance à vol d'oiseau, seules sont examinées, pour un noeud,
+ * les arrivées pouvant être la plus proche d'un point du secteur du graphe qui le contient : une
+ * arrivée plus éloignée du secteur que la plus grande distance entre le secteur et une autre
+ * arrivée ne peut pas l'être. Ces arrivées sont déterminées lors de la première évaluation d'un
+ * noeud de chaque secteur.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class NearestTargetHeuristic {
+    private static final int NO_CANDIDATES = -1;
+
+    private final Graph graph;
+    private final Heuristic heuristic;
+    private final int[] targetNodeIds;
+    private final boolean bySector;
+    private final IntIntMap sectorCandidates;
+    private final List<int[]> candidates;
+
+    /**
+     * Construit l'heuristique de la recherche vers le plus proche des noeuds d'arrivée donnés
+     * 
+     * @param graph         graphe JaVelo
+     * @param heuristic     heuristique entre deux noeuds, admissible et cohérente
+     * @param targetNodeIds identité des noeuds d'arrivée, qui ne doivent pas être vides
+     */
+    NearestTargetHeuristic(Graph graph, Heuristic heuristic, int[] targetNodeIds) {
+        this.graph = graph;
+        this.heuristic = heuristic;
+        this.targetNodeIds = targetNodeIds;
+        this.bySector = heuristic instanceof EuclideanHeuristic;
+        this.sectorCandidates = new IntIntMap(NO_CANDIDATES);
+        this.candidates = new ArrayList<>();
+    }
+
+    /**
+     * Méthode permettant d'obtenir une borne inférieure du coût d'un itinéraire entre un noeud et
+     * le plus proche des noeuds d'arrivée
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return la plus petite des bornes de l'heuristique entre le noeud et les arrivées
+     */
+    float lowerBound(int nodeId) {
+        int[] nodeIds = bySector ? sectorCandidates(nodeId) : targetNodeIds;
+        float lowerBound = Float.POSITIVE_INFINITY;
+        for (int targetNodeId : nodeIds)
+            lowerBound = Math.min(lowerBound, heuristic.lowerBound(nodeId, targetNodeId));
+        return lowerBound;
+    }
+
+    /**
+     * Méthode permettant d'obtenir les noeuds d'arrivée pouvant être le plus proche d'un noeud,
+     * en les déterminant si nécessaire pour le secteur qui le contient
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return l'identité des noeuds d'arrivée candidats
+     */
+    private int[] sectorCandidates(int nodeId) {
+        int x = SectorCorridor.sectorIndex(graph.nodeE(nodeId), SwissBounds.MIN_E,
+                SectorCorridor.SECTOR_WIDTH);
+        int y = SectorCorridor.sectorIndex(graph.nodeN(nodeId), SwissBounds.MIN_N,
+                SectorCorridor.SECTOR_HEIGHT);
+        int sectorId = x + GraphSectors.SECTORS_PER_SIDE * y;
+        int index = sectorCandidates.get(sectorId);
+        if (index != NO_CANDIDATES)
+            return candidates.get(index);
+
+        double minE = SwissBounds.MIN_E + x * SectorCorridor.SECTOR_WIDTH;
+        double maxE = minE + SectorCorridor.SECTOR_WIDTH;
+        double minN = SwissBounds.MIN_N + y * SectorCorridor.SECTOR_HEIGHT;
+        double maxN = minN + SectorCorridor.SECTOR_HEIGHT;
+        double maxDistance = Double.POSITIVE_INFINITY;
+        for (int targetNodeId : targetNodeIds) {
+            double e = graph.nodeE(targetNodeId);
+            double n = graph.nodeN(targetNodeId);
+            maxDistance = Math.min(maxDistance,
+                    Math2.norm(Math.max(e - minE, maxE - e), Math.max(n - minN, maxN - n)));
+        }
+
+        int[] sectorTargetNodeIds = new int[targetNodeIds.length];
+        int count = 0;
+        for (int targetNodeId : targetNodeIds) {
+            double e = graph.nodeE(targetNodeId);
+            double n = graph.nodeN(targetNodeId);
+            double minDistance = Math2.norm(Math.max(0, Math.max(minE - e, e - maxE)),
+                    Math.max(0, Math.max(minN - n, n - maxN)));
+            if (minDistance <= maxDistance)
+                sectorTargetNodeIds[count++] = targetNodeId;
+        }
+        sectorTargetNodeIds = Arrays.copyOf(sectorTargetNodeIds, count);
+        sectorCandidates.put(sectorId, candidates.size());
+        candidates.add(sectorTargetNodeIds);
+        return sectorTargetNodeIds;
+    }
+}
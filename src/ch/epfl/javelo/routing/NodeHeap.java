@@ -0,0 +1,261 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+/**
+ * Classe représentant un tas binaire minimal de noeuds, indexé par l'identité des noeuds afin de
+ * permettre la diminution de la clef d'un noeud déjà présent dans le tas
+ *
+ * Un tas creux, destiné aux recherches ne visitant que peu de noeuds, attribue à chaque noeud
+ * ajouté un index local, consécutif, au moyen d'une table associative : le tas ne manipule
+ * alors que ces index, de sorte que sa taille ne dépend que du nombre de noeuds ajoutés depuis
+ * qu'il a été vidé et que seuls l'ajout d'un noeud et le test de sa présence consultent la
+ * table.
+ *
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class NodeHeap implements NodeQueue {
+    private static final int NOT_IN_HEAP = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final IntIntMap localIndices;
+    private int[] positions;
+    private int[] localNodeIds;
+    private int localCount;
+    private int[] nodes;
+    private float[] keys;
+    private int size;
+
+    /**
+     * Construit un tas vide pouvant contenir les noeuds d'identité comprise entre 0 (inclus) et le
+     * nombre de noeuds donné (exclus)
+     *
+     * @param nodeCount nombre total de noeuds
+     */
+    NodeHeap(int nodeCount) {
+        this.localIndices = null;
+        this.positions = new int[nodeCount];
+        this.nodes = new int[INITIAL_CAPACITY];
+        this.keys = new float[INITIAL_CAPACITY];
+        Arrays.fill(positions, NOT_IN_HEAP);
+    }
+
+    /**
+     * Construit un tas creux vide, pouvant contenir des noeuds de n'importe quelle identité
+     * positive ou nulle
+     */
+    NodeHeap() {
+        this.localIndices = new IntIntMap(NOT_IN_HEAP);
+        this.positions = new int[INITIAL_CAPACITY];
+        this.localNodeIds = new int[INITIAL_CAPACITY];
+        this.nodes = new int[INITIAL_CAPACITY];
+        this.keys = new float[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Méthode permettant de savoir si le tas est vide
+     *
+     * @return TRUE si le tas ne contient aucun noeud sinon FALSE
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds contenus dans le tas
+     *
+     * @return le nombre de noeuds contenus dans le tas
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Méthode permettant d'ajouter un noeud au tas, ou de diminuer sa clef s'il s'y trouve déjà
+     * avec une clef plus grande
+     *
+     * @param nodeId identité du noeud
+     * @param key    clef du noeud
+     */
+    @Override
+    public void push(int nodeId, float key) {
+        int handle = handle(nodeId);
+        int position = positions[handle];
+        if (position == NOT_IN_HEAP) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                keys = Arrays.copyOf(keys, 2 * size);
+            }
+            position = size++;
+        } else if (key >= keys[position])
+            return;
+        siftUp(position, handle, key);
+    }
+
+    /**
+     * Méthode permettant d'ajouter un noeud au tas, ou de modifier sa clef s'il s'y trouve déjà,
+     * que la nouvelle clef soit plus petite ou plus grande
+     *
+     * @param nodeId identité du noeud
+     * @param key    nouvelle clef du noeud
+     */
+    void update(int nodeId, float key) {
+        int handle = handle(nodeId);
+        int position = positions[handle];
+        if (position != NOT_IN_HEAP && key > keys[position])
+            siftDown(position, handle, key);
+        else
+            push(nodeId, key);
+    }
+
+    /**
+     * Méthode permettant de savoir si un noeud se trouve dans le tas
+     *
+     * @param nodeId identité du noeud
+     *
+     * @return TRUE si le noeud se trouve dans le tas sinon FALSE
+     */
+    @Override
+    public boolean contains(int nodeId) {
+        if (localIndices == null)
+            return positions[nodeId] != NOT_IN_HEAP;
+        int localIndex = localIndices.get(nodeId);
+        return localIndex != NOT_IN_HEAP && positions[localIndex] != NOT_IN_HEAP;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la plus petite clef du tas
+     *
+     * @return la plus petite clef du tas, qui ne doit pas être vide
+     */
+    @Override
+    public float minKey() {
+        return keys[0];
+    }
+
+    /**
+     * Méthode permettant de retirer du tas le noeud de clef minimale
+     *
+     * @return l'identité du noeud de clef minimale, le tas ne devant pas être vide
+     */
+    @Override
+    public int removeMin() {
+        int minNode = nodes[0];
+        positions[minNode] = NOT_IN_HEAP;
+        size--;
+        if (size > 0)
+            siftDown(0, nodes[size], keys[size]);
+        return localIndices == null ? minNode : localNodeIds[minNode];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] nodes() {
+        int[] nodeIds = Arrays.copyOf(nodes, size);
+        if (localIndices != null) {
+            for (int i = 0; i < size; i++)
+                nodeIds[i] = localNodeIds[nodeIds[i]];
+        }
+        return nodeIds;
+    }
+
+    /**
+     * Méthode permettant de vider le tas, en un temps proportionnel au nombre de noeuds qu'il
+     * contient encore, ou à la capacité de la table des index locaux pour un tas creux
+     */
+    @Override
+    public void clear() {
+        if (localIndices == null) {
+            for (int i = 0; i < size; i++)
+                positions[nodes[i]] = NOT_IN_HEAP;
+        } else {
+            localIndices.clear();
+            localCount = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'entier désignant un noeud dans le tas, c.-à-d. son identité,
+     * ou son index local pour un tas creux, qui lui est attribué s'il n'en a pas encore
+     *
+     * @param nodeId identité du noeud
+     *
+     * @return l'entier désignant le noeud dans le tas
+     */
+    private int handle(int nodeId) {
+        if (localIndices == null)
+            return nodeId;
+
+        int localIndex = localIndices.get(nodeId);
+        if (localIndex == NOT_IN_HEAP) {
+            localIndex = localCount++;
+            if (localIndex == localNodeIds.length) {
+                localNodeIds = Arrays.copyOf(localNodeIds, 2 * localIndex);
+                positions = Arrays.copyOf(positions, 2 * localIndex);
+            }
+            localNodeIds[localIndex] = nodeId;
+            positions[localIndex] = NOT_IN_HEAP;
+            localIndices.put(nodeId, localIndex);
+        }
+        return localIndex;
+    }
+
+    /**
+     * Méthode permettant de faire remonter un noeud dans le tas depuis une position donnée
+     *
+     * @param position position de départ du noeud
+     * @param handle   entier désignant le noeud
+     * @param key      clef du noeud
+     */
+    private void siftUp(int position, int handle, float key) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key)
+                break;
+            place(position, nodes[parent], keys[parent]);
+            position = parent;
+        }
+        place(position, handle, key);
+    }
+
+    /**
+     * Méthode permettant de faire descendre un noeud dans le tas depuis une position donnée
+     *
+     * @param position position de départ du noeud
+     * @param handle   entier désignant le noeud
+     * @param key      clef du noeud
+     */
+    private void siftDown(int position, int handle, float key) {
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child])
+                child = right;
+            if (key <= keys[child])
+                break;
+            place(position, nodes[child], keys[child]);
+            position = child;
+        }
+        place(position, handle, key);
+    }
+
+    /**
+     * Méthode permettant de placer un noeud à une position donnée du tas
+     *
+     * @param position position dans le tas
+     * @param handle   entier désignant le noeud
+     * @param key      clef du noeud
+     */
+    private void place(int position, int handle, float key) {
+        nodes[position] = handle;
+        keys[position] = key;
+        positions[handle] = position;
+    }
+}
@@ -0,0 +1,13 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Enregistrement représentant une paire de noeuds de départ et d'arrivée d'un itinéraire
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ * 
+ * @param startNodeId identité du noeud de départ
+ * @param endNodeId   identité du noeud d'arrivée
+ */
+public record NodePair(int startNodeId, int endNodeId) {
+}
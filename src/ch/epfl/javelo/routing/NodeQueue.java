@@ -0,0 +1,71 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Interface représentant une file de priorité de noeuds, indexée par l'identité des noeuds afin
+ * de permettre la diminution de la clef d'un noeud déjà présent dans la file
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+interface NodeQueue {
+
+    /**
+     * Méthode permettant de savoir si la file est vide
+     * 
+     * @return TRUE si la file ne contient aucun noeud sinon FALSE
+     */
+    boolean isEmpty();
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds contenus dans la file
+     * 
+     * @return le nombre de noeuds contenus dans la file
+     */
+    int size();
+
+    /**
+     * Méthode permettant d'ajouter un noeud à la file, ou de diminuer sa clef s'il s'y trouve
+     * déjà avec une clef plus grande
+     * 
+     * @param nodeId identité du noeud
+     * @param key    clef du noeud
+     */
+    void push(int nodeId, float key);
+
+    /**
+     * Méthode permettant de savoir si un noeud se trouve dans la file
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return TRUE si le noeud se trouve dans la file sinon FALSE
+     */
+    boolean contains(int nodeId);
+
+    /**
+     * Méthode permettant d'obtenir la plus petite clef de la file
+     * 
+     * @return la plus petite clef de la file, qui ne doit pas être vide
+     */
+    float minKey();
+
+    /**
+     * Méthode permettant de retirer de la file le noeud de clef minimale
+     * 
+     * @return l'identité du noeud de clef minimale, la file ne devant pas être vide
+     */
+    int removeMin();
+
+    /**
+     * Méthode permettant d'obtenir l'identité des noeuds contenus dans la file, dans un ordre
+     * quelconque
+     * 
+     * @return un nouveau tableau contenant l'identité des noeuds de la file
+     */
+    int[] nodes();
+
+    /**
+     * Méthode permettant de vider la file, en un temps proportionnel au nombre de noeuds qu'elle
+     * contient encore
+     */
+    void clear();
+}
@@ -0,0 +1,204 @@
+package ch.epfl.javelo.routing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import ch.epfl.javelo.Preconditions;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant un planificateur d'itinéraire utilisant une partition à plusieurs niveaux
+ * du graphe, personnalisée pour une fonction de coût
+ * 
+ * La partition ne dépendant pas de la fonction de coût, changer de fonction de coût ne nécessite
+ * que le calcul des cliques des cellules, qui prend quelques secondes. Une requête est une
+ * recherche de Dijkstra dans laquelle chaque noeud est développé au niveau le plus élevé auquel
+ * sa cellule ne contient ni le départ ni l'arrivée, les arcs des cliques de l'itinéraire trouvé
+ * étant ensuite dépliés niveau par niveau en arêtes du graphe.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class PartitionRouteComputer {
+    private final Graph graph;
+    private final GraphPartition partition;
+    private final CellCliques cliques;
+    private final ThreadLocal<SearchWorkspace> workspaces;
+    private final ThreadLocal<SearchWorkspace> unpackWorkspaces;
+
+    /**
+     * Construit un planificateur d'itinéraire utilisant une partition du graphe, en calculant les
+     * cliques de ses cellules pour la fonction de coût donnée
+     * 
+     * @param graph        graphe JaVelo
+     * @param partition    partition du graphe
+     * @param costFunction fonction de coût
+     * 
+     * @throws IllegalArgumentException si la partition ne possède pas le même nombre de noeuds
+     *                                  que le graphe
+     */
+    public PartitionRouteComputer(Graph graph, GraphPartition partition,
+            CostFunction costFunction) {
+        Preconditions.checkArgument(graph.nodeCount() == partition.nodeCount());
+        this.graph = graph;
+        this.partition = partition;
+        this.cliques = new CellCliques(graph, partition, costFunction);
+        this.workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+        this.unpackWorkspaces = ThreadLocal
+                .withInitial(() -> new SearchWorkspace(graph.nodeCount()));
+    }
+
+    /**
+     * Méthode permettant d'obtenir un planificateur d'itinéraire utilisant la même partition mais
+     * une autre fonction de coût, seules les cliques des cellules étant recalculées
+     * 
+     * @param costFunction nouvelle fonction de coût
+     * 
+     * @return le planificateur d'itinéraire utilisant la nouvelle fonction de coût
+     */
+    public PartitionRouteComputer withCostFunction(CostFunction costFunction) {
+        return new PartitionRouteComputer(graph, partition, costFunction);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        Preconditions.checkArgument(startNodeId != endNodeId);
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+        workspace.setDistance(startNodeId, 0);
+        workspace.heap().push(startNodeId, 0);
+
+        while (!workspace.heap().isEmpty()) {
+            int currentId = workspace.settleNext();
+            if (currentId == endNodeId)
+                return new SingleRoute(unpack(workspace, startNodeId, endNodeId));
+            cliques.relaxArcs(workspace, currentId, queryLevel(currentId, startNodeId, endNodeId),
+                    0, 0);
+        }
+        return null;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds visités lors de la dernière recherche
+     * effectuée par le fil d'exécution courant
+     * 
+     * @return le nombre de noeuds visités
+     */
+    public int settledNodeCount() {
+        return workspaces.get().settledCount();
+    }
+
+    /**
+     * Méthode permettant d'obtenir le niveau auquel un noeud est développé lors d'une requête,
+     * c.-à-d. le niveau le plus élevé auquel sa cellule ne contient ni le départ ni l'arrivée
+     * 
+     * @param nodeId      identité du noeud
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return le niveau de développement du noeud
+     */
+    private int queryLevel(int nodeId, int startNodeId, int endNodeId) {
+        return Math.min(partition.highestSeparatingLevel(nodeId, startNodeId),
+                partition.highestSeparatingLevel(nodeId, endNodeId));
+    }
+
+    /**
+     * Méthode permettant de déplier les arcs de l'itinéraire trouvé en arêtes du graphe
+     * 
+     * Un arc d'un niveau reliant deux noeuds d'une même cellule de ce niveau est un arc de clique,
+     * qui est remplacé par les arcs du niveau inférieur trouvés par une recherche limitée à cette
+     * cellule, effectuée dans un espace de travail distinct de celui de la requête. Les autres
+     * arcs correspondent à des arêtes du graphe.
+     * 
+     * @param workspace   espace de travail de la requête, contenant les prédécesseurs
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return la liste des arêtes de l'itinéraire
+     */
+    private List<Edge> unpack(SearchWorkspace workspace, int startNodeId, int endNodeId) {
+        Deque<OverlayArc> stack = new ArrayDeque<>();
+        for (int nodeId = endNodeId; nodeId != startNodeId;) {
+            int predecessorId = workspace.predecessor(nodeId);
+            stack.push(new OverlayArc(predecessorId, nodeId,
+                    queryLevel(predecessorId, startNodeId, endNodeId)));
+            nodeId = predecessorId;
+        }
+
+        SearchWorkspace cellWorkspace = unpackWorkspaces.get();
+        List<Edge> edges = new ArrayList<>();
+        while (!stack.isEmpty()) {
+            OverlayArc arc = stack.pop();
+            int level = arc.level();
+            int cell = level == 0 ? -1 : partition.cellId(level, arc.sourceNodeId());
+            if (level == 0 || partition.cellId(level, arc.targetNodeId()) != cell) {
+                edges.add(edgeBetween(arc.sourceNodeId(), arc.targetNodeId()));
+                continue;
+            }
+
+            cellWorkspace.reset();
+            cellWorkspace.setDistance(arc.sourceNodeId(), 0);
+            cellWorkspace.heap().push(arc.sourceNodeId(), 0);
+            while (true) {
+                int currentId = cellWorkspace.settleNext();
+                if (currentId == arc.targetNodeId())
+                    break;
+                cliques.relaxArcs(cellWorkspace, currentId, level - 1, level, cell);
+            }
+            for (int nodeId = arc.targetNodeId(); nodeId != arc.sourceNodeId();) {
+                int predecessorId = cellWorkspace.predecessor(nodeId);
+                stack.push(new OverlayArc(predecessorId, nodeId, level - 1));
+                nodeId = predecessorId;
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'arête de coût minimal reliant deux noeuds
+     * 
+     * @param sourceNodeId identité du noeud de départ
+     * @param targetNodeId identité du noeud d'arrivée, qui doit être relié au noeud de départ
+     * 
+     * @return l'arête de coût minimal reliant les deux noeuds
+     */
+    private Edge edgeBetween(int sourceNodeId, int targetNodeId) {
+        int bestEdgeId = -1;
+        float bestCost = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < graph.nodeOutDegree(sourceNodeId); i++) {
+            int edgeId = graph.nodeOutEdgeId(sourceNodeId, i);
+            float cost = cliques.edgeCost(sourceNodeId, edgeId);
+            if (graph.edgeTargetNodeId(edgeId) == targetNodeId && cost < bestCost) {
+                bestEdgeId = edgeId;
+                bestCost = cost;
+            }
+        }
+        return Edge.of(graph, bestEdgeId, sourceNodeId, targetNodeId);
+    }
+
+    /**
+     * Enregistrement représentant un arc de l'itinéraire restant à déplier
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     * 
+     * @param sourceNodeId identité du noeud de départ de l'arc
+     * @param targetNodeId identité du noeud d'arrivée de l'arc
+     * @param level        niveau de l'arc
+     */
+    private record OverlayArc(int sourceNodeId, int targetNodeId, int level) {
+    }
+}
@@ -0,0 +1,154 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+/**
+ * Classe représentant l'espace de travail réutilisable d'une recherche évaluant simultanément
+ * plusieurs fonctions de coût, qui associe à chaque noeud une étiquette (distance et
+ * prédécesseur) par fonction de coût
+ * 
+ * Les étiquettes d'un noeud sont rangées à la suite les unes des autres, si bien que la
+ * relaxation d'une arête pour toutes les fonctions de coût ne touche que deux zones contiguës de
+ * la mémoire. Comme pour SearchWorkspace, la réinitialisation se fait en temps constant grâce à
+ * un numéro de génération, les étiquettes d'un noeud n'étant effacées que lorsqu'il est atteint
+ * pour la première fois depuis la dernière réinitialisation. Les tableaux ne sont alloués que
+ * lors de la première réinitialisation.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class ProfileWorkspace {
+    private static final float UNREACHED = Float.POSITIVE_INFINITY;
+
+    private final int nodeCount;
+    private final int profileCount;
+    private int[] stamps;
+    private float[] distances;
+    private int[] predecessors;
+    private int[] pendingMasks;
+    private NodeHeap heap;
+    private int generation;
+    private int settledCount;
+
+    /**
+     * Construit un espace de travail pour un graphe possédant le nombre de noeuds donné
+     * 
+     * @param nodeCount    nombre total de noeuds du graphe
+     * @param profileCount nombre de fonctions de coût évaluées, au plus Integer.SIZE
+     */
+    ProfileWorkspace(int nodeCount, int profileCount) {
+        this.nodeCount = nodeCount;
+        this.profileCount = profileCount;
+        this.generation = 1;
+    }
+
+    /**
+     * Méthode permettant de réinitialiser l'espace de travail avant une nouvelle recherche
+     */
+    void reset() {
+        if (heap == null) {
+            stamps = new int[nodeCount];
+            distances = new float[nodeCount * profileCount];
+            predecessors = new int[nodeCount * profileCount];
+            pendingMasks = new int[nodeCount];
+            heap = new NodeHeap(nodeCount);
+        }
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            generation = 0;
+        }
+        generation++;
+        heap.clear();
+        settledCount = 0;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la file de priorité de la recherche
+     * 
+     * @return la file de priorité de la recherche
+     */
+    NodeHeap heap() {
+        return heap;
+    }
+
+    /**
+     * Méthode permettant de retirer de la file de priorité le noeud de clef minimale et de le
+     * compter comme visité
+     * 
+     * @return l'identité du noeud de clef minimale, la file ne devant pas être vide
+     */
+    int settleNext() {
+        settledCount++;
+        return heap.removeMin();
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds retirés de la file depuis la dernière
+     * réinitialisation, un noeud pouvant l'être une fois par fonction de coût
+     * 
+     * @return le nombre de noeuds visités
+     */
+    int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la distance associée à un noeud pour une fonction de coût
+     * 
+     * @param nodeId  identité du noeud
+     * @param profile index de la fonction de coût
+     * 
+     * @return la distance associée au noeud, ou l'infini positif si le noeud n'a pas encore été
+     *         atteint pour cette fonction de coût depuis la dernière réinitialisation
+     */
+    float distance(int nodeId, int profile) {
+        return stamps[nodeId] == generation ? distances[nodeId * profileCount + profile]
+                : UNREACHED;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le prédécesseur d'un noeud pour une fonction de coût
+     * 
+     * @param nodeId  identité du noeud, qui doit avoir été atteint pour cette fonction de coût
+     * @param profile index de la fonction de coût
+     * 
+     * @return le prédécesseur du noeud
+     */
+    int predecessor(int nodeId, int profile) {
+        return predecessors[nodeId * profileCount + profile];
+    }
+
+    /**
+     * Méthode permettant de modifier la distance et le prédécesseur d'un noeud pour une fonction
+     * de coût, et de marquer son étiquette comme devant être propagée
+     * 
+     * @param nodeId      identité du noeud
+     * @param profile     index de la fonction de coût
+     * @param distance    nouvelle distance du noeud
+     * @param predecessor nouveau prédécesseur du noeud
+     */
+    void update(int nodeId, int profile, float distance, int predecessor) {
+        if (stamps[nodeId] != generation) {
+            stamps[nodeId] = generation;
+            Arrays.fill(distances, nodeId * profileCount, (nodeId + 1) * profileCount, UNREACHED);
+            pendingMasks[nodeId] = 0;
+        }
+        distances[nodeId * profileCount + profile] = distance;
+        predecessors[nodeId * profileCount + profile] = predecessor;
+        pendingMasks[nodeId] |= 1 << profile;
+    }
+
+    /**
+     * Méthode permettant d'obtenir et d'effacer l'ensemble des fonctions de coût pour lesquelles
+     * l'étiquette d'un noeud doit être propagée
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return l'ensemble des fonctions de coût, le bit d'index k correspondant à la k-ième
+     */
+    int takePending(int nodeId) {
+        int mask = pendingMasks[nodeId];
+        pendingMasks[nodeId] = 0;
+        return mask;
+    }
+}
@@ -0,0 +1,93 @@
+package ch.epfl.javelo.routing;
+
+import java.util.function.BooleanSupplier;
+
+import ch.epfl.javelo.Preconditions;
+
+/**
+ * Enregistrement représentant les limites d'une recherche d'itinéraire, au-delà desquelles elle
+ * est interrompue par une CancellationException
+ * 
+ * Le nombre de noeuds visités est vérifié à chaque visite, l'annulation et l'échéance ne l'étant
+ * que tous les CHECK_INTERVAL noeuds visités afin de ne pas ralentir la recherche.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ * 
+ * @param cancelled       jeton d'annulation, retournant TRUE lorsque la recherche doit être
+ *                        interrompue
+ * @param deadlineNanos   instant, selon System.nanoTime, au-delà duquel la recherche est
+ *                        interrompue, ou NO_DEADLINE
+ * @param maxSettledNodes nombre maximal de noeuds visités par la recherche (par chacune des deux
+ *                        recherches d'une recherche bidirectionnelle)
+ */
+public record QueryLimits(BooleanSupplier cancelled, long deadlineNanos, int maxSettledNodes) {
+    /**
+     * Échéance d'une recherche n'en ayant pas
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * Nombre de noeuds visités entre deux vérifications de l'annulation et de l'échéance
+     */
+    public static final int CHECK_INTERVAL = 1 << 12;
+
+    /**
+     * Limites d'une recherche n'étant jamais interrompue
+     */
+    public static final QueryLimits NONE = new QueryLimits(() -> false, NO_DEADLINE,
+            Integer.MAX_VALUE);
+
+    /**
+     * Construit les limites d'une recherche
+     * 
+     * @throws IllegalArgumentException si le nombre maximal de noeuds visités n'est pas
+     *                                  strictement positif
+     */
+    public QueryLimits {
+        Preconditions.checkArgument(maxSettledNodes > 0);
+    }
+
+    /**
+     * Méthode permettant d'obtenir les limites d'une recherche pouvant uniquement être annulée
+     * 
+     * @param cancelled jeton d'annulation
+     * 
+     * @return les limites de la recherche
+     */
+    public static QueryLimits cancellable(BooleanSupplier cancelled) {
+        return new QueryLimits(cancelled, NO_DEADLINE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Méthode permettant d'obtenir les limites d'une recherche devant se terminer dans le délai
+     * donné à partir de maintenant
+     * 
+     * @param timeoutMillis délai en millisecondes
+     * 
+     * @return les limites de la recherche
+     */
+    public static QueryLimits timeout(long timeoutMillis) {
+        return new QueryLimits(() -> false, System.nanoTime() + timeoutMillis * 1_000_000L,
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Méthode permettant de savoir si une recherche doit être interrompue
+     * 
+     * @param settledCount nombre de noeuds que la recherche aura visités depuis qu'elle est
+     *                     soumise à ces limites si elle visite le prochain noeud
+     * 
+     * @return TRUE si le nombre maximal de noeuds visités est dépassé ou si, lors d'une
+     *         vérification périodique, la recherche a été annulée ou son échéance est passée,
+     *         sinon FALSE
+     */
+    boolean isExceeded(int settledCount) {
+        if (settledCount > maxSettledNodes)
+            return true;
+        if (settledCount % CHECK_INTERVAL != 0)
+            return false;
+        return cancelled.getAsBoolean()
+                || deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos >= 0;
+    }
+}
@@ -0,0 +1,236 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+/**
+ * Classe représentant un tas à base (radix heap) de noeuds, file de priorité monotone dans
+ * laquelle aucune clef ajoutée ne peut être inférieure à la dernière clef retirée
+ * 
+ * Les clefs sont converties en entiers non signés de 32 bits conservant leur ordre, sans perte de
+ * précision. Un noeud est rangé dans le seau correspondant au bit de poids le plus fort par
+ * lequel sa clef diffère de la dernière clef retirée ; lorsque le seau 0, qui contient les noeuds
+ * de clef égale à celle-ci, est vide, le premier seau non vide est redistribué dans les seaux
+ * inférieurs. Chaque noeud ne descendant que de seau en seau, le coût amorti d'une opération est
+ * constant, sans les comparaisons d'un tas binaire.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class RadixHeap implements NodeQueue {
+    private static final int NOT_IN_HEAP = -1;
+    private static final int BUCKET_COUNT = Integer.SIZE + 1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int[] nodeBuckets;
+    private final int[] positions;
+    private final int[] nodeKeys;
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+    private int lastKey;
+    private int size;
+
+    /**
+     * Construit un tas vide pouvant contenir les noeuds d'identité comprise entre 0 (inclus) et le
+     * nombre de noeuds donné (exclus)
+     * 
+     * @param nodeCount nombre total de noeuds
+     */
+    RadixHeap(int nodeCount) {
+        this.nodeBuckets = new int[nodeCount];
+        this.positions = new int[nodeCount];
+        this.nodeKeys = new int[nodeCount];
+        this.buckets = new int[BUCKET_COUNT][INITIAL_CAPACITY];
+        this.bucketSizes = new int[BUCKET_COUNT];
+        Arrays.fill(nodeBuckets, NOT_IN_HEAP);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Une clef inférieure à la dernière clef retirée, ce qui ne peut résulter que d'erreurs
+     * d'arrondi, est remplacée par celle-ci.
+     */
+    @Override
+    public void push(int nodeId, float key) {
+        int radixKey = radixKey(key);
+        if (Integer.compareUnsigned(radixKey, lastKey) < 0)
+            radixKey = lastKey;
+
+        if (nodeBuckets[nodeId] == NOT_IN_HEAP)
+            size++;
+        else if (Integer.compareUnsigned(radixKey, nodeKeys[nodeId]) >= 0)
+            return;
+        else
+            removeFromBucket(nodeId);
+        nodeKeys[nodeId] = radixKey;
+        addToBucket(nodeId, bucketIndex(radixKey));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(int nodeId) {
+        return nodeBuckets[nodeId] != NOT_IN_HEAP;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float minKey() {
+        fillFirstBucket();
+        return floatKey(lastKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int removeMin() {
+        fillFirstBucket();
+        int minNode = buckets[0][bucketSizes[0] - 1];
+        removeFromBucket(minNode);
+        size--;
+        return minNode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int[] nodes() {
+        int[] nodes = new int[size];
+        int count = 0;
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            System.arraycopy(buckets[b], 0, nodes, count, bucketSizes[b]);
+            count += bucketSizes[b];
+        }
+        return nodes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            for (int i = 0; i < bucketSizes[b]; i++)
+                nodeBuckets[buckets[b][i]] = NOT_IN_HEAP;
+            bucketSizes[b] = 0;
+        }
+        size = 0;
+        lastKey = 0;
+    }
+
+    /**
+     * Méthode permettant de s'assurer que le seau 0 n'est pas vide en redistribuant, si
+     * nécessaire, le premier seau non vide après avoir pris sa plus petite clef comme dernière
+     * clef retirée
+     */
+    private void fillFirstBucket() {
+        if (bucketSizes[0] > 0)
+            return;
+
+        int b = 1;
+        while (bucketSizes[b] == 0)
+            b++;
+        int[] bucket = buckets[b];
+        int count = bucketSizes[b];
+        int minKey = nodeKeys[bucket[0]];
+        for (int i = 1; i < count; i++) {
+            if (Integer.compareUnsigned(nodeKeys[bucket[i]], minKey) < 0)
+                minKey = nodeKeys[bucket[i]];
+        }
+
+        lastKey = minKey;
+        bucketSizes[b] = 0;
+        for (int i = 0; i < count; i++) {
+            int nodeId = bucket[i];
+            addToBucket(nodeId, bucketIndex(nodeKeys[nodeId]));
+        }
+    }
+
+    /**
+     * Méthode permettant d'obtenir le seau d'une clef, c.-à-d. la position du bit de poids le plus
+     * fort par lequel elle diffère de la dernière clef retirée, ou 0 si elle lui est égale
+     * 
+     * @param radixKey clef convertie en entier non signé
+     * 
+     * @return l'index du seau de la clef
+     */
+    private int bucketIndex(int radixKey) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(radixKey ^ lastKey);
+    }
+
+    /**
+     * Méthode permettant d'ajouter un noeud à la fin d'un seau
+     * 
+     * @param nodeId identité du noeud
+     * @param b      index du seau
+     */
+    private void addToBucket(int nodeId, int b) {
+        int position = bucketSizes[b]++;
+        if (position == buckets[b].length)
+            buckets[b] = Arrays.copyOf(buckets[b], 2 * position);
+        buckets[b][position] = nodeId;
+        nodeBuckets[nodeId] = b;
+        positions[nodeId] = position;
+    }
+
+    /**
+     * Méthode permettant de retirer un noeud de son seau, en le remplaçant par le dernier noeud
+     * du seau
+     * 
+     * @param nodeId identité du noeud, qui doit se trouver dans le tas
+     */
+    private void removeFromBucket(int nodeId) {
+        int b = nodeBuckets[nodeId];
+        int position = positions[nodeId];
+        int lastNode = buckets[b][--bucketSizes[b]];
+        buckets[b][position] = lastNode;
+        positions[lastNode] = position;
+        nodeBuckets[nodeId] = NOT_IN_HEAP;
+    }
+
+    /**
+     * Méthode permettant de convertir une clef en un entier dont l'ordre non signé est celui des
+     * clefs : le bit de signe des clefs positives est levé, tous les bits des clefs négatives
+     * sont inversés
+     * 
+     * @param key clef du noeud
+     * 
+     * @return la clef convertie en entier non signé
+     */
+    private static int radixKey(float key) {
+        int bits = Float.floatToIntBits(key);
+        return bits ^ ((bits >> (Integer.SIZE - 1)) | Integer.MIN_VALUE);
+    }
+
+    /**
+     * Méthode permettant de retrouver une clef à partir de sa conversion en entier non signé
+     * 
+     * @param radixKey clef convertie en entier non signé
+     * 
+     * @return la clef du noeud
+     */
+    private static float floatKey(int radixKey) {
+        return Float.intBitsToFloat(radixKey < 0 ? radixKey ^ Integer.MIN_VALUE : ~radixKey);
+    }
+}
@@ -0,0 +1,127 @@
+package ch.epfl.javelo.routing;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Classe représentant une recherche A* conservée entre plusieurs requêtes partageant une même
+ * extrémité, typiquement l'étape d'un itinéraire dont un point de passage est déplacé
+ * 
+ * Une recherche avant est enracinée au noeud de départ et répond aux requêtes vers n'importe quel
+ * noeud d'arrivée, une recherche arrière est enracinée au noeud d'arrivée et répond aux requêtes
+ * depuis n'importe quel noeud de départ. L'heuristique étant cohérente, le coût des noeuds déjà
+ * visités reste minimal quelle que soit l'autre extrémité : lorsque celle-ci change, seules les
+ * clefs des noeuds de la file sont recalculées et la recherche reprend là où elle s'était
+ * arrêtée, une requête vers un noeud déjà visité ne demandant aucune recherche.
+ * 
+ * Une recherche conservée possède son propre espace de travail, dont la taille est
+ * proportionnelle au nombre de noeuds du graphe, et ne doit être utilisée que par un seul fil
+ * d'exécution à la fois.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class RetainedSearch {
+    private static final int NO_NODE = -1;
+
+    private final RouteComputer routeComputer;
+    private final SearchWorkspace workspace;
+    private final int rootNodeId;
+    private final boolean forward;
+    private int keyNodeId;
+
+    /**
+     * Construit une recherche conservée ne contenant encore que sa racine
+     * 
+     * @param routeComputer planificateur d'itinéraire effectuant la recherche
+     * @param workspace     espace de travail propre à la recherche
+     * @param rootNodeId    identité du noeud racine
+     * @param forward       TRUE pour une recherche avant, FALSE pour une recherche arrière
+     */
+    RetainedSearch(RouteComputer routeComputer, SearchWorkspace workspace, int rootNodeId,
+            boolean forward) {
+        this.routeComputer = routeComputer;
+        this.workspace = workspace;
+        this.rootNodeId = rootNodeId;
+        this.forward = forward;
+        this.keyNodeId = NO_NODE;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité du noeud racine de la recherche
+     * 
+     * @return l'identité du noeud de départ d'une recherche avant, ou du noeud d'arrivée d'une
+     *         recherche arrière
+     */
+    public int rootNodeId() {
+        return rootNodeId;
+    }
+
+    /**
+     * Méthode permettant de savoir si la recherche est une recherche avant
+     * 
+     * @return TRUE si la recherche est enracinée au noeud de départ, FALSE si elle l'est au noeud
+     *         d'arrivée
+     */
+    public boolean isForward() {
+        return forward;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre total de noeuds visités par la recherche depuis sa
+     * création
+     * 
+     * @return le nombre de noeuds visités
+     */
+    public int settledNodeCount() {
+        return workspace.settledCount();
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal entre la racine et un autre noeud,
+     * en poursuivant la recherche si nécessaire
+     * 
+     * Une recherche interrompue par ses limites reste utilisable pour les requêtes suivantes.
+     * 
+     * @param otherNodeId identité du noeud d'arrivée d'une recherche avant, ou du noeud de départ
+     *                    d'une recherche arrière
+     * @param limits      limites de la poursuite de la recherche
+     * 
+     * @throws IllegalArgumentException si le noeud est la racine de la recherche
+     * @throws CancellationException    si la recherche a été annulée, a dépassé son échéance ou
+     *                                  son nombre maximal de noeuds visités
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    public Route bestRoute(int otherNodeId, QueryLimits limits) {
+        return routeComputer.resumeSearch(this, otherNodeId, limits);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'espace de travail de la recherche
+     * 
+     * @return l'espace de travail de la recherche
+     */
+    SearchWorkspace workspace() {
+        return workspace;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le noeud dont l'heuristique a servi à calculer les clefs des
+     * noeuds de la file
+     * 
+     * @return l'identité du noeud, ou -1 si la recherche n'a pas encore commencé
+     */
+    int keyNodeId() {
+        return keyNodeId;
+    }
+
+    /**
+     * Méthode permettant de modifier le noeud dont l'heuristique sert à calculer les clefs des
+     * noeuds de la file
+     * 
+     * @param keyNodeId identité du noeud
+     */
+    void setKeyNodeId(int keyNodeId) {
+        this.keyNodeId = keyNodeId;
+    }
+}
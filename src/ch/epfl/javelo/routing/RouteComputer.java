@@ -1,15 +1,17 @@
 package ch.epfl.javelo.routing;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import ch.epfl.javelo.Bits;
+import ch.epfl.javelo.Math2;
 import ch.epfl.javelo.Preconditions;
 import ch.epfl.javelo.data.Graph;
-import ch.epfl.javelo.projection.PointCh;
 
 /**
  * Classe représentant un planificateur d'itinéraire
@@ -19,9 +21,158 @@ import ch.epfl.javelo.projection.PointCh;
  */
 public final class RouteComputer {
     private static final float ALREADY_DEFINE_FLOAT = Float.NEGATIVE_INFINITY;
-    private static final float NOT_DEFINE_FLOAT = Float.POSITIVE_INFINITY;
+    private static final int INITIAL_ISOCHRONE_CAPACITY = 64;
+    private static final int INITIAL_PATH_CAPACITY = 64;
+    private static final float DEFAULT_MAX_STRETCH = 1.25f;
+    private static final float DEFAULT_MAX_SHARING = 0.8f;
+    private static final float DEFAULT_MIN_PLATEAU = 0.25f;
+    private static final double SPARSE_MAX_DISTANCE = 10_000;
+    private static final int SPARSE_MAX_SETTLED_NODES = 1 << 14;
     private final Graph graph;
     private final CostFunction costFunction;
+    private final EdgeCostTable costTable;
+    private final SearchMode mode;
+    private final Heuristic heuristic;
+    private final GraphComponents components;
+    private final ArcFlags arcFlags;
+    private final QueueType queueType;
+    private final ThreadLocal<SearchWorkspace> workspaces;
+    private final ThreadLocal<SearchWorkspace> backwardWorkspaces;
+    private final ThreadLocal<SearchWorkspace> approximateWorkspaces;
+
+    /**
+     * Énumération représentant les modes de recherche d'un planificateur d'itinéraire
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     */
+    public enum SearchMode {
+        /**
+         * Recherche A* depuis le noeud de départ uniquement
+         */
+        UNIDIRECTIONAL,
+
+        /**
+         * Recherche A* simultanée depuis le noeud de départ et, sur les arêtes inversées, depuis
+         * le noeud d'arrivée
+         */
+        BIDIRECTIONAL
+    }
+
+    /**
+     * Énumération représentant les files de priorité utilisables par un planificateur
+     * d'itinéraire
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     */
+    public enum QueueType {
+        /**
+         * Tas binaire, utilisable avec toute heuristique
+         */
+        BINARY_HEAP,
+
+        /**
+         * Tas à base, plus rapide sur les longues recherches, qui exige que les clefs retirées
+         * de la file soient croissantes et donc que l'heuristique soit cohérente
+         */
+        RADIX_HEAP
+    }
+
+    /**
+     * Enregistrement représentant les options d'un planificateur d'itinéraire
+     * 
+     * Les options par défaut, DEFAULT, correspondent à une recherche unidirectionnelle guidée par
+     * la distance à vol d'oiseau, avec un tas binaire et sans composantes connexes ni drapeaux
+     * d'arcs. Les autres options s'obtiennent à partir de celles-ci au moyen des méthodes with.
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     * 
+     * @param mode       mode de recherche
+     * @param heuristic  heuristique de la recherche, qui doit être admissible et cohérente pour la
+     *                   fonction de coût du planificateur, ou null pour la distance à vol d'oiseau
+     * @param components composantes connexes du graphe pour la fonction de coût du planificateur,
+     *                   permettant de répondre immédiatement aux requêtes entre noeuds ne pouvant
+     *                   certainement pas être reliés, ou null
+     * @param arcFlags   drapeaux d'arcs du graphe pour la fonction de coût du planificateur,
+     *                   permettant à la recherche unidirectionnelle d'ignorer les arêtes ne menant
+     *                   pas de manière optimale à la région du noeud d'arrivée, ou null
+     * @param queueType  type de file de priorité des recherches
+     */
+    public record Options(SearchMode mode, Heuristic heuristic, GraphComponents components,
+            ArcFlags arcFlags, QueueType queueType) {
+        /**
+         * Options par défaut d'un planificateur d'itinéraire
+         */
+        public static final Options DEFAULT = new Options(SearchMode.UNIDIRECTIONAL, null, null,
+                null, QueueType.BINARY_HEAP);
+
+        /**
+         * Construit les options d'un planificateur d'itinéraire
+         * 
+         * @throws IllegalArgumentException si le mode de recherche ou le type de file de
+         *                                  priorité est null
+         */
+        public Options {
+            Preconditions.checkArgument(mode != null && queueType != null);
+        }
+
+        /**
+         * Méthode permettant d'obtenir les mêmes options avec un autre mode de recherche
+         * 
+         * @param mode mode de recherche
+         * 
+         * @return les nouvelles options
+         */
+        public Options withMode(SearchMode mode) {
+            return new Options(mode, heuristic, components, arcFlags, queueType);
+        }
+
+        /**
+         * Méthode permettant d'obtenir les mêmes options avec une autre heuristique
+         * 
+         * @param heuristic heuristique de la recherche, ou null pour la distance à vol d'oiseau
+         * 
+         * @return les nouvelles options
+         */
+        public Options withHeuristic(Heuristic heuristic) {
+            return new Options(mode, heuristic, components, arcFlags, queueType);
+        }
+
+        /**
+         * Méthode permettant d'obtenir les mêmes options avec d'autres composantes connexes
+         * 
+         * @param components composantes connexes du graphe, ou null
+         * 
+         * @return les nouvelles options
+         */
+        public Options withComponents(GraphComponents components) {
+            return new Options(mode, heuristic, components, arcFlags, queueType);
+        }
+
+        /**
+         * Méthode permettant d'obtenir les mêmes options avec d'autres drapeaux d'arcs
+         * 
+         * @param arcFlags drapeaux d'arcs du graphe, ou null
+         * 
+         * @return les nouvelles options
+         */
+        public Options withArcFlags(ArcFlags arcFlags) {
+            return new Options(mode, heuristic, components, arcFlags, queueType);
+        }
+
+        /**
+         * Méthode permettant d'obtenir les mêmes options avec un autre type de file de priorité
+         * 
+         * @param queueType type de file de priorité des recherches
+         * 
+         * @return les nouvelles options
+         */
+        public Options withQueueType(QueueType queueType) {
+            return new Options(mode, heuristic, components, arcFlags, queueType);
+        }
+    }
 
     /***
      * Construit un planificateur d'itinéraire
@@ -30,8 +181,38 @@ public final class RouteComputer {
      * @param costFunction fonction de coût
      */
     public RouteComputer(Graph graph, CostFunction costFunction) {
+        this(graph, costFunction, Options.DEFAULT);
+    }
+
+    /***
+     * Construit un planificateur d'itinéraire utilisant les options données
+     * 
+     * @param graph        graphe souhaité
+     * @param costFunction fonction de coût
+     * @param options      options du planificateur
+     * 
+     * @throws IllegalArgumentException si les composantes ne possèdent pas le même nombre de
+     *                                  noeuds que le graphe, ou si les drapeaux d'arcs ne
+     *                                  possèdent pas le même nombre d'arêtes que le graphe
+     */
+    public RouteComputer(Graph graph, CostFunction costFunction, Options options) {
+        Preconditions.checkArgument(options.components() == null
+                || options.components().nodeCount() == graph.nodeCount());
+        Preconditions.checkArgument(
+                options.arcFlags() == null || options.arcFlags().edgeCount() == graph.edgeCount());
         this.graph = graph;
         this.costFunction = costFunction;
+        this.costTable = costFunction instanceof EdgeCostTable table ? table : null;
+        this.mode = options.mode();
+        this.heuristic = options.heuristic() != null ? options.heuristic()
+                : new EuclideanHeuristic(graph);
+        this.components = options.components();
+        this.arcFlags = options.arcFlags();
+        this.queueType = options.queueType();
+        this.workspaces = ThreadLocal.withInitial(this::newWorkspace);
+        this.backwardWorkspaces = ThreadLocal.withInitial(this::newWorkspace);
+        this.approximateWorkspaces = ThreadLocal
+                .withInitial(() -> new SearchWorkspace(graph.nodeCount()));
     }
 
     /**
@@ -42,87 +223,1228 @@ public final class RouteComputer {
      * 
      * @throws IllegalArgumentException si le noeud de départ et d'arrivé sont les mêmes
      * 
-     * @return l'itinéraire de coût minimal
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
      */
     public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        return bestRouteBetween(startNodeId, endNodeId, QueryLimits.NONE);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal au moyen d'une recherche soumise
+     * à des limites, qui est interrompue dès que l'une d'entre elles est dépassée
+     * 
+     * Lorsque les noeuds de départ et d'arrivée sont à vol d'oiseau à moins de
+     * SPARSE_MAX_DISTANCE mètres l'un de l'autre, la recherche est d'abord effectuée en mode
+     * creux, dont la mémoire ne dépend que du nombre de noeuds atteints, avec un tas binaire quelle
+     * que soit la file de priorité choisie. Si elle visite plus de SPARSE_MAX_SETTLED_NODES
+     * noeuds, par exemple parce que l'arrivée n'est atteignable que par un long détour, elle est
+     * recommencée en mode dense, les tables associatives devenant alors plus lentes que les
+     * tableaux.
+     * 
+     * @param startNodeId identité du de départ
+     * @param endNodeId   identité du noeud d'arrivé
+     * @param limits      limites de la recherche
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivé sont les mêmes
+     * @throws CancellationException    si la recherche a été annulée, a dépassé son échéance ou
+     *                                  son nombre maximal de noeuds visités
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId, QueryLimits limits) {
         Preconditions.checkArgument(startNodeId != endNodeId);
+        if (components != null && !components.mayReach(startNodeId, endNodeId))
+            return null;
 
-        float[] distance = new float[graph.nodeCount()];
-        /*
-         * identité du prédécesseur code sur les 28 bits de poids faible et index de l'arête sur les
-         * 4 bits de poids fort
-         */
-        int[] predecessor = new int[graph.nodeCount()];
+        double distance = Math2.norm(graph.nodeE(endNodeId) - graph.nodeE(startNodeId),
+                graph.nodeN(endNodeId) - graph.nodeN(startNodeId));
+        if (distance > SPARSE_MAX_DISTANCE || limits.maxSettledNodes() <= SPARSE_MAX_SETTLED_NODES)
+            return routeBetween(startNodeId, endNodeId, limits, distance <= SPARSE_MAX_DISTANCE);
 
-        Arrays.fill(distance, NOT_DEFINE_FLOAT);
-        distance[startNodeId] = 0;
+        try {
+            return routeBetween(startNodeId, endNodeId, new QueryLimits(limits.cancelled(),
+                    limits.deadlineNanos(), SPARSE_MAX_SETTLED_NODES), true);
+        } catch (CancellationException e) {
+            if (workspaces.get().settledCount() <= SPARSE_MAX_SETTLED_NODES
+                    && (mode == SearchMode.UNIDIRECTIONAL
+                            || backwardWorkspaces.get().settledCount() <= SPARSE_MAX_SETTLED_NODES))
+                throw e;
+            return routeBetween(startNodeId, endNodeId, limits, false);
+        }
+    }
 
-        Queue<WeightedNode> queue = new PriorityQueue<>();
-        queue.add(new WeightedNode(startNodeId, 0));
-        PointCh endPoint = graph.nodePoint(endNodeId);
+    /**
+     * Méthode permettant de créer une recherche avant conservée, enracinée au noeud de départ,
+     * permettant d'obtenir rapidement les itinéraires vers des noeuds d'arrivée successifs
+     * proches les uns des autres
+     * 
+     * Les drapeaux d'arcs, qui dépendent du noeud d'arrivée, ne sont pas utilisés.
+     * 
+     * @param startNodeId identité du noeud de départ
+     * 
+     * @return la recherche conservée, qui possède son propre espace de travail
+     */
+    public RetainedSearch retainedSearchFrom(int startNodeId) {
+        return new RetainedSearch(this, newWorkspace(), startNodeId, true);
+    }
 
+    /**
+     * Méthode permettant de créer une recherche arrière conservée, enracinée au noeud d'arrivée,
+     * permettant d'obtenir rapidement les itinéraires depuis des noeuds de départ successifs
+     * proches les uns des autres
+     * 
+     * Les drapeaux d'arcs, qui dépendent du noeud d'arrivée, ne sont pas utilisés.
+     * 
+     * @param endNodeId identité du noeud d'arrivée
+     * 
+     * @return la recherche conservée, qui possède son propre espace de travail
+     */
+    public RetainedSearch retainedSearchTo(int endNodeId) {
+        return new RetainedSearch(this, newWorkspace(), endNodeId, false);
+    }
+
+    /**
+     * Méthode permettant d'obtenir au plus k itinéraires sensiblement différents entre deux
+     * noeuds, avec un étirement maximal de 1.25, un partage maximal de 0.8 et un plateau minimal
+     * de 0.25
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * @param k           nombre maximal d'itinéraires
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes ou si k
+     *                                  n'est pas strictement positif
+     * 
+     * @return les itinéraires, par coût croissant, le premier étant l'itinéraire de coût minimal,
+     *         ou une liste vide s'il n'existe pas d'itinéraire
+     */
+    public List<AlternativeRoute> alternativeRoutesBetween(int startNodeId, int endNodeId, int k) {
+        return alternativeRoutesBetween(startNodeId, endNodeId, k, DEFAULT_MAX_STRETCH,
+                DEFAULT_MAX_SHARING, DEFAULT_MIN_PLATEAU);
+    }
+
+    /**
+     * Méthode permettant d'obtenir au plus k itinéraires sensiblement différents entre deux
+     * noeuds, au moyen de la méthode des plateaux
+     * 
+     * Deux recherches de Dijkstra, l'une avant depuis le départ et l'autre arrière depuis
+     * l'arrivée, sont effectuées jusqu'à ce que leurs files ne contiennent plus que des noeuds
+     * dont le coût dépasse maxStretch fois le coût minimal. Chaque noeud visité par les deux
+     * recherches définit un itinéraire passant par lui, formé du chemin de l'arbre avant jusqu'à
+     * lui puis de celui de l'arbre arrière. Les arêtes communes aux deux arbres forment des
+     * plateaux : un plateau étant un chemin de coût minimal, un itinéraire dont le plateau est
+     * long est localement optimal, c.-à-d. sans détour inutile sur toute sa longueur.
+     * 
+     * Les itinéraires sont examinés par coût croissant, un seul par plateau, et retenus si leur
+     * plateau coûte au moins minPlateau fois le coût minimal, s'ils ne passent pas deux fois par
+     * le même noeud et s'ils ne partagent pas, avec chacun des itinéraires déjà retenus, des
+     * arêtes coûtant plus de maxSharing fois le coût minimal. L'itinéraire de coût minimal est
+     * toujours retenu en premier. Le coût total est donc celui de deux recherches bornées, quel
+     * que soit k.
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * @param k           nombre maximal d'itinéraires
+     * @param maxStretch  rapport maximal entre le coût d'un itinéraire et le coût minimal
+     * @param maxSharing  part maximale du coût minimal partagée avec un itinéraire déjà retenu
+     * @param minPlateau  part minimale du coût minimal que doit coûter le plateau d'un itinéraire
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes, si k
+     *                                  n'est pas strictement positif, si maxStretch est
+     *                                  inférieur à 1 ou si maxSharing ou minPlateau n'est pas
+     *                                  compris entre 0 et 1
+     * 
+     * @return les itinéraires, par coût croissant, le premier étant l'itinéraire de coût minimal,
+     *         ou une liste vide s'il n'existe pas d'itinéraire
+     */
+    public List<AlternativeRoute> alternativeRoutesBetween(int startNodeId, int endNodeId, int k,
+            float maxStretch, float maxSharing, float minPlateau) {
+        Preconditions.checkArgument(startNodeId != endNodeId && k > 0 && maxStretch >= 1);
+        Preconditions.checkArgument(maxSharing >= 0 && maxSharing <= 1);
+        Preconditions.checkArgument(minPlateau >= 0 && minPlateau <= 1);
+        if (components != null && !components.mayReach(startNodeId, endNodeId))
+            return List.of();
+
+        SearchWorkspace forward = workspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        int[] settledIds = searchAlternativeTrees(forward, backward, startNodeId, endNodeId,
+                maxStretch);
+
+        // noeuds visités par les deux recherches, triés par coût de l'itinéraire passant par eux
+        long[] candidates = new long[settledIds.length];
+        int candidateCount = 0;
+        for (int nodeId : settledIds) {
+            float cost = forward.distance(nodeId) + backward.distance(nodeId);
+            if (cost != Float.POSITIVE_INFINITY && !backward.heap().contains(nodeId))
+                candidates[candidateCount++] = (long) Float.floatToIntBits(cost) << Integer.SIZE
+                        | nodeId;
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+
+        List<AlternativeRoute> routes = new ArrayList<>();
+        List<int[]> sortedRoutesEdgeIds = new ArrayList<>();
+        float bestCost = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < candidateCount && routes.size() < k; i++) {
+            int viaNodeId = (int) candidates[i];
+            float cost = forward.distance(viaNodeId) + backward.distance(viaNodeId);
+            if (i == 0)
+                bestCost = cost;
+            else if (cost > maxStretch * bestCost)
+                break;
+            else if (isPlateauEdge(Bits.extractUnsigned(forward.predecessor(viaNodeId), 0, 28),
+                    viaNodeId, startNodeId, endNodeId, forward, backward)
+                    || plateauCost(viaNodeId, startNodeId, endNodeId, forward,
+                            backward) < minPlateau * bestCost)
+                continue;
+
+            int[] edgeIds = viaEdgeIds(viaNodeId, startNodeId, endNodeId, forward, backward);
+            if (!isSimplePath(edgeIds, startNodeId))
+                continue;
+            boolean shared = false;
+            for (int[] sortedEdgeIds : sortedRoutesEdgeIds)
+                shared |= sharedCost(edgeIds, startNodeId, sortedEdgeIds) > maxSharing * bestCost;
+            if (shared)
+                continue;
+
+            List<Edge> edges = new ArrayList<>(edgeIds.length);
+            int fromNodeId = startNodeId;
+            for (int edgeId : edgeIds) {
+                int toNodeId = graph.edgeTargetNodeId(edgeId);
+                edges.add(Edge.of(graph, edgeId, fromNodeId, toNodeId));
+                fromNodeId = toNodeId;
+            }
+            routes.add(new AlternativeRoute(new SingleRoute(edges), cost));
+            int[] sortedEdgeIds = edgeIds.clone();
+            Arrays.sort(sortedEdgeIds);
+            sortedRoutesEdgeIds.add(sortedEdgeIds);
+        }
+        return routes;
+    }
+
+    /**
+     * Méthode permettant d'obtenir rapidement un itinéraire dont le coût dépasse d'au plus un
+     * facteur 1 + epsilon le coût minimal, au moyen d'une recherche A* pondérée
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * @param epsilon     excès relatif toléré par rapport au coût minimal
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes ou si
+     *                                  epsilon est négatif
+     * 
+     * @return l'itinéraire accompagné de la borne atteinte, ou null s'il n'en existe pas
+     */
+    public ApproximateRoute approximateRouteBetween(int startNodeId, int endNodeId,
+            float epsilon) {
+        return approximateRouteBetween(startNodeId, endNodeId, epsilon, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Méthode permettant d'obtenir rapidement un itinéraire proche de l'itinéraire de coût
+     * minimal, au moyen d'une recherche A* pondérée limitée à un couloir de secteurs entourant le
+     * segment reliant le départ à l'arrivée
+     * 
+     * La clef d'un noeud est son coût augmenté de 1 + epsilon fois la borne de l'heuristique. Un
+     * noeud dont le coût diminue après sa visite est replacé dans la file, si bien que le coût de
+     * l'itinéraire trouvé est au plus 1 + epsilon fois le coût minimal dans le couloir. La borne
+     * inférieure du coût minimal est la plus petite somme du coût et de la borne de l'heuristique
+     * des noeuds restant dans la file et des noeuds hors du couloir atteints par la recherche ;
+     * elle vaut pour le graphe entier, et la borne rapportée peut donc dépasser 1 + epsilon
+     * lorsque le couloir écarte un itinéraire meilleur. Le type de file de priorité du
+     * planificateur est ignoré, l'heuristique pondérée n'étant pas cohérente.
+     * 
+     * @param startNodeId   identité du noeud de départ
+     * @param endNodeId     identité du noeud d'arrivée
+     * @param epsilon       excès relatif toléré par rapport au coût minimal
+     * @param corridorWidth largeur du couloir de chaque côté du segment, en mètres, ou l'infini
+     *                      positif pour ne pas limiter la recherche
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes, si
+     *                                  epsilon est négatif ou si la largeur du couloir n'est pas
+     *                                  strictement positive
+     * 
+     * @return l'itinéraire accompagné de la borne atteinte, ou null s'il n'en existe pas dans le
+     *         couloir
+     */
+    public ApproximateRoute approximateRouteBetween(int startNodeId, int endNodeId,
+            float epsilon, double corridorWidth) {
+        Preconditions.checkArgument(startNodeId != endNodeId && epsilon >= 0 && corridorWidth > 0);
+        if (components != null && !components.mayReach(startNodeId, endNodeId))
+            return null;
+
+        SectorCorridor corridor = corridorWidth == Double.POSITIVE_INFINITY ? null
+                : SectorCorridor.around(graph, startNodeId, endNodeId, corridorWidth);
+        float weight = 1 + epsilon;
+        int endRegion = arcFlags == null ? -1 : arcFlags.nodeRegion(endNodeId);
+        SearchWorkspace workspace = approximateWorkspaces.get();
+        workspace.reset();
+        workspace.setDistance(startNodeId, 0);
+        NodeQueue queue = workspace.heap();
+        queue.push(startNodeId, 0);
+
+        // plus petite borne inférieure des itinéraires passant par un noeud hors du couloir
+        float prunedBound = Float.POSITIVE_INFINITY;
+        int currentId = -1;
         while (!queue.isEmpty()) {
-            int currentId = queue.remove().nodeId;
-            if (distance[currentId] != ALREADY_DEFINE_FLOAT) {
+            currentId = workspace.settleNext();
+            if (currentId == endNodeId)
+                break;
 
-                // si on arrive au point d'arrivée
-                if (currentId == endNodeId)
-                    return new SingleRoute(
-                            getEdgesFromPredecessor(endNodeId, startNodeId, predecessor));
+            float currentDistance = workspace.distance(currentId);
+            for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
+                int edgeId = graph.nodeOutEdgeId(currentId, i);
+                if (arcFlags != null && !arcFlags.hasFlag(edgeId, endRegion))
+                    continue;
+                int nPrime = graph.edgeTargetNodeId(edgeId);
+                float d = currentDistance + edgeCost(currentId, edgeId);
+                if (d >= workspace.distance(nPrime))
+                    continue;
 
-                // si pas déjà calculé
-                analyseCurrentNode(distance, predecessor, queue, currentId, endPoint);
-                distance[currentId] = ALREADY_DEFINE_FLOAT;
+                float lowerBound = heuristic.lowerBound(nPrime, endNodeId);
+                if (corridor != null && !corridor.contains(nPrime)) {
+                    prunedBound = Math.min(prunedBound, d + lowerBound);
+                    continue;
+                }
+                workspace.update(nPrime, d, (i << 28) | currentId);
+                queue.push(nPrime, d + weight * lowerBound);
             }
         }
+        if (currentId != endNodeId)
+            return null;
+
+        float cost = workspace.distance(endNodeId);
+        float lowerBound = Math.min(cost, prunedBound);
+        for (int nodeId : queue.nodes())
+            lowerBound = Math.min(lowerBound,
+                    workspace.distance(nodeId) + heuristic.lowerBound(nodeId, endNodeId));
+        return new ApproximateRoute(
+                new SingleRoute(getEdgesFromPredecessor(endNodeId, startNodeId, workspace)), cost,
+                lowerBound);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal menant au plus proche de plusieurs
+     * noeuds d'arrivée, au moyen d'une seule recherche A*
+     * 
+     * L'heuristique de la recherche est la plus petite des bornes de l'heuristique du
+     * planificateur entre un noeud et chacune des arrivées, et la recherche s'arrête dès qu'une
+     * arrivée est visitée. Lorsque l'heuristique est la distance à vol d'oiseau, les arrivées
+     * examinées pour un noeud sont limitées, au moyen des secteurs du graphe, à celles pouvant être
+     * la plus proche de lui. Les arrivées ne pouvant certainement pas être atteintes selon les
+     * composantes connexes sont ignorées.
+     * 
+     * @param startNodeId   identité du noeud de départ
+     * @param targetNodeIds identité des noeuds d'arrivée
+     * 
+     * @throws IllegalArgumentException si aucun noeud d'arrivée n'est donné ou si le noeud de
+     *                                  départ est l'un d'entre eux
+     * 
+     * @return l'itinéraire menant à l'arrivée la plus proche, accompagné de celle-ci, ou null si
+     *         aucune arrivée ne peut être atteinte
+     */
+    public TargetRoute bestRouteToNearest(int startNodeId, int[] targetNodeIds) {
+        Preconditions.checkArgument(targetNodeIds.length > 0);
+        int[] sortedTargetNodeIds = IntStream.of(targetNodeIds)
+                .filter(nodeId -> components == null || components.mayReach(startNodeId, nodeId))
+                .sorted().distinct().toArray();
+        Preconditions.checkArgument(Arrays.binarySearch(sortedTargetNodeIds, startNodeId) < 0);
+        if (sortedTargetNodeIds.length == 0)
+            return null;
+
+        NearestTargetHeuristic targetHeuristic = new NearestTargetHeuristic(graph, heuristic,
+                sortedTargetNodeIds);
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+        workspace.setDistance(startNodeId, 0);
+        NodeQueue queue = workspace.heap();
+        queue.push(startNodeId, 0);
+
+        while (!queue.isEmpty()) {
+            int currentId = workspace.settleNext();
+            float currentDistance = workspace.distance(currentId);
+            if (Arrays.binarySearch(sortedTargetNodeIds, currentId) >= 0)
+                return new TargetRoute(currentId, new SingleRoute(
+                        getEdgesFromPredecessor(currentId, startNodeId, workspace)),
+                        currentDistance);
+
+            for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
+                int edgeId = graph.nodeOutEdgeId(currentId, i);
+                int nPrime = graph.edgeTargetNodeId(edgeId);
+                float d = currentDistance + edgeCost(currentId, edgeId);
+                if (d < workspace.distance(nPrime)) {
+                    workspace.update(nPrime, d, (i << 28) | currentId);
+                    queue.push(nPrime, d + targetHeuristic.lowerBound(nPrime));
+                }
+            }
+            workspace.setDistance(currentId, ALREADY_DEFINE_FLOAT);
+        }
         return null;
     }
 
     /**
-     * Enregistrement représentant un noeud pondéré
+     * Méthode permettant d'obtenir les itinéraires de coût minimal entre plusieurs paires de
+     * noeuds, calculés en parallèle
      * 
-     * @author Marc FARHAT (325811)
-     * @author Florian COMTE (346006)
+     * Les recherches sont réparties sur les fils d'exécution du ForkJoinPool commun, chacun
+     * utilisant son propre espace de travail, le graphe n'étant que lu et donc partagé sans
+     * verrou. La fonction de coût et l'heuristique doivent donc elles aussi pouvoir être
+     * appelées depuis plusieurs fils d'exécution.
+     * 
+     * @param pairs paires de noeuds de départ et d'arrivée
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée d'une paire sont les
+     *                                  mêmes
+     * 
+     * @return la liste des itinéraires de coût minimal, dans l'ordre des paires, contenant null
+     *         pour les paires entre lesquelles il n'existe pas d'itinéraire
      */
-    private record WeightedNode(int nodeId, float distance) implements Comparable<WeightedNode> {
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public int compareTo(WeightedNode that) {
-            return Float.compare(this.distance, that.distance);
+    public List<Route> bestRoutesBetween(List<NodePair> pairs) {
+        for (NodePair pair : pairs)
+            Preconditions.checkArgument(pair.startNodeId() != pair.endNodeId());
+
+        return pairs.parallelStream()
+                .map(pair -> bestRouteBetween(pair.startNodeId(), pair.endNodeId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Méthode permettant d'obtenir la matrice des coûts et des longueurs des itinéraires de coût
+     * minimal entre des noeuds de départ et des noeuds d'arrivée, sans construire les itinéraires
+     * 
+     * Une seule recherche de Dijkstra est effectuée par noeud de départ, qui s'arrête dès que
+     * tous les noeuds d'arrivée ont été visités, à l'exception de ceux que les composantes
+     * connexes désignent comme inatteignables. Les recherches sont effectuées en parallèle.
+     * 
+     * @param sourceNodeIds identité des noeuds de départ
+     * @param targetNodeIds identité des noeuds d'arrivée
+     * 
+     * @return la matrice des coûts, dont l'entrée (i, j) correspond à l'itinéraire allant du
+     *         i-ème noeud de départ au j-ème noeud d'arrivée
+     */
+    public CostMatrix costMatrix(int[] sourceNodeIds, int[] targetNodeIds) {
+        CostMatrix matrix = new CostMatrix(sourceNodeIds.length, targetNodeIds.length);
+        boolean[] isTarget = new boolean[graph.nodeCount()];
+        int[] distinctTargets = new int[targetNodeIds.length];
+        int distinctTargetCount = 0;
+        for (int targetNodeId : targetNodeIds) {
+            if (!isTarget[targetNodeId]) {
+                isTarget[targetNodeId] = true;
+                distinctTargets[distinctTargetCount++] = targetNodeId;
+            }
         }
+
+        int targetCount = distinctTargetCount;
+        IntStream.range(0, sourceNodeIds.length).parallel().forEach(sourceIndex -> {
+            int sourceNodeId = sourceNodeIds[sourceIndex];
+            // les arrivées certainement inatteignables ne sont pas attendues
+            int reachableTargetCount = targetCount;
+            if (components != null) {
+                for (int i = 0; i < targetCount; i++) {
+                    if (!components.mayReach(sourceNodeId, distinctTargets[i]))
+                        reachableTargetCount--;
+                }
+            }
+
+            SearchWorkspace workspace = workspaces.get();
+            searchTargets(workspace, sourceNodeId, isTarget, reachableTargetCount);
+            for (int targetIndex = 0; targetIndex < targetNodeIds.length; targetIndex++) {
+                int targetNodeId = targetNodeIds[targetIndex];
+                float cost = workspace.distance(targetNodeId);
+                if (cost != Float.POSITIVE_INFINITY)
+                    matrix.set(sourceIndex, targetIndex, cost, workspace.length(targetNodeId));
+            }
+        });
+        return matrix;
     }
 
     /**
-     * Méthode permettant d'analyser le noeud actuel et d'ajouter les noeuds à analyser dans la
-     * queue
+     * Méthode permettant d'obtenir la zone atteignable depuis un noeud sans dépasser un budget
+     * 
+     * La zone est obtenue au moyen d'une unique recherche de Dijkstra bornée par le budget, avec
+     * la même fonction de coût que les itinéraires. Lorsque le budget est une longueur, les noeuds
+     * dont le chemin de coût minimal est trop long sont tout de même développés, afin que les
+     * chemins plus coûteux mais plus courts qu'ils éliminent ne soient pas retenus, et la recherche
+     * s'arrête dès que la file ne contient plus que des noeuds dont le chemin est trop long.
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param budget      budget, en coût ou en mètres selon son type
+     * @param kind        type du budget
+     * 
+     * @throws IllegalArgumentException si le budget est négatif
+     * 
+     * @return la zone atteignable depuis le noeud de départ
+     */
+    public Isochrone isochrone(int startNodeId, double budget, Isochrone.BudgetKind kind) {
+        Preconditions.checkArgument(budget >= 0);
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+        workspace.setDistance(startNodeId, 0);
+        workspace.setLength(startNodeId, 0);
+        NodeQueue queue = workspace.heap();
+        queue.push(startNodeId, 0);
+
+        int count = 0;
+        int[] nodeIds = new int[INITIAL_ISOCHRONE_CAPACITY];
+        boolean costBudget = kind == Isochrone.BudgetKind.COST;
+        // nombre de noeuds de la file dont le chemin respecte le budget de longueur
+        int withinLengthCount = 1;
+        while (!queue.isEmpty()
+                && (costBudget ? queue.minKey() <= budget : withinLengthCount > 0)) {
+            int currentId = workspace.settleNext();
+            float currentDistance = workspace.distance(currentId);
+            double currentLength = workspace.length(currentId);
+            if (costBudget || currentLength <= budget) {
+                if (count == nodeIds.length)
+                    nodeIds = Arrays.copyOf(nodeIds, 2 * count);
+                nodeIds[count++] = currentId;
+                if (!costBudget)
+                    withinLengthCount--;
+            }
+
+            for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
+                int edgeId = graph.nodeOutEdgeId(currentId, i);
+                int nPrime = graph.edgeTargetNodeId(edgeId);
+
+                float d = currentDistance + edgeCost(currentId, edgeId);
+                if (d < workspace.distance(nPrime)) {
+                    double length = currentLength + graph.edgeLength(edgeId);
+                    if (queue.contains(nPrime) && workspace.length(nPrime) <= budget)
+                        withinLengthCount--;
+                    if (length <= budget)
+                        withinLengthCount++;
+
+                    workspace.setDistance(nPrime, d);
+                    workspace.setLength(nPrime, length);
+                    queue.push(nPrime, d);
+                }
+            }
+        }
+
+        nodeIds = Arrays.copyOf(nodeIds, count);
+        float[] costs = new float[count];
+        double[] lengths = new double[count];
+        int edgeCount = 0;
+        int[] edgeIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            int nodeId = nodeIds[i];
+            costs[i] = workspace.distance(nodeId);
+            lengths[i] = workspace.length(nodeId);
+            for (int j = 0; j < graph.nodeOutDegree(nodeId); j++) {
+                int edgeId = graph.nodeOutEdgeId(nodeId, j);
+                float cost = edgeCost(nodeId, edgeId);
+                // l'arête doit elle-même pouvoir être parcourue sans dépasser le budget
+                boolean reachable = cost != Float.POSITIVE_INFINITY
+                        && (costBudget ? costs[i] + cost <= budget
+                                : lengths[i] + graph.edgeLength(edgeId) <= budget);
+                if (reachable) {
+                    if (edgeCount == edgeIds.length)
+                        edgeIds = Arrays.copyOf(edgeIds, 2 * edgeCount + 1);
+                    edgeIds[edgeCount++] = edgeId;
+                }
+            }
+        }
+        return new Isochrone(graph, nodeIds, costs, lengths, Arrays.copyOf(edgeIds, edgeCount));
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds du graphe du planificateur
+     * 
+     * @return le nombre de noeuds du graphe
+     */
+    int nodeCount() {
+        return graph.nodeCount();
+    }
+
+    /**
+     * Méthode permettant de calculer, au moyen d'une recherche de Dijkstra complète, l'arbre des
+     * itinéraires de coût minimal depuis un noeud vers tous les noeuds du graphe
+     * 
+     * @param startNodeId identité du noeud de départ
+     * 
+     * @return l'arbre des itinéraires de coût minimal, dont les tableaux sont propres à l'arbre
+     */
+    ShortestPathTree shortestPathTree(int startNodeId) {
+        float[] costs = new float[graph.nodeCount()];
+        int[] predecessors = new int[graph.nodeCount()];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset();
+        workspace.setDistance(startNodeId, 0);
+        NodeQueue queue = workspace.heap();
+        queue.push(startNodeId, 0);
+
+        while (!queue.isEmpty()) {
+            int currentId = workspace.settleNext();
+            float currentDistance = workspace.distance(currentId);
+            costs[currentId] = currentDistance;
+            if (currentId != startNodeId)
+                predecessors[currentId] = workspace.predecessor(currentId);
+
+            for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
+                int edgeId = graph.nodeOutEdgeId(currentId, i);
+                int nPrime = graph.edgeTargetNodeId(edgeId);
+                float d = currentDistance + edgeCost(currentId, edgeId);
+                if (d < workspace.distance(nPrime)) {
+                    workspace.update(nPrime, d, (i << 28) | currentId);
+                    queue.push(nPrime, d);
+                }
+            }
+        }
+        return new ShortestPathTree(graph, startNodeId, costs, predecessors);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds visités lors de la dernière recherche
+     * effectuée par le fil d'exécution courant, dans les deux sens en mode bidirectionnel
      * 
-     * @param distance    tableau des distances
-     * @param predecessor tableau des prédécesseurs
-     * @param queue       queue des noeuds en attente de parcours
+     * @return le nombre de noeuds visités lors de la dernière recherche
+     */
+    public int settledNodeCount() {
+        int count = workspaces.get().settledCount();
+        if (mode == SearchMode.BIDIRECTIONAL)
+            count += backwardWorkspaces.get().settledCount();
+        return count;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal au moyen d'une recherche du mode
+     * du planificateur
+     * 
+     * @param startNodeId identité du de départ
+     * @param endNodeId   identité du noeud d'arrivé
+     * @param limits      limites de la recherche
+     * @param sparse      TRUE pour effectuer la recherche en mode creux
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    private Route routeBetween(int startNodeId, int endNodeId, QueryLimits limits,
+            boolean sparse) {
+        return mode == SearchMode.BIDIRECTIONAL
+                ? bidirectionalRouteBetween(startNodeId, endNodeId, limits, sparse)
+                : unidirectionalRouteBetween(startNodeId, endNodeId, limits, sparse);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal au moyen d'une recherche A*
+     * depuis le noeud de départ
+     * 
+     * @param startNodeId identité du de départ
+     * @param endNodeId   identité du noeud d'arrivé
+     * @param limits      limites de la recherche
+     * @param sparse      TRUE pour effectuer la recherche en mode creux
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    private Route unidirectionalRouteBetween(int startNodeId, int endNodeId,
+            QueryLimits limits, boolean sparse) {
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset(limits, sparse);
+        workspace.setDistance(startNodeId, 0);
+
+        NodeQueue queue = workspace.heap();
+        queue.push(startNodeId, 0);
+
+        while (!queue.isEmpty()) {
+            int currentId = workspace.settleNext();
+
+            // si on arrive au point d'arrivée
+            if (currentId == endNodeId)
+                return new SingleRoute(getEdgesFromPredecessor(endNodeId, startNodeId, workspace));
+
+            analyseCurrentNode(workspace, currentId, endNodeId);
+            workspace.setDistance(currentId, ALREADY_DEFINE_FLOAT);
+        }
+        return null;
+    }
+
+    /**
+     * Méthode permettant de poursuivre une recherche conservée jusqu'à ce qu'elle ait visité un
+     * noeud donné, puis d'obtenir l'itinéraire entre la racine et ce noeud
+     * 
+     * Lorsque le noeud diffère de celui de la requête précédente, les clefs des noeuds de la file
+     * sont recalculées avec l'heuristique du nouveau noeud. Les noeuds visités, dont la distance
+     * est remplacée par ALREADY_DEFINE_FLOAT, ne sont plus jamais modifiés.
+     * 
+     * @param search      recherche conservée
+     * @param otherNodeId identité du noeud d'arrivée d'une recherche avant, ou du noeud de départ
+     *                    d'une recherche arrière
+     * @param limits      limites de la poursuite de la recherche, le nombre maximal de noeuds
+     *                    visités ne portant que sur les noeuds visités par cette poursuite
+     * 
+     * @throws IllegalArgumentException si le noeud est la racine de la recherche
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    Route resumeSearch(RetainedSearch search, int otherNodeId, QueryLimits limits) {
+        int rootNodeId = search.rootNodeId();
+        Preconditions.checkArgument(otherNodeId != rootNodeId);
+        boolean forward = search.isForward();
+        int startNodeId = forward ? rootNodeId : otherNodeId;
+        int endNodeId = forward ? otherNodeId : rootNodeId;
+        if (components != null && !components.mayReach(startNodeId, endNodeId))
+            return null;
+
+        SearchWorkspace workspace = search.workspace();
+        if (search.keyNodeId() == -1) {
+            workspace.reset(limits);
+            workspace.setDistance(rootNodeId, 0);
+            workspace.heap().push(rootNodeId, 0);
+        } else {
+            workspace.setLimits(limits);
+            NodeQueue queue = workspace.heap();
+            if (search.keyNodeId() != otherNodeId) {
+                int[] openNodeIds = queue.nodes();
+                queue.clear();
+                for (int nodeId : openNodeIds)
+                    queue.push(nodeId, workspace.distance(nodeId)
+                            + retainedLowerBound(nodeId, startNodeId, endNodeId, forward));
+            }
+        }
+        search.setKeyNodeId(otherNodeId);
+
+        NodeQueue queue = workspace.heap();
+        while (workspace.distance(otherNodeId) != ALREADY_DEFINE_FLOAT) {
+            if (queue.isEmpty())
+                return null;
+            int currentId = workspace.settleNext();
+            float currentDistance = workspace.distance(currentId);
+            if (forward) {
+                for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
+                    int edgeId = graph.nodeOutEdgeId(currentId, i);
+                    int nPrime = graph.edgeTargetNodeId(edgeId);
+                    float d = currentDistance + edgeCost(currentId, edgeId);
+                    if (d < workspace.distance(nPrime)) {
+                        workspace.update(nPrime, d, (i << 28) | currentId);
+                        queue.push(nPrime, d + heuristic.lowerBound(nPrime, endNodeId));
+                    }
+                }
+            } else {
+                for (int i = 0; i < graph.nodeInDegree(currentId); i++) {
+                    int edgeId = graph.nodeInEdgeId(currentId, i);
+                    int nPrime = graph.nodeInEdgeSourceId(currentId, i);
+                    float d = currentDistance + edgeCost(nPrime, edgeId);
+                    if (d < workspace.distance(nPrime)) {
+                        // index de l'arête parmi les arêtes sortantes de son noeud de départ
+                        int edgeIndex = edgeId - graph.nodeOutEdgeId(nPrime, 0);
+                        workspace.update(nPrime, d, (edgeIndex << 28) | currentId);
+                        queue.push(nPrime, d + heuristic.lowerBound(startNodeId, nPrime));
+                    }
+                }
+            }
+            workspace.setDistance(currentId, ALREADY_DEFINE_FLOAT);
+        }
+
+        return new SingleRoute(forward
+                ? getEdgesFromPredecessor(endNodeId, startNodeId, workspace)
+                : getEdgesFromSuccessor(startNodeId, endNodeId, workspace));
+    }
+
+    /**
+     * Méthode permettant d'obtenir la borne inférieure du coût restant d'un noeud d'une recherche
+     * conservée
+     * 
+     * @param nodeId      identité du noeud
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * @param forward     TRUE pour une recherche avant, FALSE pour une recherche arrière
+     * 
+     * @return la borne inférieure du coût entre le noeud et l'arrivée (recherche avant) ou entre
+     *         le départ et le noeud (recherche arrière)
+     */
+    private float retainedLowerBound(int nodeId, int startNodeId, int endNodeId,
+            boolean forward) {
+        return forward ? heuristic.lowerBound(nodeId, endNodeId)
+                : heuristic.lowerBound(startNodeId, nodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal au moyen d'une recherche A*
+     * bidirectionnelle
+     * 
+     * Les deux recherches utilisent le potentiel moyen p(n) = (h(n, arrivée) - h(départ, n)) / 2
+     * (et son opposé pour la recherche arrière), construit à partir des bornes de l'heuristique,
+     * ce qui le rend cohérent dans les deux sens. La recherche s'arrête dès que la somme des plus
+     * petites clefs des deux files dépasse le coût du meilleur itinéraire trouvé.
+     * 
+     * @param startNodeId identité du de départ
+     * @param endNodeId   identité du noeud d'arrivé
+     * @param limits      limites de chacune des deux recherches
+     * @param sparse      TRUE pour effectuer les recherches en mode creux
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    private Route bidirectionalRouteBetween(int startNodeId, int endNodeId,
+            QueryLimits limits, boolean sparse) {
+        SearchWorkspace forward = workspaces.get();
+        SearchWorkspace backward = backwardWorkspaces.get();
+        forward.reset(limits, sparse);
+        backward.reset(limits, sparse);
+
+        forward.setDistance(startNodeId, 0);
+        forward.heap().push(startNodeId, potential(startNodeId, startNodeId, endNodeId));
+        backward.setDistance(endNodeId, 0);
+        backward.heap().push(endNodeId, -potential(endNodeId, startNodeId, endNodeId));
+
+        float bestCost = Float.POSITIVE_INFINITY;
+        int meetingNodeId = -1;
+
+        while (!forward.heap().isEmpty() && !backward.heap().isEmpty()
+                && forward.heap().minKey() + backward.heap().minKey() < bestCost) {
+            int meetingCandidateId;
+            if (forward.heap().minKey() <= backward.heap().minKey())
+                meetingCandidateId = analyseForwardNode(forward, backward, forward.settleNext(),
+                        startNodeId, endNodeId);
+            else
+                meetingCandidateId = analyseBackwardNode(forward, backward, backward.settleNext(),
+                        startNodeId, endNodeId);
+
+            if (meetingCandidateId != -1) {
+                float cost = forward.distance(meetingCandidateId)
+                        + backward.distance(meetingCandidateId);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    meetingNodeId = meetingCandidateId;
+                }
+            }
+        }
+
+        if (meetingNodeId == -1)
+            return null;
+
+        List<Edge> edges = getEdgesFromPredecessor(meetingNodeId, startNodeId, forward);
+        edges.addAll(getEdgesFromSuccessor(meetingNodeId, endNodeId, backward));
+        return new SingleRoute(edges);
+    }
+
+    /**
+     * Méthode permettant d'effectuer une recherche de Dijkstra depuis un noeud jusqu'à ce que tous
+     * les noeuds d'arrivée aient été visités, les coûts et les longueurs des chemins obtenus étant
+     * laissés dans l'espace de travail
+     * 
+     * @param workspace   espace de travail de la recherche
+     * @param startNodeId identité du noeud de départ
+     * @param isTarget    TRUE pour les noeuds d'arrivée
+     * @param targetCount nombre de noeuds d'arrivée distincts
+     */
+    private void searchTargets(SearchWorkspace workspace, int startNodeId, boolean[] isTarget,
+            int targetCount) {
+        workspace.reset();
+        workspace.setDistance(startNodeId, 0);
+        workspace.setLength(startNodeId, 0);
+        NodeQueue queue = workspace.heap();
+        queue.push(startNodeId, 0);
+
+        int remainingTargetCount = targetCount;
+        while (!queue.isEmpty() && remainingTargetCount > 0) {
+            int currentId = workspace.settleNext();
+            if (isTarget[currentId])
+                remainingTargetCount--;
+
+            float currentDistance = workspace.distance(currentId);
+            double currentLength = workspace.length(currentId);
+            for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
+                int edgeId = graph.nodeOutEdgeId(currentId, i);
+                int nPrime = graph.edgeTargetNodeId(edgeId);
+
+                float d = currentDistance + edgeCost(currentId, edgeId);
+                if (d < workspace.distance(nPrime)) {
+                    workspace.setDistance(nPrime, d);
+                    workspace.setLength(nPrime, currentLength + graph.edgeLength(edgeId));
+                    queue.push(nPrime, d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Méthode permettant d'effectuer les recherches de Dijkstra avant et arrière du calcul des
+     * itinéraires alternatifs, en alternant entre les deux selon la plus petite clef, jusqu'à ce
+     * que leurs files ne contiennent plus que des noeuds dont le coût dépasse maxStretch fois le
+     * coût minimal
+     * 
+     * @param forward     espace de travail de la recherche avant
+     * @param backward    espace de travail de la recherche arrière
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * @param maxStretch  rapport maximal entre le coût d'un itinéraire et le coût minimal
+     * 
+     * @return l'identité des noeuds visités par la recherche avant
+     */
+    private int[] searchAlternativeTrees(SearchWorkspace forward, SearchWorkspace backward,
+            int startNodeId, int endNodeId, float maxStretch) {
+        forward.reset();
+        backward.reset();
+        forward.setDistance(startNodeId, 0);
+        forward.heap().push(startNodeId, 0);
+        backward.setDistance(endNodeId, 0);
+        backward.heap().push(endNodeId, 0);
+
+        int count = 0;
+        int[] settledIds = new int[INITIAL_PATH_CAPACITY];
+        float bestCost = Float.POSITIVE_INFINITY;
+        while (true) {
+            float bound = maxStretch * bestCost;
+            boolean forwardOpen = !forward.heap().isEmpty() && forward.heap().minKey() <= bound;
+            boolean backwardOpen = !backward.heap().isEmpty()
+                    && backward.heap().minKey() <= bound;
+            // sans itinéraire, l'épuisement de l'une des recherches suffit à conclure
+            if (bestCost == Float.POSITIVE_INFINITY && (!forwardOpen || !backwardOpen)
+                    || !forwardOpen && !backwardOpen)
+                break;
+
+            if (forwardOpen
+                    && (!backwardOpen || forward.heap().minKey() <= backward.heap().minKey())) {
+                int currentId = forward.settleNext();
+                if (count == settledIds.length)
+                    settledIds = Arrays.copyOf(settledIds, 2 * count);
+                settledIds[count++] = currentId;
+                bestCost = expandAlternativeTree(forward, backward, currentId, true, bestCost);
+            } else {
+                bestCost = expandAlternativeTree(backward, forward, backward.settleNext(), false,
+                        bestCost);
+            }
+        }
+        return Arrays.copyOf(settledIds, count);
+    }
+
+    /**
+     * Méthode permettant d'analyser un noeud de l'une des recherches du calcul des itinéraires
+     * alternatifs, en parcourant ses arêtes sortantes (recherche avant) ou entrantes (recherche
+     * arrière)
+     * 
+     * @param tree        espace de travail de la recherche
+     * @param other       espace de travail de la recherche de sens opposé
      * @param currentId   identité du noeud en cours d'analyse
-     * @param endPoint    point d'arrivée dans le système Suisse
+     * @param forwardTree TRUE pour la recherche avant, FALSE pour la recherche arrière
+     * @param bestCost    coût du meilleur itinéraire trouvé jusqu'ici
+     * 
+     * @return le coût du meilleur itinéraire trouvé après l'analyse du noeud
+     */
+    private float expandAlternativeTree(SearchWorkspace tree, SearchWorkspace other,
+            int currentId, boolean forwardTree, float bestCost) {
+        float currentDistance = tree.distance(currentId);
+        int degree = forwardTree ? graph.nodeOutDegree(currentId) : graph.nodeInDegree(currentId);
+        for (int i = 0; i < degree; i++) {
+            int edgeId;
+            int nPrime;
+            int edgeIndex;
+            float d;
+            if (forwardTree) {
+                edgeId = graph.nodeOutEdgeId(currentId, i);
+                nPrime = graph.edgeTargetNodeId(edgeId);
+                edgeIndex = i;
+                d = currentDistance + edgeCost(currentId, edgeId);
+            } else {
+                edgeId = graph.nodeInEdgeId(currentId, i);
+                nPrime = graph.nodeInEdgeSourceId(currentId, i);
+                // index de l'arête parmi les arêtes sortantes de son noeud de départ
+                edgeIndex = edgeId - graph.nodeOutEdgeId(nPrime, 0);
+                d = currentDistance + edgeCost(nPrime, edgeId);
+            }
+
+            if (d < tree.distance(nPrime)) {
+                tree.update(nPrime, d, (edgeIndex << 28) | currentId);
+                tree.heap().push(nPrime, d);
+                bestCost = Math.min(bestCost, d + other.distance(nPrime));
+            }
+        }
+        return bestCost;
+    }
+
+    /**
+     * Méthode permettant de savoir si une arête appartient à la fois à l'arbre de la recherche
+     * avant et à celui de la recherche arrière, c.-à-d. à un plateau
+     * 
+     * @param fromNodeId  identité du noeud de départ de l'arête
+     * @param toNodeId    identité du noeud d'arrivée de l'arête
+     * @param startNodeId identité du noeud de départ de l'itinéraire
+     * @param endNodeId   identité du noeud d'arrivée de l'itinéraire
+     * @param forward     espace de travail de la recherche avant
+     * @param backward    espace de travail de la recherche arrière
+     * 
+     * @return TRUE si le prédécesseur du noeud d'arrivée dans l'arbre avant et le successeur du
+     *         noeud de départ dans l'arbre arrière sont la même arête, sinon FALSE
+     */
+    private boolean isPlateauEdge(int fromNodeId, int toNodeId, int startNodeId, int endNodeId,
+            SearchWorkspace forward, SearchWorkspace backward) {
+        if (fromNodeId == endNodeId || toNodeId == startNodeId
+                || forward.distance(toNodeId) == Float.POSITIVE_INFINITY
+                || backward.distance(fromNodeId) == Float.POSITIVE_INFINITY)
+            return false;
+
+        int predecessor = forward.predecessor(toNodeId);
+        int successor = backward.predecessor(fromNodeId);
+        return Bits.extractUnsigned(predecessor, 0, 28) == fromNodeId
+                && Bits.extractUnsigned(successor, 0, 28) == toNodeId
+                && Bits.extractUnsigned(predecessor, 28, 4) == Bits.extractUnsigned(successor,
+                        28, 4);
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût du plateau commençant à un noeud, en suivant l'arbre
+     * de la recherche arrière tant que ses arêtes appartiennent aussi à l'arbre avant
+     * 
+     * @param viaNodeId   identité du premier noeud du plateau
+     * @param startNodeId identité du noeud de départ de l'itinéraire
+     * @param endNodeId   identité du noeud d'arrivée de l'itinéraire
+     * @param forward     espace de travail de la recherche avant
+     * @param backward    espace de travail de la recherche arrière
+     * 
+     * @return le coût du plateau
+     */
+    private float plateauCost(int viaNodeId, int startNodeId, int endNodeId,
+            SearchWorkspace forward, SearchWorkspace backward) {
+        int nodeId = viaNodeId;
+        while (nodeId != endNodeId) {
+            int nextId = Bits.extractUnsigned(backward.predecessor(nodeId), 0, 28);
+            if (!isPlateauEdge(nodeId, nextId, startNodeId, endNodeId, forward, backward))
+                break;
+            nodeId = nextId;
+        }
+        return forward.distance(nodeId) - forward.distance(viaNodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité des arêtes de l'itinéraire passant par un noeud,
+     * formé du chemin de l'arbre avant jusqu'au noeud puis de celui de l'arbre arrière
+     * 
+     * @param viaNodeId   identité du noeud
+     * @param startNodeId identité du noeud de départ de l'itinéraire
+     * @param endNodeId   identité du noeud d'arrivée de l'itinéraire
+     * @param forward     espace de travail de la recherche avant
+     * @param backward    espace de travail de la recherche arrière
+     * 
+     * @return l'identité des arêtes de l'itinéraire, dans l'ordre
+     */
+    private int[] viaEdgeIds(int viaNodeId, int startNodeId, int endNodeId,
+            SearchWorkspace forward, SearchWorkspace backward) {
+        int count = 0;
+        int[] edgeIds = new int[INITIAL_PATH_CAPACITY];
+        for (int nodeId = viaNodeId; nodeId != startNodeId;) {
+            int predecessor = forward.predecessor(nodeId);
+            int edgeIndex = Bits.extractUnsigned(predecessor, 28, 4);
+            nodeId = Bits.extractUnsigned(predecessor, 0, 28);
+            if (count == edgeIds.length)
+                edgeIds = Arrays.copyOf(edgeIds, 2 * count);
+            edgeIds[count++] = graph.nodeOutEdgeId(nodeId, edgeIndex);
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int edgeId = edgeIds[i];
+            edgeIds[i] = edgeIds[j];
+            edgeIds[j] = edgeId;
+        }
+
+        for (int nodeId = viaNodeId; nodeId != endNodeId;) {
+            int successor = backward.predecessor(nodeId);
+            if (count == edgeIds.length)
+                edgeIds = Arrays.copyOf(edgeIds, 2 * count);
+            edgeIds[count++] = graph.nodeOutEdgeId(nodeId, Bits.extractUnsigned(successor, 28, 4));
+            nodeId = Bits.extractUnsigned(successor, 0, 28);
+        }
+        return Arrays.copyOf(edgeIds, count);
+    }
+
+    /**
+     * Méthode permettant de savoir si un itinéraire ne passe pas deux fois par le même noeud
+     * 
+     * @param edgeIds     identité des arêtes de l'itinéraire, dans l'ordre
+     * @param startNodeId identité du noeud de départ de l'itinéraire
+     * 
+     * @return TRUE si tous les noeuds de l'itinéraire sont distincts, sinon FALSE
      */
-    private void analyseCurrentNode(float[] distance, int[] predecessor, Queue<WeightedNode> queue,
-            int currentId, PointCh endPoint) {
+    private boolean isSimplePath(int[] edgeIds, int startNodeId) {
+        int[] nodeIds = new int[edgeIds.length + 1];
+        nodeIds[0] = startNodeId;
+        for (int i = 0; i < edgeIds.length; i++)
+            nodeIds[i + 1] = graph.edgeTargetNodeId(edgeIds[i]);
+        Arrays.sort(nodeIds);
+        for (int i = 1; i < nodeIds.length; i++) {
+            if (nodeIds[i] == nodeIds[i - 1])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût des arêtes d'un itinéraire appartenant aussi à un autre
+     * itinéraire
+     * 
+     * @param edgeIds       identité des arêtes de l'itinéraire, dans l'ordre
+     * @param startNodeId   identité du noeud de départ de l'itinéraire
+     * @param sortedEdgeIds identité des arêtes de l'autre itinéraire, triées
+     * 
+     * @return le coût des arêtes partagées
+     */
+    private float sharedCost(int[] edgeIds, int startNodeId, int[] sortedEdgeIds) {
+        float cost = 0;
+        int fromNodeId = startNodeId;
+        for (int edgeId : edgeIds) {
+            if (Arrays.binarySearch(sortedEdgeIds, edgeId) >= 0)
+                cost += edgeCost(fromNodeId, edgeId);
+            fromNodeId = graph.edgeTargetNodeId(edgeId);
+        }
+        return cost;
+    }
+
+    /**
+     * Méthode permettant de créer l'espace de travail d'une recherche
+     * 
+     * @return un nouvel espace de travail
+     */
+    private SearchWorkspace newWorkspace() {
+        return new SearchWorkspace(graph.nodeCount(),
+                queueType == QueueType.RADIX_HEAP ? RadixHeap::new : NodeHeap::new);
+    }
+
+    /**
+     * Méthode permettant d'analyser le noeud actuel et d'ajouter les noeuds à analyser dans la
+     * queue, ou d'y diminuer leur clef s'ils s'y trouvent déjà, en ignorant les arêtes dont le
+     * drapeau de la région d'arrivée n'est pas levé
+     * 
+     * @param workspace espace de travail de la recherche
+     * @param currentId identité du noeud en cours d'analyse
+     * @param endNodeId identité du noeud d'arrivée
+     */
+    private void analyseCurrentNode(SearchWorkspace workspace, int currentId, int endNodeId) {
+        float currentDistance = workspace.distance(currentId);
+        int endRegion = arcFlags == null ? -1 : arcFlags.nodeRegion(endNodeId);
         // parcours des arêtes sortantes du noeud
+        for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
+            int edgeId = graph.nodeOutEdgeId(currentId, i);
+            if (arcFlags != null && !arcFlags.hasFlag(edgeId, endRegion))
+                continue;
+            int nPrime = graph.edgeTargetNodeId(edgeId);
+
+            float d = currentDistance + edgeCost(currentId, edgeId);
+            if (d < workspace.distance(nPrime)) {
+                workspace.update(nPrime, d, (i << 28) | currentId);
+
+                float dWeighted = d + heuristic.lowerBound(nPrime, endNodeId);
+
+                workspace.heap().push(nPrime, dWeighted);
+            }
+        }
+    }
+
+    /**
+     * Méthode permettant d'analyser un noeud de la recherche avant en parcourant ses arêtes
+     * sortantes
+     * 
+     * @param forward     espace de travail de la recherche avant
+     * @param backward    espace de travail de la recherche arrière
+     * @param currentId   identité du noeud en cours d'analyse
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return l'identité du noeud atteint par les deux recherches offrant le meilleur coût total,
+     *         ou -1 si aucun noeud atteint n'a encore été atteint par la recherche arrière
+     */
+    private int analyseForwardNode(SearchWorkspace forward, SearchWorkspace backward,
+            int currentId, int startNodeId, int endNodeId) {
+        float currentDistance = forward.distance(currentId);
+        int meetingNodeId = meetingCandidate(forward, backward, -1, currentId);
+
         for (int i = 0; i < graph.nodeOutDegree(currentId); i++) {
             int edgeId = graph.nodeOutEdgeId(currentId, i);
             int nPrime = graph.edgeTargetNodeId(edgeId);
-            float edgeLength = (float) (graph.edgeLength(edgeId)
-                    * costFunction.costFactor(currentId, edgeId));
 
-            float d = distance[currentId] + edgeLength;
-            if (d < distance[nPrime]) {
-                distance[nPrime] = d;
-                predecessor[nPrime] = (i << 28) | currentId;
+            float d = currentDistance + edgeCost(currentId, edgeId);
+            if (d < forward.distance(nPrime)) {
+                forward.update(nPrime, d, (i << 28) | currentId);
+                forward.heap().push(nPrime, d + potential(nPrime, startNodeId, endNodeId));
+                meetingNodeId = meetingCandidate(forward, backward, meetingNodeId, nPrime);
+            }
+        }
+        return meetingNodeId;
+    }
+
+    /**
+     * Méthode permettant d'analyser un noeud de la recherche arrière en parcourant ses arêtes
+     * entrantes
+     * 
+     * @param forward     espace de travail de la recherche avant
+     * @param backward    espace de travail de la recherche arrière
+     * @param currentId   identité du noeud en cours d'analyse
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return l'identité du noeud atteint par les deux recherches offrant le meilleur coût total,
+     *         ou -1 si aucun noeud atteint n'a encore été atteint par la recherche avant
+     */
+    private int analyseBackwardNode(SearchWorkspace forward, SearchWorkspace backward,
+            int currentId, int startNodeId, int endNodeId) {
+        float currentDistance = backward.distance(currentId);
+        int meetingNodeId = meetingCandidate(forward, backward, -1, currentId);
 
-                float dWeighted = (float) (d + graph.nodePoint(nPrime).distanceTo(endPoint));
+        for (int i = 0; i < graph.nodeInDegree(currentId); i++) {
+            int edgeId = graph.nodeInEdgeId(currentId, i);
+            int nPrime = graph.nodeInEdgeSourceId(currentId, i);
 
-                queue.add(new WeightedNode(nPrime, dWeighted));
+            float d = currentDistance + edgeCost(nPrime, edgeId);
+            if (d < backward.distance(nPrime)) {
+                // index de l'arête parmi les arêtes sortantes de son noeud de départ
+                int edgeIndex = edgeId - graph.nodeOutEdgeId(nPrime, 0);
+                backward.update(nPrime, d, (edgeIndex << 28) | currentId);
+                backward.heap().push(nPrime, d - potential(nPrime, startNodeId, endNodeId));
+                meetingNodeId = meetingCandidate(forward, backward, meetingNodeId, nPrime);
             }
         }
+        return meetingNodeId;
+    }
+
+    /**
+     * Méthode permettant de choisir, entre deux noeuds, celui qui offre le meilleur coût total
+     * lorsque les deux recherches l'ont atteint
+     * 
+     * @param forward       espace de travail de la recherche avant
+     * @param backward      espace de travail de la recherche arrière
+     * @param meetingNodeId identité du meilleur noeud actuel, ou -1 s'il n'y en a pas
+     * @param nodeId        identité du noeud candidat
+     * 
+     * @return l'identité du meilleur des deux noeuds, ou -1 si aucun n'a été atteint par les deux
+     *         recherches
+     */
+    private int meetingCandidate(SearchWorkspace forward, SearchWorkspace backward,
+            int meetingNodeId, int nodeId) {
+        float cost = forward.distance(nodeId) + backward.distance(nodeId);
+        if (cost == Float.POSITIVE_INFINITY)
+            return meetingNodeId;
+        if (meetingNodeId == -1
+                || cost < forward.distance(meetingNodeId) + backward.distance(meetingNodeId))
+            return nodeId;
+        return meetingNodeId;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le potentiel d'un noeud pour la recherche avant, le potentiel
+     * de la recherche arrière étant son opposé
+     * 
+     * @param nodeId      identité du noeud
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @return le potentiel du noeud
+     */
+    private float potential(int nodeId, int startNodeId, int endNodeId) {
+        return (heuristic.lowerBound(nodeId, endNodeId)
+                - heuristic.lowerBound(startNodeId, nodeId)) / 2;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût d'une arête parcourue depuis un noeud
+     * 
+     * @param nodeId identité du noeud de départ de l'arête
+     * @param edgeId identité de l'arête
+     * 
+     * @return le coût de l'arête, c.-à-d. sa longueur pondérée par la fonction de coût, lu
+     *         directement dans la table des coûts si la fonction de coût en est une
+     */
+    private float edgeCost(int nodeId, int edgeId) {
+        if (costTable != null)
+            return costTable.edgeCost(edgeId);
+        return (float) (graph.edgeLength(edgeId) * costFunction.costFactor(nodeId, edgeId));
     }
 
     /**
@@ -131,16 +1453,17 @@ public final class RouteComputer {
      * 
      * @param endNodeId   identité du noeud d'arrivée de l'itinéraire
      * @param startNodeId identité du noeud de départ de l'itinéraire
-     * @param predecessor tableau des prédécesseurs
+     * @param workspace   espace de travail contenant les prédécesseurs
      * 
      * @return liste des arêtes
      */
-    private List<Edge> getEdgesFromPredecessor(int endNodeId, int startNodeId, int[] predecessor) {
+    private List<Edge> getEdgesFromPredecessor(int endNodeId, int startNodeId,
+            SearchWorkspace workspace) {
         LinkedList<Edge> edges = new LinkedList<>();
 
         int currentEndId = endNodeId;
         while (currentEndId != startNodeId) {
-            int currentStartNode = predecessor[currentEndId];
+            int currentStartNode = workspace.predecessor(currentEndId);
             int edgeIndex = Bits.extractUnsigned(currentStartNode, 28, 4);
             int currentStartId = Bits.extractUnsigned(currentStartNode, 0, 28);
             int edgeId = graph.nodeOutEdgeId(currentStartId, edgeIndex);
@@ -150,4 +1473,31 @@ public final class RouteComputer {
         }
         return edges;
     }
-}
\ No newline at end of file
+
+    /**
+     * Méthode permettant d'obtenir la liste de toutes les arêtes d'un itinéraire en suivant les
+     * successeurs enregistrés par une recherche arrière
+     * 
+     * @param startNodeId identité du noeud de départ de l'itinéraire
+     * @param endNodeId   identité du noeud d'arrivée de l'itinéraire
+     * @param workspace   espace de travail de la recherche arrière contenant les successeurs
+     * 
+     * @return liste des arêtes
+     */
+    private List<Edge> getEdgesFromSuccessor(int startNodeId, int endNodeId,
+            SearchWorkspace workspace) {
+        List<Edge> edges = new ArrayList<>();
+
+        int currentStartId = startNodeId;
+        while (currentStartId != endNodeId) {
+            int currentEndNode = workspace.predecessor(currentStartId);
+            int edgeIndex = Bits.extractUnsigned(currentEndNode, 28, 4);
+            int currentEndId = Bits.extractUnsigned(currentEndNode, 0, 28);
+            int edgeId = graph.nodeOutEdgeId(currentStartId, edgeIndex);
+
+            edges.add(Edge.of(graph, edgeId, currentStartId, currentEndId));
+            currentStartId = currentEndId;
+        }
+        return edges;
+    }
+}
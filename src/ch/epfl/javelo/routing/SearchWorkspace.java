@@ -0,0 +1,252 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntFunction;
+
+/**
+ * Classe représentant l'espace de travail réutilisable d'une recherche d'itinéraire
+ *
+ * Les entrées des tableaux sont estampillées par une génération, de sorte que la réinitialisation
+ * de l'espace de travail se fasse en temps constant : seules les entrées écrites depuis la
+ * dernière réinitialisation sont considérées comme valides.
+ *
+ * Une recherche peut aussi être effectuée en mode creux, dans lequel les distances, les
+ * prédécesseurs et la position des noeuds dans la file sont enregistrés dans des tables
+ * associatives dont la taille ne dépend que du nombre de noeuds atteints. Les tableaux, dont la
+ * taille est proportionnelle au nombre de noeuds du graphe, ne sont alloués que lors de la
+ * première recherche effectuée en mode dense, de sorte que la mémoire d'un fil d'exécution
+ * n'effectuant que des recherches locales ne dépende que de leur étendue. Les longueurs ne
+ * peuvent être enregistrées qu'en mode dense.
+ *
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class SearchWorkspace {
+    private static final float UNREACHED = Float.POSITIVE_INFINITY;
+
+    private final int nodeCount;
+    private final IntFunction<NodeQueue> queueFactory;
+    private int[] stamps;
+    private float[] distances;
+    private int[] predecessors;
+    private NodeQueue denseHeap;
+    private IntFloatMap sparseDistances;
+    private IntIntMap sparsePredecessors;
+    private NodeQueue sparseHeap;
+    private boolean sparse;
+    private NodeQueue heap;
+    private double[] lengths;
+    private QueryLimits limits;
+    private int generation;
+    private int settledCount;
+    private int limitsSettledCount;
+
+    /**
+     * Construit un espace de travail pour un graphe possédant le nombre de noeuds donné
+     *
+     * @param nodeCount nombre total de noeuds du graphe
+     */
+    SearchWorkspace(int nodeCount) {
+        this(nodeCount, NodeHeap::new);
+    }
+
+    /**
+     * Construit un espace de travail pour un graphe possédant le nombre de noeuds donné, dont la
+     * file de priorité des recherches en mode dense est créée par la fabrique donnée
+     *
+     * @param nodeCount    nombre total de noeuds du graphe
+     * @param queueFactory fabrique créant, à partir du nombre de noeuds du graphe, une file de
+     *                     priorité vide pouvant contenir tous les noeuds du graphe
+     */
+    SearchWorkspace(int nodeCount, IntFunction<NodeQueue> queueFactory) {
+        this.nodeCount = nodeCount;
+        this.queueFactory = queueFactory;
+        this.limits = QueryLimits.NONE;
+        this.generation = 1;
+    }
+
+    /**
+     * Méthode permettant de réinitialiser l'espace de travail avant une nouvelle recherche, qui
+     * n'est pas limitée
+     */
+    void reset() {
+        reset(QueryLimits.NONE);
+    }
+
+    /**
+     * Méthode permettant de réinitialiser l'espace de travail avant une nouvelle recherche en
+     * mode dense soumise aux limites données
+     *
+     * @param limits limites de la recherche
+     */
+    void reset(QueryLimits limits) {
+        reset(limits, false);
+    }
+
+    /**
+     * Méthode permettant de réinitialiser l'espace de travail avant une nouvelle recherche
+     * soumise aux limites données, en mode creux ou dense, les structures du mode choisi étant
+     * allouées lors de sa première utilisation
+     *
+     * @param limits limites de la recherche
+     * @param sparse TRUE pour une recherche en mode creux, FALSE pour une recherche en mode dense
+     */
+    void reset(QueryLimits limits, boolean sparse) {
+        this.sparse = sparse;
+        settledCount = 0;
+        setLimits(limits);
+        if (sparse) {
+            if (sparseHeap == null) {
+                sparseDistances = new IntFloatMap(UNREACHED);
+                sparsePredecessors = new IntIntMap(0);
+                sparseHeap = new NodeHeap();
+            }
+            sparseDistances.clear();
+            sparsePredecessors.clear();
+            heap = sparseHeap;
+        } else {
+            if (denseHeap == null) {
+                stamps = new int[nodeCount];
+                distances = new float[nodeCount];
+                predecessors = new int[nodeCount];
+                denseHeap = queueFactory.apply(nodeCount);
+            }
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                generation = 0;
+            }
+            generation++;
+            heap = denseHeap;
+        }
+        heap.clear();
+    }
+
+    /**
+     * Méthode permettant de modifier les limites de la recherche sans la réinitialiser, afin de la
+     * poursuivre avec de nouvelles limites, le nombre maximal de noeuds visités ne portant que sur
+     * les noeuds visités à partir de maintenant
+     *
+     * @param limits nouvelles limites de la recherche
+     */
+    void setLimits(QueryLimits limits) {
+        this.limits = limits;
+        this.limitsSettledCount = settledCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la file de priorité de la recherche
+     *
+     * @return la file de priorité de la recherche
+     */
+    NodeQueue heap() {
+        return heap;
+    }
+
+    /**
+     * Méthode permettant de retirer de la file de priorité le noeud de clef minimale et de le
+     * compter comme visité, une recherche interrompue ne comptant pas le noeud qu'elle n'a pas
+     * retiré
+     *
+     * @throws CancellationException si la visite du noeud dépasserait les limites de la recherche
+     *
+     * @return l'identité du noeud de clef minimale, la file ne devant pas être vide
+     */
+    int settleNext() {
+        if (limits.isExceeded(settledCount + 1 - limitsSettledCount))
+            throw new CancellationException();
+        int nodeId = heap.removeMin();
+        settledCount++;
+        return nodeId;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le nombre de noeuds visités depuis la dernière réinitialisation
+     *
+     * @return le nombre de noeuds visités
+     */
+    int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la distance associée à un noeud
+     *
+     * @param nodeId identité du noeud
+     *
+     * @return la distance associée au noeud, ou l'infini positif si le noeud n'a pas encore été
+     *         atteint depuis la dernière réinitialisation
+     */
+    float distance(int nodeId) {
+        if (sparse)
+            return sparseDistances.get(nodeId);
+        return stamps[nodeId] == generation ? distances[nodeId] : UNREACHED;
+    }
+
+    /**
+     * Méthode permettant de modifier la distance associée à un noeud
+     *
+     * @param nodeId   identité du noeud
+     * @param distance nouvelle distance du noeud
+     */
+    void setDistance(int nodeId, float distance) {
+        if (sparse) {
+            sparseDistances.put(nodeId, distance);
+            return;
+        }
+        stamps[nodeId] = generation;
+        distances[nodeId] = distance;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le prédécesseur d'un noeud
+     *
+     * @param nodeId identité du noeud, qui doit avoir été atteint
+     *
+     * @return le prédécesseur du noeud
+     */
+    int predecessor(int nodeId) {
+        return sparse ? sparsePredecessors.get(nodeId) : predecessors[nodeId];
+    }
+
+    /**
+     * Méthode permettant de modifier la distance et le prédécesseur d'un noeud
+     *
+     * @param nodeId      identité du noeud
+     * @param distance    nouvelle distance du noeud
+     * @param predecessor nouveau prédécesseur du noeud
+     */
+    void update(int nodeId, float distance, int predecessor) {
+        setDistance(nodeId, distance);
+        if (sparse)
+            sparsePredecessors.put(nodeId, predecessor);
+        else
+            predecessors[nodeId] = predecessor;
+    }
+
+    /**
+     * Méthode permettant d'obtenir la longueur du chemin menant à un noeud
+     *
+     * @param nodeId identité du noeud, dont la longueur doit avoir été fixée depuis la dernière
+     *               réinitialisation
+     *
+     * @return la longueur du chemin en mètres
+     */
+    double length(int nodeId) {
+        return lengths[nodeId];
+    }
+
+    /**
+     * Méthode permettant de modifier la longueur du chemin menant à un noeud lors d'une recherche
+     * en mode dense, le tableau des longueurs n'étant alloué que lors de la première
+     * modification, seules certaines recherches en ayant besoin
+     *
+     * @param nodeId identité du noeud
+     * @param length nouvelle longueur du chemin en mètres
+     */
+    void setLength(int nodeId, double length) {
+        if (lengths == null)
+            lengths = new double[nodeCount];
+        lengths[nodeId] = length;
+    }
+}
@@ -0,0 +1,142 @@
+package ch.epfl.javelo.routing;
+
+import java.util.Arrays;
+
+import ch.epfl.javelo.Math2;
+import ch.epfl.javelo.data.Graph;
+import ch.epfl.javelo.data.GraphSectors;
+import ch.epfl.javelo.projection.SwissBounds;
+
+/**
+ * Classe représentant un couloir autour du segment reliant deux noeuds, formé des secteurs du
+ * graphe dont le centre est suffisamment proche du segment
+ * 
+ * Un secteur est retenu si la distance entre son centre et le segment ne dépasse pas la largeur
+ * du couloir augmentée de la demi-diagonale d'un secteur, si bien que tout noeud situé à moins
+ * de la largeur du couloir du segment en fait partie. Les secteurs retenus d'une même ligne de la
+ * grille étant contigus, et les noeuds d'une ligne ayant une identité contiguë, le couloir est
+ * représenté par au plus un intervalle d'identités de noeuds par ligne.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class SectorCorridor {
+    static final double SECTOR_WIDTH = SwissBounds.WIDTH / GraphSectors.SECTORS_PER_SIDE;
+    static final double SECTOR_HEIGHT = SwissBounds.HEIGHT / GraphSectors.SECTORS_PER_SIDE;
+    private static final double SECTOR_HALF_DIAGONAL = Math2.norm(SECTOR_WIDTH, SECTOR_HEIGHT) / 2;
+
+    private final int[] rangeStarts;
+    private final int[] rangeEnds;
+
+    /**
+     * Construit un couloir à partir de ses intervalles d'identités de noeuds
+     * 
+     * @param rangeStarts premier noeud de chaque intervalle, par ordre croissant
+     * @param rangeEnds   noeud suivant le dernier noeud de chaque intervalle
+     */
+    private SectorCorridor(int[] rangeStarts, int[] rangeEnds) {
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+    }
+
+    /**
+     * Méthode permettant de construire le couloir entourant le segment reliant deux noeuds
+     * 
+     * @param graph       graphe JaVelo
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * @param width       largeur du couloir de chaque côté du segment, en mètres
+     * 
+     * @return le couloir, qui contient toujours les deux noeuds
+     */
+    static SectorCorridor around(Graph graph, int startNodeId, int endNodeId, double width) {
+        double startE = graph.nodeE(startNodeId);
+        double startN = graph.nodeN(startNodeId);
+        double endE = graph.nodeE(endNodeId);
+        double endN = graph.nodeN(endNodeId);
+        double margin = width + SECTOR_HALF_DIAGONAL;
+
+        int xMin = sectorIndex(Math.min(startE, endE) - margin, SwissBounds.MIN_E, SECTOR_WIDTH);
+        int xMax = sectorIndex(Math.max(startE, endE) + margin, SwissBounds.MIN_E, SECTOR_WIDTH);
+        int yMin = sectorIndex(Math.min(startN, endN) - margin, SwissBounds.MIN_N, SECTOR_HEIGHT);
+        int yMax = sectorIndex(Math.max(startN, endN) + margin, SwissBounds.MIN_N, SECTOR_HEIGHT);
+
+        int[] rangeStarts = new int[yMax - yMin + 1];
+        int[] rangeEnds = new int[yMax - yMin + 1];
+        int rangeCount = 0;
+        for (int y = yMin; y <= yMax; y++) {
+            double centerN = SwissBounds.MIN_N + (y + 0.5) * SECTOR_HEIGHT;
+            int first = -1;
+            int last = -1;
+            for (int x = xMin; x <= xMax; x++) {
+                double centerE = SwissBounds.MIN_E + (x + 0.5) * SECTOR_WIDTH;
+                if (segmentDistance(startE, startN, endE, endN, centerE, centerN) <= margin) {
+                    if (first == -1)
+                        first = x;
+                    last = x;
+                }
+            }
+            if (first == -1)
+                continue;
+
+            int rangeStart = graph.sector(first, y).startNodeId();
+            int rangeEnd = graph.sector(last, y).endNodeId();
+            if (rangeStart < rangeEnd) {
+                rangeStarts[rangeCount] = rangeStart;
+                rangeEnds[rangeCount++] = rangeEnd;
+            }
+        }
+        return new SectorCorridor(Arrays.copyOf(rangeStarts, rangeCount),
+                Arrays.copyOf(rangeEnds, rangeCount));
+    }
+
+    /**
+     * Méthode permettant de savoir si un noeud appartient au couloir
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return TRUE si le noeud appartient à l'un des secteurs du couloir, sinon FALSE
+     */
+    boolean contains(int nodeId) {
+        int index = Arrays.binarySearch(rangeStarts, nodeId);
+        if (index < 0)
+            index = -index - 2;
+        return index >= 0 && nodeId < rangeEnds[index];
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'index, limité à la grille, de la colonne ou de la ligne de
+     * secteurs contenant une coordonnée
+     * 
+     * @param coordinate coordonnée E ou N, en mètres
+     * @param min        coordonnée minimale de la Suisse selon le même axe
+     * @param sectorSize taille d'un secteur selon le même axe
+     * 
+     * @return l'index de la colonne ou de la ligne
+     */
+    static int sectorIndex(double coordinate, double min, double sectorSize) {
+        return Math2.clamp(0, (int) Math.floor((coordinate - min) / sectorSize),
+                GraphSectors.SECTORS_PER_SIDE - 1);
+    }
+
+    /**
+     * Méthode permettant d'obtenir la distance entre un point et un segment
+     * 
+     * @param aE coordonnée E de la première extrémité du segment
+     * @param aN coordonnée N de la première extrémité du segment
+     * @param bE coordonnée E de la seconde extrémité du segment
+     * @param bN coordonnée N de la seconde extrémité du segment
+     * @param pE coordonnée E du point
+     * @param pN coordonnée N du point
+     * 
+     * @return la distance entre le point et le point du segment le plus proche, en mètres
+     */
+    private static double segmentDistance(double aE, double aN, double bE, double bN, double pE,
+            double pN) {
+        double segmentLength = Math2.norm(bE - aE, bN - aN);
+        double t = segmentLength == 0 ? 0
+                : Math2.clamp(0, Math2.projectionLength(aE, aN, bE, bN, pE, pN), segmentLength)
+                        / segmentLength;
+        return Math2.norm(pE - Math2.interpolate(aE, bE, t), pN - Math2.interpolate(aN, bN, t));
+    }
+}
@@ -0,0 +1,105 @@
+package ch.epfl.javelo.routing;
+
+import java.util.LinkedList;
+
+import ch.epfl.javelo.Bits;
+import ch.epfl.javelo.data.Graph;
+
+/**
+ * Classe représentant l'arbre des itinéraires de coût minimal depuis un noeud de départ vers tous
+ * les noeuds du graphe
+ * 
+ * L'arbre associe à chaque noeud son coût depuis le départ et son prédécesseur, codé comme dans
+ * RouteComputer par l'index de l'arête parmi les arêtes sortantes de son noeud de départ (4 bits
+ * de poids fort) et l'identité de ce noeud (28 bits de poids faible). L'itinéraire vers un noeud
+ * s'obtient en remontant les prédécesseurs, en un temps proportionnel à son nombre d'arêtes.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+final class ShortestPathTree {
+    private final Graph graph;
+    private final int startNodeId;
+    private final float[] costs;
+    private final int[] predecessors;
+
+    /**
+     * Construit un arbre des itinéraires de coût minimal
+     * 
+     * @param graph        graphe JaVelo
+     * @param startNodeId  identité du noeud de départ
+     * @param costs        coût de chaque noeud depuis le départ, infini s'il ne peut être atteint
+     * @param predecessors prédécesseur de chaque noeud atteint
+     */
+    ShortestPathTree(Graph graph, int startNodeId, float[] costs, int[] predecessors) {
+        this.graph = graph;
+        this.startNodeId = startNodeId;
+        this.costs = costs;
+        this.predecessors = predecessors;
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'identité du noeud de départ de l'arbre
+     * 
+     * @return l'identité du noeud de départ
+     */
+    int startNodeId() {
+        return startNodeId;
+    }
+
+    /**
+     * Méthode permettant d'obtenir le coût minimal d'un itinéraire menant à un noeud
+     * 
+     * @param nodeId identité du noeud
+     * 
+     * @return le coût minimal, infini si le noeud ne peut pas être atteint
+     */
+    float cost(int nodeId) {
+        return costs[nodeId];
+    }
+
+    /**
+     * Méthode permettant d'obtenir la place occupée en mémoire par les tableaux de l'arbre
+     * 
+     * @return le nombre d'octets des tableaux des coûts et des prédécesseurs
+     */
+    long byteSize() {
+        return byteSize(costs.length);
+    }
+
+    /**
+     * Méthode permettant d'obtenir la place occupée en mémoire par les tableaux d'un arbre d'un
+     * graphe possédant le nombre de noeuds donné
+     * 
+     * @param nodeCount nombre de noeuds du graphe
+     * 
+     * @return le nombre d'octets des tableaux des coûts et des prédécesseurs
+     */
+    static long byteSize(int nodeCount) {
+        return (long) nodeCount * (Float.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal menant à un noeud
+     * 
+     * @param endNodeId identité du noeud d'arrivée, différent du noeud de départ
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    Route route(int endNodeId) {
+        if (costs[endNodeId] == Float.POSITIVE_INFINITY)
+            return null;
+
+        LinkedList<Edge> edges = new LinkedList<>();
+        int currentEndId = endNodeId;
+        while (currentEndId != startNodeId) {
+            int predecessor = predecessors[currentEndId];
+            int edgeIndex = Bits.extractUnsigned(predecessor, 28, 4);
+            int currentStartId = Bits.extractUnsigned(predecessor, 0, 28);
+            int edgeId = graph.nodeOutEdgeId(currentStartId, edgeIndex);
+            edges.addFirst(Edge.of(graph, edgeId, currentStartId, currentEndId));
+            currentEndId = currentStartId;
+        }
+        return new SingleRoute(edges);
+    }
+}
@@ -0,0 +1,234 @@
+package ch.epfl.javelo.routing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ch.epfl.javelo.Preconditions;
+
+/**
+ * Classe représentant un cache d'arbres des itinéraires de coût minimal, conservant pour les
+ * noeuds de départ les plus souvent demandés l'arbre de leurs itinéraires vers tous les noeuds
+ * 
+ * Un arbre n'est calculé, au moyen d'une recherche de Dijkstra complète, qu'à partir de la
+ * admissionQueryCount-ième requête depuis un même départ ; les requêtes précédentes sont
+ * transmises au planificateur. Tant qu'il est conservé, toute requête depuis ce départ est
+ * ensuite résolue en remontant les prédécesseurs de l'arbre, sans recherche. Lorsque la place
+ * occupée par les arbres dépasserait le budget de mémoire, les arbres utilisés le moins
+ * récemment sont retirés, mais seulement si le nouveau départ a été demandé plus souvent que
+ * celui de l'arbre utilisé le moins récemment : un budget trop petit pour les départs fréquents
+ * ne conduit ainsi pas à recalculer sans cesse leurs arbres. Si un seul arbre dépasse le budget,
+ * aucun arbre n'est calculé et toutes les requêtes sont transmises au planificateur. Le nombre
+ * de requêtes de chaque départ est divisé par deux toutes les AGING_QUERY_COUNT requêtes, afin
+ * que les départs qui ne sont plus demandés cèdent leur place. Le cache peut être utilisé par
+ * plusieurs fils d'exécution à la fois.
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ */
+public final class ShortestPathTreeCache {
+    private static final int DEFAULT_ADMISSION_QUERY_COUNT = 2;
+    private static final int MAX_TRACKED_START_NODES = 1 << 12;
+    private static final int AGING_QUERY_COUNT = 1 << 15;
+    private static final int INIT_CAPACITY_LIST = 16;
+    private static final float FACTOR_LIST = 0.75f;
+    private static final boolean ACCESS_ORDER_LIST = true;
+
+    private final RouteComputer routeComputer;
+    private final long byteBudget;
+    private final long treeByteSize;
+    private final int admissionQueryCount;
+    private final Map<Integer, ShortestPathTree> trees;
+    private final Map<Integer, Integer> queryCounts;
+    private long usedBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private int queriesSinceAging;
+
+    /**
+     * Enregistrement représentant l'état d'un cache d'arbres des itinéraires de coût minimal à un
+     * instant donné
+     * 
+     * @author Marc FARHAT (325811)
+     * @author Florian COMTE (346006)
+     * 
+     * @param hitCount      nombre de requêtes résolues au moyen d'un arbre déjà conservé
+     * @param missCount     nombre de requêtes dont le départ n'avait pas d'arbre conservé
+     * @param evictionCount nombre d'arbres retirés du cache faute de place
+     * @param treeCount     nombre d'arbres conservés
+     * @param usedBytes     place occupée par les arbres conservés, en octets
+     */
+    public record Statistics(long hitCount, long missCount, long evictionCount, int treeCount,
+            long usedBytes) {
+
+        /**
+         * Méthode permettant d'obtenir la part des requêtes résolues au moyen d'un arbre déjà
+         * conservé
+         * 
+         * @return le taux de succès, compris entre 0 et 1, nul s'il n'y a eu aucune requête
+         */
+        public double hitRate() {
+            long queryCount = hitCount + missCount;
+            return queryCount == 0 ? 0 : (double) hitCount / queryCount;
+        }
+    }
+
+    /**
+     * Construit un cache d'arbres calculant l'arbre d'un départ dès sa deuxième requête
+     * 
+     * @param routeComputer planificateur d'itinéraire, dont la fonction de coût est celle des
+     *                      arbres
+     * @param byteBudget    place maximale occupée par les arbres conservés, en octets
+     * 
+     * @throws IllegalArgumentException si le budget de mémoire est négatif
+     */
+    public ShortestPathTreeCache(RouteComputer routeComputer, long byteBudget) {
+        this(routeComputer, byteBudget, DEFAULT_ADMISSION_QUERY_COUNT);
+    }
+
+    /**
+     * Construit un cache d'arbres calculant l'arbre d'un départ à partir du nombre de requêtes
+     * donné
+     * 
+     * @param routeComputer       planificateur d'itinéraire, dont la fonction de coût est celle
+     *                            des arbres
+     * @param byteBudget          place maximale occupée par les arbres conservés, en octets
+     * @param admissionQueryCount nombre de requêtes depuis un départ à partir duquel son arbre
+     *                            est calculé
+     * 
+     * @throws IllegalArgumentException si le budget de mémoire est négatif ou si le nombre de
+     *                                  requêtes n'est pas strictement positif
+     */
+    public ShortestPathTreeCache(RouteComputer routeComputer, long byteBudget,
+            int admissionQueryCount) {
+        Preconditions.checkArgument(byteBudget >= 0 && admissionQueryCount > 0);
+        this.routeComputer = routeComputer;
+        this.byteBudget = byteBudget;
+        this.treeByteSize = ShortestPathTree.byteSize(routeComputer.nodeCount());
+        this.admissionQueryCount = admissionQueryCount;
+        this.trees = new LinkedHashMap<>(INIT_CAPACITY_LIST, FACTOR_LIST, ACCESS_ORDER_LIST);
+        this.queryCounts = new LinkedHashMap<>(INIT_CAPACITY_LIST, FACTOR_LIST,
+                ACCESS_ORDER_LIST);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'itinéraire de coût minimal, au moyen de l'arbre du noeud de
+     * départ s'il est conservé ou s'il doit l'être, sinon au moyen du planificateur
+     * 
+     * @param startNodeId identité du noeud de départ
+     * @param endNodeId   identité du noeud d'arrivée
+     * 
+     * @throws IllegalArgumentException si le noeud de départ et d'arrivée sont les mêmes
+     * 
+     * @return l'itinéraire de coût minimal, ou null s'il n'en existe pas
+     */
+    public Route bestRouteBetween(int startNodeId, int endNodeId) {
+        Preconditions.checkArgument(startNodeId != endNodeId);
+        ShortestPathTree tree = cachedTree(startNodeId);
+        if (tree != null)
+            return tree.route(endNodeId);
+
+        if (!isAdmitted(startNodeId))
+            return routeComputer.bestRouteBetween(startNodeId, endNodeId);
+        tree = routeComputer.shortestPathTree(startNodeId);
+        store(tree);
+        return tree.route(endNodeId);
+    }
+
+    /**
+     * Méthode permettant d'obtenir l'état actuel du cache
+     * 
+     * @return l'état du cache
+     */
+    public synchronized Statistics statistics() {
+        return new Statistics(hitCount, missCount, evictionCount, trees.size(), usedBytes);
+    }
+
+    /**
+     * Méthode permettant de retirer tous les arbres du cache et d'oublier le nombre de requêtes
+     * de chaque départ, sans remettre à zéro les compteurs de l'état du cache
+     */
+    public synchronized void clear() {
+        trees.clear();
+        queryCounts.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Méthode permettant de compter une requête depuis un noeud de départ et d'obtenir son arbre
+     * conservé, en comptant la requête comme un succès s'il existe
+     * 
+     * Seuls les MAX_TRACKED_START_NODES départs demandés le plus récemment voient leur nombre de
+     * requêtes suivi.
+     * 
+     * @param startNodeId identité du noeud de départ
+     * 
+     * @return l'arbre du noeud de départ, ou null s'il n'est pas conservé
+     */
+    private synchronized ShortestPathTree cachedTree(int startNodeId) {
+        if (++queriesSinceAging == AGING_QUERY_COUNT) {
+            queryCounts.replaceAll((nodeId, queryCount) -> queryCount / 2);
+            queryCounts.values().removeIf(queryCount -> queryCount == 0);
+            queriesSinceAging = 0;
+        }
+        if (queryCounts.size() >= MAX_TRACKED_START_NODES
+                && !queryCounts.containsKey(startNodeId))
+            queryCounts.remove(queryCounts.keySet().iterator().next());
+        queryCounts.merge(startNodeId, 1, Integer::sum);
+
+        ShortestPathTree tree = trees.get(startNodeId);
+        if (tree != null)
+            hitCount++;
+        else
+            missCount++;
+        return tree;
+    }
+
+    /**
+     * Méthode permettant de savoir si l'arbre d'un noeud de départ sans arbre conservé doit être
+     * calculé
+     * 
+     * @param startNodeId identité du noeud de départ
+     * 
+     * @return TRUE si un arbre ne dépasse pas le budget de mémoire, si le départ a été demandé
+     *         au moins admissionQueryCount fois et si son arbre peut être conservé sans retirer
+     *         d'arbre, ou si le départ a été demandé plus souvent que celui de l'arbre utilisé le
+     *         moins récemment, sinon FALSE
+     */
+    private synchronized boolean isAdmitted(int startNodeId) {
+        // tous les arbres ont la même taille, proportionnelle au nombre de noeuds du graphe
+        if (treeByteSize > byteBudget)
+            return false;
+        int queryCount = queryCounts.getOrDefault(startNodeId, 0);
+        if (queryCount < admissionQueryCount)
+            return false;
+        if (trees.isEmpty())
+            return true;
+
+        ShortestPathTree eldest = trees.values().iterator().next();
+        return usedBytes + treeByteSize <= byteBudget
+                || queryCount > queryCounts.getOrDefault(eldest.startNodeId(), 0);
+    }
+
+    /**
+     * Méthode permettant de conserver un arbre, après avoir retiré les arbres utilisés le moins
+     * récemment jusqu'à ce qu'il y ait la place de le faire
+     * 
+     * @param tree arbre à conserver, qui ne l'est pas si sa taille dépasse le budget de mémoire
+     */
+    private synchronized void store(ShortestPathTree tree) {
+        if (tree.byteSize() > byteBudget)
+            return;
+
+        ShortestPathTree previous = trees.remove(tree.startNodeId());
+        if (previous != null)
+            usedBytes -= previous.byteSize();
+        while (usedBytes + tree.byteSize() > byteBudget) {
+            ShortestPathTree eldest = trees.remove(trees.keySet().iterator().next());
+            usedBytes -= eldest.byteSize();
+            evictionCount++;
+        }
+        trees.put(tree.startNodeId(), tree);
+        usedBytes += tree.byteSize();
+    }
+}
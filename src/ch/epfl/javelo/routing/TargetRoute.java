@@ -0,0 +1,16 @@
+package ch.epfl.javelo.routing;
+
+/**
+ * Enregistrement représentant l'itinéraire de coût minimal menant au plus proche de plusieurs
+ * noeuds d'arrivée
+ * 
+ * @author Marc FARHAT (325811)
+ * @author Florian COMTE (346006)
+ * 
+ * @param targetNodeId identité du noeud d'arrivée atteint
+ * @param route        itinéraire
+ * @param cost         coût de l'itinéraire, c.-à-d. la somme des longueurs de ses arêtes
+ *                     pondérées par la fonction de coût
+ */
+public record TargetRoute(int targetNodeId, Route route, float cost) {
+}